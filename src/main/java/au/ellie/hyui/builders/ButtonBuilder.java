@@ -221,6 +221,12 @@ public class ButtonBuilder extends UIElementBuilder<ButtonBuilder> implements
         return this;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public ButtonBuilder withLayoutMode(String layoutMode) {
         this.layoutMode = layoutMode;
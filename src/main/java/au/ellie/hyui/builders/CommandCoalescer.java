@@ -0,0 +1,228 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.builders;
+
+import au.ellie.hyui.HyUIPlugin;
+import au.ellie.hyui.utils.BsonDocumentHelper;
+import au.ellie.hyui.utils.PropertyBatcher;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommand;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommandType;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shrinks the commands of one build before they are sent, without changing what the client ends
+ * up showing.
+ * <ul>
+ *     <li>Only the last set of each property is kept.</li>
+ *     <li>Sets to elements removed later in the same build are dropped.</li>
+ *     <li>A style document set followed by sets of that style's own properties is sent as one
+ *     document.</li>
+ * </ul>
+ */
+final class CommandCoalescer {
+
+    private long coalescedCommands;
+    private long coalescedBytes;
+
+    /**
+     * Coalesces the commands added to the builder since {@code start}.
+     *
+     * @param builder The builder holding the build.
+     * @param start   The index of the build's first command.
+     */
+    void coalesce(UICommandBuilder builder, int start) {
+        List<CustomUICommand> all = CommandDiff.commandsOf(builder);
+        List<CustomUICommand> commands = all.subList(start, all.size());
+        int before = commands.size();
+        long bytesBefore = sizeOf(commands);
+
+        dropOverwrittenSets(commands);
+        mergeStyleSets(commands);
+
+        long saved = bytesBefore - sizeOf(commands);
+        coalescedCommands += before - commands.size();
+        coalescedBytes += saved;
+        HyUIPlugin.getLog().logFinest("COALESCE: " + before + " commands down to " + commands.size()
+                + ", " + saved + " bytes saved");
+    }
+
+    /**
+     * @return How many commands were dropped or merged into others.
+     */
+    long getCoalescedCommands() {
+        return coalescedCommands;
+    }
+
+    /**
+     * @return Roughly how many bytes of selectors and values were not sent.
+     */
+    long getCoalescedBytes() {
+        return coalescedBytes;
+    }
+
+    private static void dropOverwrittenSets(List<CustomUICommand> commands) {
+        // Walks backwards, so everything set or removed later is already known.
+        Set<String> setLater = new HashSet<>();
+        Set<String> removedLater = new HashSet<>();
+        List<CustomUICommand> kept = new ArrayList<>(commands.size());
+        for (int i = commands.size() - 1; i >= 0; i--) {
+            CustomUICommand command = commands.get(i);
+            if (command.type == CustomUICommandType.Remove && command.selector != null) {
+                removedLater.add(command.selector);
+            } else if (command.type == CustomUICommandType.Set && command.selector != null
+                    && (!setLater.add(command.selector) || isRemoved(command.selector, removedLater))) {
+                continue;
+            }
+            kept.add(command);
+        }
+        if (kept.size() == commands.size()) {
+            return;
+        }
+        Collections.reverse(kept);
+        commands.clear();
+        commands.addAll(kept);
+    }
+
+    /**
+     * Whether the selector targets an element in the removed set, or one of its properties.
+     */
+    private static boolean isRemoved(String selector, Set<String> removed) {
+        if (removed.isEmpty()) {
+            return false;
+        }
+        if (removed.contains(selector)) {
+            return true;
+        }
+        for (int i = 1; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if ((c == '.' || c == ' ') && removed.contains(selector.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void mergeStyleSets(List<CustomUICommand> commands) {
+        List<CustomUICommand> merged = null;
+        UICommandBuilder scratch = null;
+        int i = 0;
+        while (i < commands.size()) {
+            CustomUICommand command = commands.get(i);
+            int end = i + 1;
+            BsonDocument document = end < commands.size() && propertyOf(command, commands.get(end)) != null
+                    ? documentOf(command)
+                    : null;
+
+            BsonDocumentHelper batch = null;
+            while (document != null && end < commands.size()) {
+                CustomUICommand next = commands.get(end);
+                String property = propertyOf(command, next);
+                // A property the document already holds may be merged differently by the client.
+                BsonValue value = property != null && !document.containsKey(property) ? valueOf(next) : null;
+                if (value == null) {
+                    break;
+                }
+                if (batch == null) {
+                    batch = PropertyBatcher.beginSet();
+                    for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+                        batch.set(entry.getKey(), entry.getValue());
+                    }
+                }
+                batch.set(property, value);
+                end++;
+            }
+
+            if (batch != null) {
+                if (merged == null) {
+                    merged = new ArrayList<>(commands.subList(0, i));
+                    scratch = new UICommandBuilder();
+                }
+                PropertyBatcher.endSet(command.selector, batch, scratch);
+                List<CustomUICommand> built = CommandDiff.commandsOf(scratch);
+                merged.add(built.remove(built.size() - 1));
+            } else if (merged != null) {
+                merged.add(command);
+            }
+            i = end;
+        }
+        if (merged != null) {
+            commands.clear();
+            commands.addAll(merged);
+        }
+    }
+
+    /**
+     * @return The name of the property of {@code command}'s target that {@code next} sets, or null
+     *         if it sets something else.
+     */
+    private static String propertyOf(CustomUICommand command, CustomUICommand next) {
+        if (command.type != CustomUICommandType.Set || next.type != CustomUICommandType.Set
+                || command.selector == null || next.selector == null || next.text != null
+                || next.selector.length() <= command.selector.length() + 1
+                || !next.selector.startsWith(command.selector)
+                || next.selector.charAt(command.selector.length()) != '.') {
+            return null;
+        }
+        String property = next.selector.substring(command.selector.length() + 1);
+        return property.indexOf('.') < 0 && property.indexOf(' ') < 0 ? property : null;
+    }
+
+    private static BsonDocument documentOf(CustomUICommand command) {
+        return command.text == null && valueOf(command) instanceof BsonDocument document ? document : null;
+    }
+
+    /**
+     * @return The value a set command sends, or null if it can't be read.
+     */
+    private static BsonValue valueOf(CustomUICommand command) {
+        if (command.data == null) {
+            return null;
+        }
+        try {
+            // Set commands carry their value as the only entry of a document.
+            BsonDocument wrapper = BsonDocument.parse(command.data);
+            return wrapper.size() == 1 ? wrapper.values().iterator().next() : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static long sizeOf(List<CustomUICommand> commands) {
+        long size = 0;
+        for (CustomUICommand command : commands) {
+            size += 1 + sizeOf(command.selector) + sizeOf(command.data) + sizeOf(command.text);
+        }
+        return size;
+    }
+
+    private static int sizeOf(String value) {
+        // Selectors and values are nearly all ASCII, so characters stand in for bytes without encoding.
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.builders;
+
+import au.ellie.hyui.HyUIPlugin;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommand;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommandType;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Remembers what an interface last sent to the client, so later builds only send what changed.
+ * <p>
+ * Property sets are tracked per selector. A set is dropped when the client already has that
+ * value. Appends, inserts, removes and clears are tracked as the page structure: a full rebuild
+ * with the same structure as the last one can be sent as property sets alone instead of clearing
+ * and re-creating the page.
+ */
+final class CommandDiff {
+
+    private static final Field COMMANDS_FIELD;
+
+    static {
+        try {
+            COMMANDS_FIELD = UICommandBuilder.class.getDeclaredField("commands");
+            COMMANDS_FIELD.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException("Hytale UI internals incompatible with this version of CommandDiff", e);
+        }
+    }
+
+    // The last value sent for each set selector, as the set command's data. Sorted, so the
+    // properties inside a value can be found by prefix.
+    private final NavigableMap<String, String> values = new TreeMap<>();
+    // Selectors set by the last full build; a patch has to set them all again.
+    private Set<String> fullBuildSelectors = Set.of();
+    // The structural commands of the last full build, or null when the client's page is unknown.
+    private List<String> structure;
+    // Selectors of removes whose elements and children were already forgotten.
+    private final Set<String> forgottenRemovals = new HashSet<>();
+
+    /**
+     * @return The number of commands already in the builder, to pass as {@code start} later.
+     */
+    static int mark(UICommandBuilder builder) {
+        return commandsOf(builder).size();
+    }
+
+    /**
+     * Records a full build that the client will receive as a whole. Sets repeating the value
+     * already set earlier in the same build are dropped.
+     *
+     * @param builder The builder holding the build.
+     * @param start   The index of the build's first command.
+     */
+    void record(UICommandBuilder builder, int start) {
+        List<CustomUICommand> built = commandsOf(builder).subList(start, commandsOf(builder).size());
+        structure = structureOf(built);
+        values.clear();
+        int before = built.size();
+        fullBuildSelectors = emit(built);
+        HyUIPlugin.getLog().logFinest("DIFF: Full build of " + built.size() + " commands, "
+                + (before - built.size()) + " repeated sets dropped");
+    }
+
+    /**
+     * Turns a full build into a patch when the client's page already has the same structure.
+     * Otherwise the build is recorded and must be sent with the page cleared.
+     *
+     * @param builder The builder holding the build.
+     * @param start   The index of the build's first command.
+     * @return true if the builder now only holds the changed sets and the page must not be cleared.
+     */
+    boolean patch(UICommandBuilder builder, int start) {
+        List<CustomUICommand> built = commandsOf(builder).subList(start, commandsOf(builder).size());
+        List<String> builtStructure = structureOf(built);
+        if (!builtStructure.equals(structure) || !setSelectorsOf(built).containsAll(fullBuildSelectors)) {
+            // New or removed elements, or properties the client would have to reset to their defaults.
+            HyUIPlugin.getLog().logFinest("DIFF: Page structure changed, sending the whole page");
+            record(builder, start);
+            return false;
+        }
+
+        int before = built.size();
+        built.removeIf(command -> command.type != CustomUICommandType.Set);
+        emit(built);
+        HyUIPlugin.getLog().logFinest("DIFF: Patched page with " + built.size() + " of " + before + " commands");
+        return true;
+    }
+
+    /**
+     * Drops the sets of an update-only build that the client already has.
+     *
+     * @param builder The builder holding the update.
+     * @param start   The index of the update's first command.
+     */
+    void update(UICommandBuilder builder, int start) {
+        List<CustomUICommand> built = commandsOf(builder).subList(start, commandsOf(builder).size());
+        int before = built.size();
+        for (CustomUICommand command : built) {
+            if (command.type != CustomUICommandType.Set) {
+                // Edit callbacks changed the page, so the next full build can't be a patch.
+                structure = null;
+                break;
+            }
+        }
+        emit(built);
+        HyUIPlugin.getLog().logFinest("DIFF: Update of " + built.size() + " of " + before + " commands");
+    }
+
+    /**
+     * Forgets the values sent to an element, for when the player changed them on the client.
+     *
+     * @param elementId The element's effective id.
+     */
+    void forget(String elementId) {
+        forgetSelector("#" + elementId);
+    }
+
+    /**
+     * Notes that an element is about to be removed and its children's values were forgotten with
+     * {@link #forget}, so the remove doesn't have to forget every value sent.
+     *
+     * @param selector The selector of the remove command.
+     */
+    void forgetRemoval(String selector) {
+        forgottenRemovals.add(selector);
+    }
+
+    private void forgetSelector(String prefix) {
+        values.keySet().removeIf(selector -> selector.startsWith(prefix)
+                && (selector.length() == prefix.length()
+                || selector.charAt(prefix.length()) == '.'
+                || selector.charAt(prefix.length()) == ' '));
+    }
+
+    void reset() {
+        values.clear();
+        forgottenRemovals.clear();
+        fullBuildSelectors = Set.of();
+        structure = null;
+    }
+
+    /**
+     * Removes the sets the client already has and remembers the rest.
+     *
+     * @return The selectors of every set in the commands, sent or not.
+     */
+    private Set<String> emit(List<CustomUICommand> commands) {
+        Set<String> selectors = new HashSet<>();
+        Iterator<CustomUICommand> iterator = commands.iterator();
+        while (iterator.hasNext()) {
+            CustomUICommand command = iterator.next();
+            if (command.type == CustomUICommandType.Clear) {
+                // Cleared elements may come back with their default values.
+                values.clear();
+            } else if (command.type == CustomUICommandType.Remove) {
+                if (command.selector != null && forgottenRemovals.remove(command.selector)) {
+                    forgetSelector(command.selector);
+                } else {
+                    // Removed elements and their children may come back with their default values.
+                    values.clear();
+                }
+            } else if (command.type == CustomUICommandType.Set && command.selector != null) {
+                selectors.add(command.selector);
+                if (values.containsKey(command.selector)
+                        && Objects.equals(values.get(command.selector), command.data)) {
+                    iterator.remove();
+                } else {
+                    values.put(command.selector, command.data);
+                    // The new value may reset properties inside it, such as a style's text color.
+                    values.subMap(command.selector + ".", command.selector + "/").clear();
+                }
+            }
+        }
+        return selectors;
+    }
+
+    private static Set<String> setSelectorsOf(List<CustomUICommand> commands) {
+        Set<String> selectors = new HashSet<>();
+        for (CustomUICommand command : commands) {
+            if (command.type == CustomUICommandType.Set && command.selector != null) {
+                selectors.add(command.selector);
+            }
+        }
+        return selectors;
+    }
+
+    private static List<String> structureOf(List<CustomUICommand> commands) {
+        List<String> structure = new ArrayList<>();
+        for (CustomUICommand command : commands) {
+            if (command.type != CustomUICommandType.Set) {
+                structure.add(command.type + "\0" + command.selector + "\0" + command.data + "\0" + command.text);
+            }
+        }
+        return structure;
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<CustomUICommand> commandsOf(UICommandBuilder builder) {
+        try {
+            return (List<CustomUICommand>) COMMANDS_FIELD.get(builder);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to read the commands of a UICommandBuilder", e);
+        }
+    }
+}
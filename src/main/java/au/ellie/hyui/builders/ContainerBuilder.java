@@ -66,6 +66,12 @@ public class ContainerBuilder extends UIElementBuilder<ContainerBuilder> impleme
         return this;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public ContainerBuilder withLayoutMode(String layoutMode) {
         this.layoutMode = layoutMode;
@@ -124,6 +130,7 @@ public class ContainerBuilder extends UIElementBuilder<ContainerBuilder> impleme
     public ContainerBuilder addContentChild(UIElementBuilder<?> child) {
         child.inside("#Content");
         this.children.add(child);
+        structureChanged();
         return this;
     }
     
@@ -135,6 +142,7 @@ public class ContainerBuilder extends UIElementBuilder<ContainerBuilder> impleme
     public ContainerBuilder addTitleChild(UIElementBuilder<?> child) {
         child.inside("#Title");
         this.children.add(child);
+        structureChanged();
         return this;
     }
     
@@ -164,34 +172,9 @@ public class ContainerBuilder extends UIElementBuilder<ContainerBuilder> impleme
     }
 
     @Override
-    protected void buildChildren(UICommandBuilder commands, UIEventBuilder events, boolean updateOnly) {
-        String selector = getSelector();
-        if (selector != null) {
-            for (UIElementBuilder<?> child : children) {
-                HyUIPlugin.getLog().logFinest("Building child element with parent selector: " + child.parentSelector);
-                // We want to make sure children can be placed in #Title or #Content.
-                // UIElementBuilder.inside() sets parentSelector.
-                String childParent = child.parentSelector;
-
-                // Store the original parent selector so we can restore it after building.
-                // This prevents the selector from accumulating recursively on subsequent builds.
-                String originalParent = childParent;
-
-                if (childParent.equals("#Content")) {
-                    child.inside(selector + " #Content").build(commands, events, updateOnly);
-                } else if (childParent.equals("#Title")) {
-                    child.inside(selector + " #Title").build(commands, events, updateOnly);
-                } else if (childParent.startsWith("#")) {
-                    // If it starts with #, assume it's a sub-element ID of the container
-                    child.inside(selector + " " + childParent).build(commands, events, updateOnly);
-                } else {
-                    // Fallback
-                    child.inside(selector + " " + childParent).build(commands, events, updateOnly);
-                }
-
-                // Restore the original parent selector
-                child.inside(originalParent);
-            }
-        }
+    protected String getChildParentSelector(UIElementBuilder<?> child) {
+        // Children are placed in #Title, #Content or another sub-element of the container,
+        // as set with UIElementBuilder.inside().
+        return getSelector() + " " + child.parentSelector;
     }
 }
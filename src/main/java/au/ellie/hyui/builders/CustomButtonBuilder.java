@@ -93,6 +93,19 @@ public class CustomButtonBuilder extends UIElementBuilder<CustomButtonBuilder>
         return this;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.defaultBackground = defaultBackground != null ? defaultBackground.copy() : null;
+        this.hoveredBackground = hoveredBackground != null ? hoveredBackground.copy() : null;
+        this.pressedBackground = pressedBackground != null ? pressedBackground.copy() : null;
+        this.disabledBackground = disabledBackground != null ? disabledBackground.copy() : null;
+        this.defaultLabelStyle = defaultLabelStyle != null ? defaultLabelStyle.copy() : null;
+        this.hoveredLabelStyle = hoveredLabelStyle != null ? hoveredLabelStyle.copy() : null;
+        this.pressedLabelStyle = pressedLabelStyle != null ? pressedLabelStyle.copy() : null;
+        this.disabledLabelStyle = disabledLabelStyle != null ? disabledLabelStyle.copy() : null;
+    }
+
     @Override
     public CustomButtonBuilder withLayoutMode(String layoutMode) {
         this.layoutMode = layoutMode;
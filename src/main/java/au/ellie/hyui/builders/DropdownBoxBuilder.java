@@ -62,6 +62,12 @@ public class DropdownBoxBuilder extends UIElementBuilder<DropdownBoxBuilder> {
         return new DropdownBoxBuilder(Theme.GAME_THEME);
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.entries = new ArrayList<>(entries);
+    }
+
     /**
      * Sets the initial selected value for the dropdown box.
      * 
@@ -42,7 +42,7 @@ public class DynamicImageBuilder extends UIElementBuilder<DynamicImageBuilder>
     private String scrollbarStyleDocument;
     private String imageUrl;
     private boolean imagePathAssigned;
-    private final Map<UUID, Integer> slotIndexes = new HashMap<>();
+    private Map<UUID, Integer> slotIndexes = new HashMap<>();
     private static final UUID DEFAULT_PLAYER_UUID = new UUID(0L, 0L);
 
     public DynamicImageBuilder() {
@@ -106,6 +106,14 @@ public class DynamicImageBuilder extends UIElementBuilder<DynamicImageBuilder>
         }
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        // withImagePath changes the background in place, and slots are held per copy.
+        this.background = background != null ? background.copy() : null;
+        this.slotIndexes = new HashMap<>(slotIndexes);
+    }
+
     @Override
     protected void applyTemplate(UIElementBuilder<?> template) {
         HyUIPatchStyle currentBackground = this.background;
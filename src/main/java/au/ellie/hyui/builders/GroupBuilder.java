@@ -59,6 +59,12 @@ public class GroupBuilder extends UIElementBuilder<GroupBuilder> implements
         return new GroupBuilder();
     }
     
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     /**
      * Sets the layout mode for the group.
      * 
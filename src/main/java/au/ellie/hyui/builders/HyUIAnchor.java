@@ -33,6 +33,7 @@ public class HyUIAnchor {
     private Integer width = null;
     private Integer minWidth = null;
     private Integer maxWidth = null;
+    private boolean shared;
     public HyUIAnchor() {
     }
 
@@ -50,6 +51,28 @@ public class HyUIAnchor {
         this.maxWidth = maxWidth;
     }
 
+    /**
+     * @return a new anchor with the same values
+     */
+    public HyUIAnchor copy() {
+        return new HyUIAnchor(left, right, top, bottom, height, full, horizontal, vertical, width, minWidth, maxWidth);
+    }
+
+    /**
+     * Marks this anchor as shared between several elements. Builders copy a shared anchor before
+     * changing it, so it must not be changed directly afterwards.
+     *
+     * @return this anchor
+     */
+    public HyUIAnchor markShared() {
+        this.shared = true;
+        return this;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
     public HyUIAnchor setLeft(Integer left) {
         this.left = left;
         return this;
@@ -293,6 +293,20 @@ public class HyUIHud extends CustomUIHud implements UIContext {
         return delegate.getCommandLog();
     }
 
+    /**
+     * @return How many commands builds of this interface dropped or merged before sending them.
+     */
+    public long getCoalescedCommands() {
+        return delegate.getCoalescedCommands();
+    }
+
+    /**
+     * @return Roughly how many bytes of commands builds of this interface saved by coalescing.
+     */
+    public long getCoalescedBytes() {
+        return delegate.getCoalescedBytes();
+    }
+
     @Override
     public Optional<Object> getValue(String id) {
         return delegate.getValue(id);
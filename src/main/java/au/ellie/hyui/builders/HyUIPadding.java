@@ -26,6 +26,7 @@ public class HyUIPadding {
     private Integer top;
     private Integer right;
     private Integer bottom;
+    private boolean shared;
 
     public HyUIPadding() {}
 
@@ -44,6 +45,28 @@ public class HyUIPadding {
         this.bottom = bottom;
     }
 
+    /**
+     * @return a new padding with the same values
+     */
+    public HyUIPadding copy() {
+        return new HyUIPadding(left, top, right, bottom);
+    }
+
+    /**
+     * Marks this padding as shared between several elements. Builders copy a shared padding before
+     * changing it, so it must not be changed directly afterwards.
+     *
+     * @return this padding
+     */
+    public HyUIPadding markShared() {
+        this.shared = true;
+        return this;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
     public Integer getLeft() {
         return left;
     }
@@ -56,6 +56,20 @@ public class HyUIPage extends InteractiveCustomUIPage<DynamicPageData> implement
         return delegate.getCommandLog();
     }
 
+    /**
+     * @return How many commands builds of this interface dropped or merged before sending them.
+     */
+    public long getCoalescedCommands() {
+        return delegate.getCoalescedCommands();
+    }
+
+    /**
+     * @return Roughly how many bytes of commands builds of this interface saved by coalescing.
+     */
+    public long getCoalescedBytes() {
+        return delegate.getCoalescedBytes();
+    }
+
     @Override
     public Optional<Object> getValue(String id) {
         return delegate.getValue(id);
@@ -80,8 +94,14 @@ public class HyUIPage extends InteractiveCustomUIPage<DynamicPageData> implement
             Player playerComponent = (Player)store.getComponent(ref, Player.getComponentType());
             UICommandBuilder commandBuilder = new UICommandBuilder();
             UIEventBuilder eventBuilder = new UIEventBuilder();
-            delegate.build(ref, commandBuilder, eventBuilder, ref.getStore(), !shouldClear);
-            playerComponent.getPageManager().updateCustomPage(new CustomPage(this.getClass().getName(), false, shouldClear, this.lifetime, commandBuilder.getCommands(), eventBuilder.getEvents()));
+            boolean clear = shouldClear;
+            if (shouldClear) {
+                // Only clears when elements were added or removed, otherwise sends what changed.
+                clear = !delegate.buildPatch(ref, commandBuilder, eventBuilder, ref.getStore());
+            } else {
+                delegate.build(ref, commandBuilder, eventBuilder, ref.getStore(), true);
+            }
+            playerComponent.getPageManager().updateCustomPage(new CustomPage(this.getClass().getName(), false, clear, this.lifetime, commandBuilder.getCommands(), eventBuilder.getEvents()));
         }
     }
 
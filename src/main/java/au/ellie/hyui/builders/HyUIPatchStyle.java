@@ -38,6 +38,23 @@ public class HyUIPatchStyle {
 
     public HyUIPatchStyle() {}
 
+    /**
+     * @return a new PatchStyle with the same values
+     */
+    public HyUIPatchStyle copy() {
+        HyUIPatchStyle copy = new HyUIPatchStyle();
+        copy.color = color;
+        copy.texturePath = texturePath;
+        copy.border = border;
+        copy.horizontalBorder = horizontalBorder;
+        copy.verticalBorder = verticalBorder;
+        copy.areaHeight = areaHeight;
+        copy.areaWidth = areaWidth;
+        copy.areaX = areaX;
+        copy.areaY = areaY;
+        return copy;
+    }
+
     /**
      * Sets the color for this PatchStyle.
      * 
@@ -44,6 +44,7 @@ public class HyUIStyle {
     private String styleDocument = "Common.ui";
     private final Map<String, HyUIStyle> states = new HashMap<>();
     private final Map<String, Object> rawProperties = new HashMap<>();
+    private boolean shared;
 
     /**
      * Cleans the input string by removing units like rem, em, pt, px, and %.
@@ -187,6 +188,45 @@ public class HyUIStyle {
         return this;
     }
 
+    /**
+     * @return a new style with the same values, states and raw properties
+     */
+    public HyUIStyle copy() {
+        HyUIStyle copy = new HyUIStyle();
+        copy.fontSize = fontSize;
+        copy.renderBold = renderBold;
+        copy.renderItalics = renderItalics;
+        copy.renderUppercase = renderUppercase;
+        copy.textColor = textColor;
+        copy.letterSpacing = letterSpacing;
+        copy.wrap = wrap;
+        copy.fontName = fontName;
+        copy.outlineColor = outlineColor;
+        copy.horizontalAlignment = horizontalAlignment;
+        copy.verticalAlignment = verticalAlignment;
+        copy.alignment = alignment;
+        copy.styleReference = styleReference;
+        copy.styleDocument = styleDocument;
+        states.forEach((state, style) -> copy.states.put(state, style.copy()));
+        copy.rawProperties.putAll(rawProperties);
+        return copy;
+    }
+
+    /**
+     * Marks this style as shared between several elements. Builders copy a shared style before
+     * changing it, so it must not be changed directly afterwards.
+     *
+     * @return this style
+     */
+    public HyUIStyle markShared() {
+        this.shared = true;
+        return this;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
     public HyUIStyle setDisabledStyle(HyUIStyle style) {
         states.put("Disabled", style);
         return this;
@@ -31,7 +31,9 @@ import au.ellie.hyui.events.SlotMouseEnteredEventData;
 import au.ellie.hyui.events.SlotMouseExitedEventData;
 import au.ellie.hyui.events.UIContext;
 import au.ellie.hyui.events.UIEventListener;
+import au.ellie.hyui.html.ElementTemplate;
 import au.ellie.hyui.html.HtmlParser;
+import au.ellie.hyui.html.RenderedTemplate;
 import au.ellie.hyui.html.TemplateProcessor;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
@@ -44,8 +46,14 @@ import au.ellie.hyui.events.DynamicPageData;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -55,6 +63,8 @@ import java.util.UUID;
 
 public abstract class HyUInterface implements UIContext {
 
+    private static final Map<String, CustomUIEventBindingType> ACTION_TYPES = createActionTypes();
+
     protected String uiFile;
     protected List<UIElementBuilder<?>> elements;
     protected List<Consumer<UICommandBuilder>> editCallbacks;
@@ -65,6 +75,25 @@ public abstract class HyUInterface implements UIContext {
     private boolean hasBuilt;
     private boolean runtimeTemplateUpdatesEnabled;
     private final Set<String> dirtyValueIds = new HashSet<>();
+    private RenderedTemplate renderedTemplate;
+    private ElementTemplate elementTemplate;
+    private String[] elementTemplateValues;
+    private final CommandDiff commandDiff = new CommandDiff();
+    private final CommandCoalescer coalescer = new CommandCoalescer();
+    // Whether builds are coalesced and diffed against what the client has before being sent.
+    private boolean shrinkCommands = true;
+    // Child lists changed by template merges, not yet sent to the client.
+    private final List<ListChange> listChanges = new ArrayList<>();
+    // Elements by id and by effective id, rebuilt when the elements or their structure change.
+    private Map<String, UIElementBuilder<?>> elementsById;
+    private Map<String, UIElementBuilder<?>> elementsByEffectiveId;
+    // Event listeners by the effective id events target, then by event type.
+    private Map<String, Map<CustomUIEventBindingType, List<EventRoute>>> eventRoutes;
+    private List<UIElementBuilder<?>> indexedElements;
+    private int indexedSize;
+    private int indexedVersion;
+    // Shared with the indexed elements, which bump it when their children, ids or listeners change.
+    private final UIElementBuilder.StructureVersion structureVersion = new UIElementBuilder.StructureVersion();
 
     public HyUInterface(String uiFile,
                         List<UIElementBuilder<?>> elements,
@@ -85,6 +114,20 @@ public abstract class HyUInterface implements UIContext {
         return new ArrayList<>(commandLog);
     }
 
+    /**
+     * @return How many commands builds of this interface dropped or merged before sending them.
+     */
+    public long getCoalescedCommands() {
+        return coalescer.getCoalescedCommands();
+    }
+
+    /**
+     * @return Roughly how many bytes of commands builds of this interface saved by coalescing.
+     */
+    public long getCoalescedBytes() {
+        return coalescer.getCoalescedBytes();
+    }
+
     @Override
     public Optional<Object> getValue(String id) {
         if (HyUIPluginLogger.IS_DEV) {
@@ -116,13 +159,30 @@ public abstract class HyUInterface implements UIContext {
                       @Nonnull UIEventBuilder uiEventBuilder,
                       @Nonnull Store<EntityStore> store,
                       boolean updateOnly) {
+        build(ref, uiCommandBuilder, uiEventBuilder, store, updateOnly, false);
+    }
+
+    /**
+     * @param patch Whether the caller patches the build against the last full build, which it
+     *              must then record itself.
+     */
+    private void build(@Nonnull Ref<EntityStore> ref,
+                       @Nonnull UICommandBuilder uiCommandBuilder,
+                       @Nonnull UIEventBuilder uiEventBuilder,
+                       @Nonnull Store<EntityStore> store,
+                       boolean updateOnly,
+                       boolean patch) {
         
         HyUIPlugin.getLog().logFinest("REBUILD: HyUInterface build updateOnly=" + updateOnly);
         HyUIPlugin.getLog().logFinest("Building HyUInterface" + (uiFile != null ? " from file: " + uiFile : ""));
+        int start = CommandDiff.mark(uiCommandBuilder);
 
         //LoggingUICommandBuilder loggingBuilder = new LoggingUICommandBuilder();
 
-        refreshTemplate(this);
+        // A full build renders the template once the values are captured, in prepareInitialRender.
+        if (updateOnly) {
+            refreshTemplate(this, false);
+        }
 
         if (!updateOnly && uiFile != null) {
             //if (HyUIPluginLogger.IS_DEV)
@@ -139,13 +199,11 @@ public abstract class HyUInterface implements UIContext {
         }
 
         if (!updateOnly) {
-            elementValues.clear();
-            dirtyValueIds.clear();
+            prepareInitialRender();
+        } else {
+            applyListChanges(uiCommandBuilder, uiEventBuilder);
         }
         for (UIElementBuilder<?> element : elements) {
-            if (!updateOnly) {
-                captureInitialValues(element);
-            }
             /*if (HyUIPluginLogger.IS_DEV) {
                 if (updateOnly) {
                     element.buildUpdates(loggingBuilder, new UIEventBuilder());
@@ -160,23 +218,40 @@ public abstract class HyUInterface implements UIContext {
             }
         }
 
-        if (!updateOnly) {
-            // This entire process below happens because we need to update the template to mimic the page.
-            // and we capture the real values of the elements after they've been built.
-            refreshTemplate(this);
-            for (UIElementBuilder<?> element : elements) {
-                /*if (HyUIPluginLogger.IS_DEV) {
-                    element.buildUpdates(loggingBuilder, new UIEventBuilder());
-                }*/
-                // TODO: THIS IS CALLED WHICH REBUILDS THE ENTIRE UI.
-                element.buildUpdates(uiCommandBuilder, uiEventBuilder);
+        if (shrinkCommands) {
+            coalescer.coalesce(uiCommandBuilder, start);
+            if (updateOnly) {
+                commandDiff.update(uiCommandBuilder, start);
+            } else if (!patch) {
+                commandDiff.record(uiCommandBuilder, start);
             }
         }
+        if (!patch) {
+            markElementsSent();
+        }
 
         //this.commandLog = loggingBuilder.getCommandLog();
         this.hasBuilt = true;
     }
 
+    /**
+     * Builds the whole interface, then reduces it to the properties that changed since the last
+     * build if the client's page already has the same elements.
+     *
+     * @return true if the builder only holds the changes and the page must not be cleared, false
+     *         if it holds the whole page.
+     */
+    public boolean buildPatch(@Nonnull Ref<EntityStore> ref,
+                              @Nonnull UICommandBuilder uiCommandBuilder,
+                              @Nonnull UIEventBuilder uiEventBuilder,
+                              @Nonnull Store<EntityStore> store) {
+        int start = CommandDiff.mark(uiCommandBuilder);
+        build(ref, uiCommandBuilder, uiEventBuilder, store, false, true);
+        boolean patched = shrinkCommands && commandDiff.patch(uiCommandBuilder, start);
+        markElementsSent();
+        return patched;
+    }
+
     public void buildFromCommandBuilder(@Nonnull UICommandBuilder uiCommandBuilder) {
         buildFromCommandBuilder(uiCommandBuilder, false);
     }
@@ -184,10 +259,14 @@ public abstract class HyUInterface implements UIContext {
     public void buildFromCommandBuilder(@Nonnull UICommandBuilder uiCommandBuilder, boolean updateOnly) {
         HyUIPlugin.getLog().logFinest("REBUILD: HyUInterface buildFromCommandBuilder updateOnly=" + updateOnly);
         HyUIPlugin.getLog().logFinest("Building HyUInterface " + (uiFile != null ? " from file: " + uiFile : ""));
+        int start = CommandDiff.mark(uiCommandBuilder);
 
         //LoggingUICommandBuilder loggingBuilder = new LoggingUICommandBuilder();
 
-        refreshTemplate(this);
+        // A full build renders the template once the values are captured, in prepareInitialRender.
+        if (updateOnly) {
+            refreshTemplate(this, false);
+        }
 
         if (!updateOnly && uiFile != null) {
             /*if (HyUIPluginLogger.IS_DEV)
@@ -204,13 +283,11 @@ public abstract class HyUInterface implements UIContext {
         }
 
         if (!updateOnly) {
-            elementValues.clear();
-            dirtyValueIds.clear();
+            prepareInitialRender();
+        } else {
+            applyListChanges(uiCommandBuilder, null);
         }
         for (UIElementBuilder<?> element : elements) {
-            if (!updateOnly) {
-                captureInitialValues(element);
-            }
             /*if (HyUIPluginLogger.IS_DEV) {
                 if (updateOnly) {
                     element.buildUpdates(loggingBuilder, null);
@@ -225,20 +302,50 @@ public abstract class HyUInterface implements UIContext {
             }
         }
 
-        if (!updateOnly) {
-            refreshTemplate(this);
-            for (UIElementBuilder<?> element : elements) {
-                /*if (HyUIPluginLogger.IS_DEV) {
-                    element.buildUpdates(loggingBuilder, null);
-                }*/
-                element.buildUpdates(uiCommandBuilder, null);
+        if (shrinkCommands) {
+            coalescer.coalesce(uiCommandBuilder, start);
+            if (updateOnly) {
+                commandDiff.update(uiCommandBuilder, start);
+            } else {
+                commandDiff.record(uiCommandBuilder, start);
             }
         }
+        markElementsSent();
 
         //this.commandLog = loggingBuilder.getCommandLog();
         this.hasBuilt = true;
     }
 
+    /**
+     * Turns coalescing and diffing off, so builds send exactly what the elements emit. Only for
+     * tests checking the elements' own output.
+     */
+    void setShrinkCommands(boolean shrinkCommands) {
+        this.shrinkCommands = shrinkCommands;
+    }
+
+    private void markElementsSent() {
+        for (UIElementBuilder<?> element : elements) {
+            element.markSent();
+        }
+    }
+
+    /**
+     * Captures the elements' values and renders the whole runtime template with them before
+     * anything is built, so a full build renders once and sends each element once, already
+     * holding the values the page shows.
+     */
+    private void prepareInitialRender() {
+        elementValues.clear();
+        dirtyValueIds.clear();
+        for (UIElementBuilder<?> element : elements) {
+            captureInitialValues(element);
+        }
+        refreshTemplate(this, true);
+        // Everything is built next, so the client needs no list changes.
+        listChanges.clear();
+    }
+
     protected void captureInitialValues(UIElementBuilder<?> element) {
         String id = element.getId();
         if (id != null && element.initialValue != null) {
@@ -259,59 +366,80 @@ public abstract class HyUInterface implements UIContext {
             HyUIPlugin.getLog().logFinest("  Property: " + key + " = " + value);
         });
 
-        for (UIElementBuilder<?> element : elements) {
-            handleElementEvents(element, data, context);
+        String target = data.getValue("Target");
+        Optional<CustomUIEventBindingType> actionType = resolveActionType(data.action);
+        if (target == null || actionType.isEmpty()) {
+            return;
+        }
+        ensureIndex();
+        Map<CustomUIEventBindingType, List<EventRoute>> routes = eventRoutes.get(target);
+        List<EventRoute> matching = routes != null ? routes.get(actionType.get()) : null;
+        if (matching == null) {
+            return;
+        }
+        // The routes are replaced, never changed, when listeners change the page.
+        for (EventRoute route : matching) {
+            dispatchEvent(route.element(), route.listener(), data, context);
         }
     }
 
+    /**
+     * Runs the listeners of {@code element} and its descendants that the event targets.
+     *
+     * @deprecated Events are now routed by {@link #handleDataEventInternal(DynamicPageData, UIContext)},
+     *             which no longer calls this method, so overriding it has no effect.
+     */
+    @Deprecated
     protected void handleElementEvents(UIElementBuilder<?> element, DynamicPageData data, UIContext context) {
-        String internalId = element.getEffectiveId();
-        String userId = element.getId();
-
-        if (internalId != null) {
-            String target = data.getValue("Target");
-            Optional<CustomUIEventBindingType> actionType = resolveActionType(data.action);
-
-            List<UIEventListener<?>> listeners = new ArrayList<>(element.getListeners());
-            for (UIEventListener<?> listener : listeners) {
-                if (!internalId.equals(target)) {
-                    continue;
-                }
-                if (actionType.isEmpty() || listener.type() != actionType.get()) {
-                    continue;
-                }
-
-                if (listener.type() == CustomUIEventBindingType.Activating) {
-                    ((UIEventListener<Void>) listener).callback().accept(null, context);
-                    continue;
-                }
-                if (isSlotEventRelated(listener.type())) {
-                    Object payload = buildEventPayload(listener.type(), data);
-                    ((UIEventListener<Object>) listener).callback().accept(payload, context);
-                    continue;
+        String target = data.getValue("Target");
+        Optional<CustomUIEventBindingType> actionType = resolveActionType(data.action);
+        if (target == null || actionType.isEmpty()) {
+            return;
+        }
+        if (target.equals(element.getEffectiveId())) {
+            for (UIEventListener<?> listener : new ArrayList<>(element.getListeners())) {
+                if (listener.type() == actionType.get()) {
+                    dispatchEvent(element, listener, data, context);
                 }
+            }
+        }
+        for (UIElementBuilder<?> child : new ArrayList<>(element.children)) {
+            handleElementEvents(child, data, context);
+        }
+    }
 
-                String rawValue = element.usesRefValue() ? data.getValue("RefValue") : data.getValue("Value");
-                Object finalValue = rawValue != null ? element.parseValue(rawValue) : null;
+    @SuppressWarnings("unchecked")
+    private void dispatchEvent(UIElementBuilder<?> element, UIEventListener<?> listener,
+                               DynamicPageData data, UIContext context) {
+        if (listener.type() == CustomUIEventBindingType.Activating) {
+            ((UIEventListener<Void>) listener).callback().accept(null, context);
+            return;
+        }
+        if (isSlotEventRelated(listener.type())) {
+            Object payload = buildEventPayload(listener.type(), data);
+            ((UIEventListener<Object>) listener).callback().accept(payload, context);
+            return;
+        }
 
-                // TODO: Seems like a bit of a hackaround to deal with the multiple events firing.
-                if (finalValue != null && userId != null && listener.type() != CustomUIEventBindingType.FocusGained) {
-                    //Object previous = elementValues.get(userId);
-                    //if (!Objects.equals(previous, finalValue)) {
-                        elementValues.put(userId, finalValue);
-                        dirtyValueIds.add(userId);
-                    //}
-                }
+        String userId = element.getId();
+        String rawValue = element.usesRefValue() ? data.getValue("RefValue") : data.getValue("Value");
+        Object finalValue = rawValue != null ? element.parseValue(rawValue) : null;
 
-                if (finalValue != null) {
-                    ((UIEventListener<Object>) listener).callback().accept(finalValue, context);
-                }
-            }
+        // TODO: Seems like a bit of a hackaround to deal with the multiple events firing.
+        if (finalValue != null && userId != null && listener.type() != CustomUIEventBindingType.FocusGained) {
+            //Object previous = elementValues.get(userId);
+            //if (!Objects.equals(previous, finalValue)) {
+                elementValues.put(userId, finalValue);
+                dirtyValueIds.add(userId);
+            //}
+        }
+        if (finalValue != null) {
+            // The player changed it on the client, so whatever was last sent is stale.
+            commandDiff.forget(element.getEffectiveId());
         }
 
-        List<UIElementBuilder<?>> children = new ArrayList<>(element.children);
-        for (UIElementBuilder<?> child : children) {
-            handleElementEvents(child, data, context);
+        if (finalValue != null) {
+            ((UIEventListener<Object>) listener).callback().accept(finalValue, context);
         }
     }
 
@@ -345,25 +473,41 @@ public abstract class HyUInterface implements UIContext {
     }
 
     private Optional<CustomUIEventBindingType> resolveActionType(String action) {
-        if (action == null || action.isBlank()) {
+        if (action == null) {
             return Optional.empty();
         }
-        try {
-            return Optional.of(CustomUIEventBindingType.valueOf(action));
-        } catch (IllegalArgumentException e) {
-            if ("ButtonClicked".equals(action)) {
-                return Optional.of(CustomUIEventBindingType.Activating);
-            }
-            return Optional.empty();
+        return Optional.ofNullable(ACTION_TYPES.get(action));
+    }
+
+    private static Map<String, CustomUIEventBindingType> createActionTypes() {
+        Map<String, CustomUIEventBindingType> actionTypes = new HashMap<>();
+        for (CustomUIEventBindingType type : CustomUIEventBindingType.values()) {
+            actionTypes.put(type.name(), type);
         }
+        actionTypes.put("ButtonClicked", CustomUIEventBindingType.Activating);
+        return Map.copyOf(actionTypes);
     }
 
     public Optional<UIElementBuilder<?>> getById(String id) {
-        for (UIElementBuilder<?> element : elements) {
-            Optional<UIElementBuilder<?>> found = findByIdRecursive(element, id);
-            if (found.isPresent()) return found;
+        if (id == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        ensureIndex();
+        return Optional.ofNullable(elementsById.get(id));
+    }
+
+    /**
+     * Finds an element by the id used for it on the client, such as the target of an event.
+     *
+     * @param effectiveId The element's effective id.
+     * @return The element, if it is on this interface.
+     */
+    public Optional<UIElementBuilder<?>> getByEffectiveId(String effectiveId) {
+        if (effectiveId == null) {
+            return Optional.empty();
+        }
+        ensureIndex();
+        return Optional.ofNullable(elementsByEffectiveId.get(effectiveId));
     }
 
     @Override
@@ -371,15 +515,59 @@ public abstract class HyUInterface implements UIContext {
         return getById(id);
     }
 
-    private Optional<UIElementBuilder<?>> findByIdRecursive(UIElementBuilder<?> element, String id) {
-        if (id.equals(element.getId())) {
-            return Optional.of(element);
+    private void ensureIndex() {
+        int version = structureVersion.get();
+        if (elementsById != null
+                && indexedElements == elements
+                && indexedSize == elements.size()
+                && indexedVersion == version) {
+            return;
+        }
+        Map<String, UIElementBuilder<?>> byId = new HashMap<>();
+        Map<String, UIElementBuilder<?>> byEffectiveId = new HashMap<>();
+        Map<String, Map<CustomUIEventBindingType, List<EventRoute>>> routes = new HashMap<>();
+        for (UIElementBuilder<?> element : elements) {
+            indexRecursive(element, byId, byEffectiveId, routes);
+        }
+        elementsById = byId;
+        elementsByEffectiveId = byEffectiveId;
+        eventRoutes = routes;
+        indexedElements = elements;
+        indexedSize = elements.size();
+        indexedVersion = version;
+    }
+
+    private void indexRecursive(UIElementBuilder<?> element,
+                                Map<String, UIElementBuilder<?>> byId,
+                                Map<String, UIElementBuilder<?>> byEffectiveId,
+                                Map<String, Map<CustomUIEventBindingType, List<EventRoute>>> routes) {
+        element.shareStructureVersion(structureVersion);
+        // The first element in tree order wins, as with a depth-first search.
+        if (element.getId() != null) {
+            byId.putIfAbsent(element.getId(), element);
+        }
+        String effectiveId = element.getEffectiveId();
+        if (effectiveId != null) {
+            byEffectiveId.putIfAbsent(effectiveId, element);
+            for (UIEventListener<?> listener : element.getListeners()) {
+                routes.computeIfAbsent(effectiveId, key -> new EnumMap<>(CustomUIEventBindingType.class))
+                        .computeIfAbsent(listener.type(), key -> new ArrayList<>())
+                        .add(new EventRoute(element, listener));
+            }
         }
         for (UIElementBuilder<?> child : element.children) {
-            Optional<UIElementBuilder<?>> found = findByIdRecursive(child, id);
-            if (found.isPresent()) return found;
+            indexRecursive(child, byId, byEffectiveId, routes);
         }
-        return Optional.empty();
+    }
+
+    private void invalidateIndex() {
+        elementsById = null;
+        elementsByEffectiveId = null;
+        eventRoutes = null;
+        indexedElements = null;
+    }
+
+    private record EventRoute(UIElementBuilder<?> element, UIEventListener<?> listener) {
     }
 
     public <E extends UIElementBuilder<E>> Optional<E> getById(String id, Class<E> clazz) {
@@ -400,6 +588,7 @@ public abstract class HyUInterface implements UIContext {
 
     protected void setElements(List<UIElementBuilder<?>> elements) {
         this.elements = elements;
+        invalidateIndex();
     }
 
     public List<Consumer<UICommandBuilder>> getEditCallbacks() {
@@ -420,6 +609,7 @@ public abstract class HyUInterface implements UIContext {
 
     protected void resetBuildState() {
         this.hasBuilt = false;
+        commandDiff.reset();
     }
 
     public void releaseDynamicImages(UUID playerUuid) {
@@ -436,19 +626,27 @@ public abstract class HyUInterface implements UIContext {
         }
     }
 
-    private void refreshTemplate(UIContext context) {
+    /**
+     * Re-renders the runtime template and merges the result into the current elements.
+     * Only template blocks whose inputs changed are re-rendered, and the HTML is only
+     * re-parsed and merged when the rendered output actually changed. With
+     * {@link TemplateProcessor#setDirectUpdates} on, supported templates skip the HTML entirely.
+     *
+     * @param context    The context supplying runtime values.
+     * @param fullRender Whether to re-render the whole template regardless of what changed.
+     */
+    private void refreshTemplate(UIContext context, boolean fullRender) {
         if (!runtimeTemplateUpdatesEnabled || templateHtml == null || templateProcessor == null) {
             return;
         }
-        if (hasBuilt && dirtyValueIds.isEmpty()) {
-            //return;
-        }
         HyUIPlugin.getLog().logFinest("REBUILD: Template refresh");
-        HtmlParser parser = new HtmlParser();
-        String processedHtml = templateProcessor.process(templateHtml, context);
-        List<UIElementBuilder<?>> updatedElements = parser.parse(processedHtml);
-        
-        this.elements = mergeElementLists(this.elements, updatedElements);
+
+        ElementTemplate direct = templateProcessor.isDirectUpdates() ? ElementTemplate.of(templateHtml) : null;
+        if (direct != null && direct.isSupported()) {
+            refreshElementTemplate(direct, context, fullRender);
+        } else {
+            refreshRenderedTemplate(context, fullRender);
+        }
         applyRuntimeValues(this.elements, context);
         reapplyTabSelections(this.elements, context);
         if (hasBuilt) {
@@ -456,65 +654,99 @@ public abstract class HyUInterface implements UIContext {
         }
     }
 
-    private List<UIElementBuilder<?>> mergeElementLists(List<UIElementBuilder<?>> currentElements,
-                                                       List<UIElementBuilder<?>> updatedElements) {
-/*
-        for (var e : updatedElements) {
-            HyUIPlugin.getLog().logInfo("UPDATED ELEMENT: \n\n" + e);
+    private void refreshRenderedTemplate(UIContext context, boolean fullRender) {
+        boolean changed;
+        if (fullRender
+                || renderedTemplate == null
+                || renderedTemplate.getProcessor() != templateProcessor
+                || !templateHtml.equals(renderedTemplate.getTemplate().getSource())) {
+            renderedTemplate = templateProcessor.renderTracked(templateHtml, context);
+            changed = true;
+        } else {
+            changed = templateProcessor.refresh(renderedTemplate, context, dirtyValueIds);
         }
-        for (var e : currentElements) {
-            HyUIPlugin.getLog().logInfo("CURRENT ELEMENT: \n\n" + e);
+
+        if (changed) {
+            HtmlParser parser = new HtmlParser();
+            // Each refresh renders different HTML, which would only push static pages out of the cache.
+            parser.setCacheEnabled(false);
+            List<UIElementBuilder<?>> updatedElements = parser.parse(renderedTemplate.getOutput());
+            this.elements = mergeElementLists(this.elements, updatedElements);
+            invalidateIndex();
+        } else {
+            HyUIPlugin.getLog().logFinest("REBUILD: Template output unchanged, skipping parse and merge");
         }
-*/
+    }
 
+    /**
+     * Fills the placeholders of the parsed template with their current values, skipping the
+     * HTML round trip. Nothing is rebuilt when no value changed.
+     */
+    private void refreshElementTemplate(ElementTemplate template, UIContext context, boolean fullRender) {
+        String[] values = template.renderValues(templateProcessor, context);
+        if (fullRender || template != elementTemplate || !Arrays.equals(values, elementTemplateValues)) {
+            this.elements = mergeElementLists(this.elements, template.instantiate(values));
+            invalidateIndex();
+            elementTemplate = template;
+            elementTemplateValues = values;
+        } else {
+            HyUIPlugin.getLog().logFinest("REBUILD: Template values unchanged, skipping merge");
+        }
+    }
+
+    private List<UIElementBuilder<?>> mergeElementLists(List<UIElementBuilder<?>> currentElements,
+                                                       List<UIElementBuilder<?>> updatedElements) {
+        return mergeElementLists(null, List.of(), currentElements, updatedElements);
+    }
+
+    /**
+     * Matches the updated elements to the current ones by key, then by stable id, then by class
+     * in order, and records how the list changed so the client can be updated in place.
+     *
+     * @param parent    The element owning the lists, or null for the top level.
+     * @param ancestors The parent's ancestors and the parent itself, outermost first.
+     */
+    private List<UIElementBuilder<?>> mergeElementLists(UIElementBuilder<?> parent,
+                                                       List<UIElementBuilder<?>> ancestors,
+                                                       List<UIElementBuilder<?>> currentElements,
+                                                       List<UIElementBuilder<?>> updatedElements) {
+        Map<String, UIElementBuilder<?>> currentByKey = new HashMap<>();
         Map<String, UIElementBuilder<?>> currentById = new HashMap<>();
-        List<UIElementBuilder<?>> currentNoId = new ArrayList<>();
+        Map<Class<?>, ArrayDeque<UIElementBuilder<?>>> currentByClass = new HashMap<>();
         for (UIElementBuilder<?> element : currentElements) {
+            String key = element.getKey();
             String id = getStableId(element);
-            if (id != null && !id.isBlank()) {
+            if (key != null) {
+                currentByKey.putIfAbsent(key, element);
+            } else if (id != null && !id.isBlank()) {
                 currentById.put(id, element);
             } else {
-                currentNoId.add(element);
+                currentByClass.computeIfAbsent(element.getClass(), type -> new ArrayDeque<>()).add(element);
             }
         }
-/*
-
-        HyUIPlugin.getLog().logInfo("Current elements with stable IDs:");
-        for (Map.Entry<String, UIElementBuilder<?>> entry : currentById.entrySet()) {
-            HyUIPlugin.getLog().logInfo("  ID: " + entry.getKey() + ", Element: " + entry.getValue().getClass().getSimpleName());
-        }
-        HyUIPlugin.getLog().logInfo("Current elements without stable IDs:");
-        for (UIElementBuilder<?> element : currentNoId) {
-            HyUIPlugin.getLog().logInfo("  Element: " + element.getClass().getSimpleName() + ", EffectiveId: " + element.getEffectiveId() + ", Id: " + element.getId());
-        }
-*/
-
-        List<UIElementBuilder<?>> merged = new ArrayList<>();
-        List<UIElementBuilder<?>> unusedNoId = new ArrayList<>(currentNoId);
 
+        List<UIElementBuilder<?>> merged = new ArrayList<>(updatedElements.size());
         for (UIElementBuilder<?> updated : updatedElements) {
-            //HyUIPlugin.getLog().logInfo("Processing updated element with ID: " + getStableId(updated));
-            UIElementBuilder<?> current = null;
+            UIElementBuilder<?> current;
+            String key = updated.getKey();
             String id = getStableId(updated);
-            if (id != null && !id.isBlank()) {
-                current = currentById.get(id);
+            if (key != null) {
+                current = currentByKey.remove(key);
+            } else if (id != null && !id.isBlank()) {
+                current = currentById.remove(id);
             } else {
-                UIElementBuilder<?> result = null;
-                for (int i = 0; i < unusedNoId.size(); i++) {
-                    UIElementBuilder<?> candidate = unusedNoId.get(i);
-                    if (candidate.getClass().equals(updated.getClass())) {
-                        unusedNoId.remove(i);
-                        result = candidate;
-                        break;
-                    }
-                }
-                current = result;
+                ArrayDeque<UIElementBuilder<?>> sameClass = currentByClass.get(updated.getClass());
+                current = sameClass != null ? sameClass.poll() : null;
             }
 
             if (current != null && current.getClass().equals(updated.getClass())) {
                 current.applyTemplate(updated);
                 if (!(current instanceof TabNavigationBuilder)) {
-                    List<UIElementBuilder<?>> mergedChildren = mergeElementLists(current.children, updated.children);
+                    List<UIElementBuilder<?>> childAncestors = new ArrayList<>(ancestors.size() + 1);
+                    childAncestors.addAll(ancestors);
+                    childAncestors.add(current);
+                    List<UIElementBuilder<?>> mergedChildren =
+                            mergeElementLists(current, childAncestors, current.children, updated.children);
                     current.children.clear();
                     current.children.addAll(mergedChildren);
                 }
@@ -524,9 +756,173 @@ public abstract class HyUInterface implements UIContext {
             }
         }
 
+        if (!isSameSequence(currentElements, merged)) {
+            listChanges.add(new ListChange(parent, ancestors, List.copyOf(currentElements), List.copyOf(merged)));
+        }
         return merged;
     }
 
+    private static boolean isSameSequence(List<UIElementBuilder<?>> first, List<UIElementBuilder<?>> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (first.get(i) != second.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sends the list changes recorded by template merges as removes and inserts, so an update
+     * can add, remove and reorder elements without clearing the page.
+     */
+    private void applyListChanges(UICommandBuilder commands, UIEventBuilder events) {
+        if (listChanges.isEmpty()) {
+            return;
+        }
+        // Outer lists first, so lists inside elements that are built again are skipped.
+        listChanges.sort(Comparator.comparingInt(change -> change.ancestors().size()));
+        Set<UIElementBuilder<?>> rebuilt = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ListChange change : listChanges) {
+            boolean insideRebuilt = false;
+            for (UIElementBuilder<?> ancestor : change.ancestors()) {
+                if (rebuilt.contains(ancestor)) {
+                    insideRebuilt = true;
+                    break;
+                }
+            }
+            if (!insideRebuilt) {
+                reconcile(change, commands, events, rebuilt);
+            }
+        }
+        listChanges.clear();
+    }
+
+    /**
+     * Turns a list change into removes and inserts. Elements on the longest run that kept its
+     * order stay where they are; every other kept element is moved, which means removing it
+     * and building it again at its new place.
+     */
+    private void reconcile(ListChange change, UICommandBuilder commands, UIEventBuilder events,
+                           Set<UIElementBuilder<?>> rebuilt) {
+        List<UIElementBuilder<?>> before = change.before();
+        List<UIElementBuilder<?>> after = change.after();
+        Map<UIElementBuilder<?>, Integer> oldIndexes = new IdentityHashMap<>();
+        for (int i = 0; i < before.size(); i++) {
+            oldIndexes.put(before.get(i), i);
+        }
+        Set<UIElementBuilder<?>> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(after);
+        for (UIElementBuilder<?> element : before) {
+            if (!kept.contains(element)) {
+                removeFromClient(element, commands);
+            }
+        }
+
+        int[] oldPositions = new int[after.size()];
+        for (int i = 0; i < after.size(); i++) {
+            oldPositions[i] = oldIndexes.getOrDefault(after.get(i), -1);
+        }
+        boolean[] stays = longestIncreasingRun(oldPositions);
+
+        // Children of one element can live in different parts of it, such as a container's
+        // title and contents, so each part is ordered on its own.
+        Map<String, UIElementBuilder<?>> nextByParent = new HashMap<>();
+        String topLevelParent = before.isEmpty() ? null : before.get(0).parentSelector;
+        int moved = 0;
+        int inserted = 0;
+        for (int i = after.size() - 1; i >= 0; i--) {
+            UIElementBuilder<?> element = after.get(i);
+            if (change.parent() == null && oldPositions[i] < 0 && topLevelParent != null) {
+                element.inside(topLevelParent);
+            }
+            if (!stays[i]) {
+                if (oldPositions[i] >= 0) {
+                    removeFromClient(element, commands);
+                    moved++;
+                } else {
+                    inserted++;
+                }
+                UIElementBuilder<?> next = nextByParent.get(element.parentSelector);
+                if (next != null) {
+                    element.insertBefore(next.getOuterSelector());
+                }
+                if (change.parent() != null) {
+                    change.parent().buildChild(commands, events, element, false);
+                } else {
+                    element.build(commands, events);
+                }
+                rebuilt.add(element);
+            }
+            nextByParent.put(element.parentSelector, element);
+        }
+        HyUIPlugin.getLog().logFinest("REBUILD: Reconciled list of " + after.size() + " elements, "
+                + (before.size() - (after.size() - inserted)) + " removed, " + moved + " moved, " + inserted + " inserted");
+    }
+
+    private void removeFromClient(UIElementBuilder<?> element, UICommandBuilder commands) {
+        forgetSentValues(element);
+        commandDiff.forgetRemoval(element.getOuterSelector());
+        commands.remove(element.getOuterSelector());
+    }
+
+    private void forgetSentValues(UIElementBuilder<?> element) {
+        commandDiff.forget(element.getEffectiveId());
+        for (UIElementBuilder<?> child : element.children) {
+            forgetSentValues(child);
+        }
+    }
+
+    /**
+     * Finds the longest increasing run of old positions, ignoring new elements (-1).
+     *
+     * @return For each position, whether it is on the run.
+     */
+    static boolean[] longestIncreasingRun(int[] positions) {
+        int[] tails = new int[positions.length];
+        int[] previous = new int[positions.length];
+        int length = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (positions[tails[middle]] < positions[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        boolean[] run = new boolean[positions.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            run[i] = true;
+        }
+        return run;
+    }
+
+    /**
+     * A child list that a template merge changed since the client last received it.
+     *
+     * @param parent    The element owning the list, or null for the top level.
+     * @param ancestors The parent's ancestors and the parent itself, outermost first.
+     * @param before    The elements as the client has them.
+     * @param after     The elements after the merge.
+     */
+    private record ListChange(UIElementBuilder<?> parent, List<UIElementBuilder<?>> ancestors,
+                              List<UIElementBuilder<?>> before, List<UIElementBuilder<?>> after) {
+    }
+
     private String getStableId(UIElementBuilder<?> element) {
         if (element == null) {
             return null;
@@ -58,6 +58,12 @@ public class ImageBuilder extends UIElementBuilder<ImageBuilder> implements Layo
         return this;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public ImageBuilder withLayoutMode(String layoutMode) {
         this.layoutMode = layoutMode;
@@ -21,9 +21,11 @@ package au.ellie.hyui.builders;
 import au.ellie.hyui.HyUIPlugin;
 import au.ellie.hyui.assets.DynamicImageAsset;
 import au.ellie.hyui.events.UIContext;
+import au.ellie.hyui.html.CompiledTemplate;
 import au.ellie.hyui.html.HtmlParser;
 import au.ellie.hyui.html.TemplateProcessor;
 import au.ellie.hyui.utils.HyvatarUtils;
+import au.ellie.hyui.utils.LruCache;
 import au.ellie.hyui.utils.PngDownloadUtils;
 import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
@@ -45,6 +47,11 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public abstract class InterfaceBuilder<T extends InterfaceBuilder<T>> {
+    /**
+     * Sources of the precompiled pages bundled in the jar, by resource name, so each is read once.
+     */
+    private static final LruCache<String, String> PRECOMPILED_SOURCES = new LruCache<>(64);
+
     protected final Map<String, UIElementBuilder<?>> elementRegistry = new LinkedHashMap<>();
     protected final List<Consumer<UICommandBuilder>> editCallbacks = new ArrayList<>();
     protected String uiFile;
@@ -117,6 +124,21 @@ public abstract class InterfaceBuilder<T extends InterfaceBuilder<T>> {
                 }
             }
         }
+        // Pages bundled in the jar are precompiled by the build; use that form when present.
+        String loaded = PRECOMPILED_SOURCES.get(resourceFileName);
+        if (loaded != null) {
+            return loaded;
+        }
+        try (InputStream precompiled = InterfaceBuilder.class.getResourceAsStream(
+                resourceFileName + CompiledTemplate.PRECOMPILED_EXTENSION)) {
+            if (precompiled != null) {
+                String source = CompiledTemplate.readFrom(precompiled).getSource();
+                PRECOMPILED_SOURCES.put(resourceFileName, source);
+                return source;
+            }
+        } catch (IOException e) {
+            HyUIPlugin.getLog().logFinest("Ignoring precompiled template for " + resourceFileName + ": " + e.getMessage());
+        }
         try (InputStream inputStream = InterfaceBuilder.class.getResourceAsStream(resourceFileName)) {
             if (inputStream == null) {
                 throw new IllegalArgumentException("Resource not found: " + resourceFileName);
@@ -53,7 +53,7 @@ public class ItemGridBuilder extends UIElementBuilder<ItemGridBuilder> implement
     private Boolean keepScrollPosition;
     private Boolean showScrollbar;
     private Integer slotsPerRow;
-    private final List<ItemGridSlot> slots = new ArrayList<>();
+    private List<ItemGridSlot> slots = new ArrayList<>();
     private static final Field ITEM_STACK_FIELD;
     private static final boolean ITEM_STACK_FIELD_AVAILABLE;
 
@@ -72,6 +72,13 @@ public class ItemGridBuilder extends UIElementBuilder<ItemGridBuilder> implement
         return new ItemGridBuilder();
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.slots = new ArrayList<>(slots);
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public ItemGridBuilder withLayoutMode(String layoutMode) {
         this.layoutMode = layoutMode;
@@ -75,6 +75,12 @@ public class LabelBuilder extends UIElementBuilder<LabelBuilder> implements Back
         return text;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public LabelBuilder withBackground(HyUIPatchStyle background) {
         this.background = background;
@@ -261,7 +261,7 @@ public class NumberFieldBuilder extends UIElementBuilder<NumberFieldBuilder> {
             if (anchor == null) {
                 anchor = new HyUIAnchor();
             }
-            anchor.setHeight(38);
+            getAnchor().setHeight(38);
             // Need to force anchor setting.
             commands.setObject(selector + ".Anchor", anchor.toHytaleAnchor());
         }
@@ -50,6 +50,12 @@ public class PageOverlayBuilder extends UIElementBuilder<PageOverlayBuilder> imp
         return new PageOverlayBuilder();
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public PageOverlayBuilder withLayoutMode(String layoutMode) {
         this.layoutMode = layoutMode;
@@ -160,6 +160,14 @@ public class ProgressBarBuilder extends UIElementBuilder<ProgressBarBuilder> imp
         return this;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+        this.bar = bar != null ? bar.copy() : null;
+        this.outerAnchor = outerAnchor != null ? outerAnchor.copy() : null;
+    }
+
     @Override
     public ProgressBarBuilder withBackground(HyUIPatchStyle background) {
         this.background = background;
@@ -66,6 +66,12 @@ public class TabContentBuilder extends UIElementBuilder<TabContentBuilder>
         return tabNavigationId;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public TabContentBuilder withLayoutMode(String layoutMode) {
         this.layoutMode = layoutMode;
@@ -57,7 +57,7 @@ public class TabNavigationBuilder extends UIElementBuilder<TabNavigationBuilder>
         }
     }
 
-    private final List<Tab> tabs = new ArrayList<>();
+    private List<Tab> tabs = new ArrayList<>();
     private String selectedTabId;
     private String layoutMode = "Left";
     private HyUIPatchStyle background;
@@ -66,7 +66,7 @@ public class TabNavigationBuilder extends UIElementBuilder<TabNavigationBuilder>
     private int tabSpacing = 0;
     private int tabsVersion = 0;
     private int lastBuiltTabsVersion = -1;
-    private final List<UIElementBuilder<?>> tabButtons = new ArrayList<>();
+    private List<UIElementBuilder<?>> tabButtons = new ArrayList<>();
     public TabNavigationBuilder() {
         super(UIElements.GROUP, "Group");
     }
@@ -299,6 +299,28 @@ public class TabNavigationBuilder extends UIElementBuilder<TabNavigationBuilder>
         return false;
     }
 
+    @Override
+    protected void onCopy() {
+        // Tab buttons are created again from the copied tabs on the next build.
+        List<UIElementBuilder<?>> ownChildren = new ArrayList<>(children);
+        ownChildren.removeAll(tabButtons);
+        this.children = ownChildren;
+        super.onCopy();
+        this.tabButtons = new ArrayList<>();
+        this.lastBuiltTabsVersion = -1;
+
+        List<Tab> copiedTabs = new ArrayList<>(tabs.size());
+        for (Tab tab : tabs) {
+            copiedTabs.add(tab.buttonBuilder() != null
+                    ? new Tab(tab.id(), tab.label(), tab.contentId(), tab.selected(), tab.buttonBuilder().copy())
+                    : tab);
+        }
+        this.tabs = copiedTabs;
+        this.background = background != null ? background.copy() : null;
+        this.selectedTabStyle = selectedTabStyle != null ? selectedTabStyle.copy() : null;
+        this.unselectedTabStyle = unselectedTabStyle != null ? unselectedTabStyle.copy() : null;
+    }
+
     @Override
     protected boolean preserveChildrenOnTemplateMerge() {
         return true;
@@ -435,5 +457,6 @@ public class TabNavigationBuilder extends UIElementBuilder<TabNavigationBuilder>
         }
         children.removeAll(tabButtons);
         tabButtons.clear();
+        structureChanged();
     }
 }
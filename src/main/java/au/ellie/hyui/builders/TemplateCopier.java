@@ -0,0 +1,118 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.builders;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Copies the fields a template merge updates from one builder to another of the same class.
+ * <p>
+ * The fields of each builder class are looked up once and turned into {@link MethodHandle}s, so
+ * merging many elements of the same class only pays for reflection the first time.
+ */
+final class TemplateCopier {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<TemplateCopier> CACHE = new ClassValue<>() {
+        @Override
+        protected TemplateCopier computeValue(Class<?> type) {
+            return new TemplateCopier(type);
+        }
+    };
+
+    private final CopiedField[] fields;
+
+    private TemplateCopier(Class<?> type) {
+        List<CopiedField> found = new ArrayList<>();
+        for (Class<?> current = type; current != null && UIElementBuilder.class.isAssignableFrom(current);
+             current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    continue;
+                }
+                if (UIElementBuilder.TEMPLATE_FIELD_EXCLUSIONS.contains(field.getName())) {
+                    continue;
+                }
+                int dirtyBit = current == UIElementBuilder.class
+                        ? UIElementBuilder.DIRTY_FIELDS.getOrDefault(field.getName(), 0)
+                        : 0;
+                try {
+                    field.setAccessible(true);
+                    found.add(new CopiedField(field.getName(),
+                            LOOKUP.unreflectGetter(field).asType(GETTER_TYPE),
+                            LOOKUP.unreflectSetter(field).asType(SETTER_TYPE),
+                            dirtyBit));
+                } catch (RuntimeException | IllegalAccessException ignored) {
+                    // Skip fields we can't safely update.
+                }
+            }
+            if (current == UIElementBuilder.class) {
+                break;
+            }
+        }
+        this.fields = found.toArray(CopiedField[]::new);
+    }
+
+    /**
+     * @param type The concrete builder class.
+     * @return The cached copier for the class.
+     */
+    static TemplateCopier forClass(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * Copies every merged field from the template to the target.
+     *
+     * @return The {@code DIRTY_*} bits of the common properties whose value changed.
+     */
+    int copy(Object target, Object template) {
+        int changed = 0;
+        for (CopiedField field : fields) {
+            try {
+                Object value = (Object) field.getter().invokeExact(template);
+                if (field.dirtyBit() != 0 && !Objects.equals((Object) field.getter().invokeExact(target), value)) {
+                    changed |= field.dirtyBit();
+                }
+                field.setter().invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to copy template field " + field.name(), e);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param getter   A getter of type {@code (Object)Object}.
+     * @param setter   A setter of type {@code (Object, Object)void}.
+     * @param dirtyBit The field's {@code DIRTY_*} bit, or 0 if it has none.
+     */
+    private record CopiedField(String name, MethodHandle getter, MethodHandle setter, int dirtyBit) {
+    }
+}
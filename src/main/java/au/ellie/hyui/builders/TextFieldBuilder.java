@@ -210,6 +210,13 @@ public class TextFieldBuilder extends UIElementBuilder<TextFieldBuilder>
         return this;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+        this.contentPadding = contentPadding != null ? contentPadding.copy() : null;
+    }
+
     /**
      * Sets the background patch style for the text field.
      * @param background The background patch style to use.
@@ -126,6 +126,12 @@ public class TimerLabelBuilder extends UIElementBuilder<TimerLabelBuilder> imple
         return this;
     }
 
+    @Override
+    protected void onCopy() {
+        super.onCopy();
+        this.background = background != null ? background.copy() : null;
+    }
+
     @Override
     public TimerLabelBuilder withBackground(HyUIPatchStyle background) {
         this.background = background;
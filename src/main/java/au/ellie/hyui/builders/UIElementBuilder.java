@@ -35,8 +35,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 
 /**
  * A builder class for constructing UI elements with a hierarchical structure and configurable 
@@ -44,7 +42,7 @@ import java.lang.reflect.Modifier;
  * as styles, visibility, children, tooltips, custom callbacks, and more. This class is intended 
  * to be extended and further customized.
  */
-public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
+public abstract class UIElementBuilder<T extends UIElementBuilder<T>> implements Cloneable {
     protected final Theme theme;
     protected String elementPath;
     protected String uiFilePath;
@@ -52,8 +50,8 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     protected String userId;
     protected String style;
     protected HyUIStyle hyUIStyle;
-    protected final List<UIEventListener<?>> listeners = new ArrayList<>();
-    protected final List<UIElementBuilder<?>> children = new ArrayList<>();
+    protected List<UIEventListener<?>> listeners = new ArrayList<>();
+    protected List<UIElementBuilder<?>> children = new ArrayList<>();
     protected Object initialValue;
     protected String parentSelector = "#Content";
     protected String typeSelector;
@@ -64,10 +62,35 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     protected Message tooltipTextSpan;
     protected Boolean hitTestVisible;
     protected Integer flexWeight;
-    protected final List<BiConsumer<UICommandBuilder, String>> editAfterCallbacks = new ArrayList<>();
-    protected final List<BiConsumer<UICommandBuilder, String>> editBeforeCallbacks = new ArrayList<>();
-    protected final Map<String, HyUIStyle> secondaryStyles = new HashMap<>();
-    private static final Set<String> TEMPLATE_FIELD_EXCLUSIONS = Set.of(
+    protected List<BiConsumer<UICommandBuilder, String>> editAfterCallbacks = new ArrayList<>();
+    protected List<BiConsumer<UICommandBuilder, String>> editBeforeCallbacks = new ArrayList<>();
+    protected Map<String, HyUIStyle> secondaryStyles = new HashMap<>();
+    protected String key;
+    // Set while building an element that goes before an existing one instead of at the end.
+    private String insertBeforeSelector;
+
+    // Bits of the common properties built by buildBase, set when a property changes.
+    protected static final int DIRTY_ANCHOR = 1;
+    protected static final int DIRTY_PADDING = 1 << 1;
+    protected static final int DIRTY_VISIBLE = 1 << 2;
+    protected static final int DIRTY_TOOLTIP = 1 << 3;
+    protected static final int DIRTY_HIT_TEST_VISIBLE = 1 << 4;
+    protected static final int DIRTY_FLEX_WEIGHT = 1 << 5;
+    protected static final int DIRTY_STYLE = 1 << 6;
+    protected static final int DIRTY_SECONDARY_STYLES = 1 << 7;
+    protected static final int DIRTY_ALL = (1 << 8) - 1;
+    static final Map<String, Integer> DIRTY_FIELDS = Map.of(
+            "anchor", DIRTY_ANCHOR,
+            "padding", DIRTY_PADDING,
+            "visible", DIRTY_VISIBLE,
+            "tooltipTextSpan", DIRTY_TOOLTIP,
+            "hitTestVisible", DIRTY_HIT_TEST_VISIBLE,
+            "flexWeight", DIRTY_FLEX_WEIGHT,
+            "hyUIStyle", DIRTY_STYLE
+    );
+    private int dirtyProperties = DIRTY_ALL;
+
+    static final Set<String> TEMPLATE_FIELD_EXCLUSIONS = Set.of(
             "listeners",
             "children",
             "id",
@@ -76,12 +99,23 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
             "parentSelector",
             "editAfterCallbacks",
             "editBeforeCallbacks",
+            "secondaryStyles",
             "lastBuiltTabsVersion",
             "tabsVersion",
-            "selectedTabId"
+            "selectedTabId",
+            "tabs",
+            "tabButtons",
+            "slots",
+            "slotIndexes",
+            "dirtyProperties",
+            "key",
+            "insertBeforeSelector",
+            "structureVersion"
     );
 
     private static int idCounter = 0;
+    // Shared with the interface that indexed this element, which it tells about structure changes.
+    private StructureVersion structureVersion;
     
     protected boolean isUpdateOnly = false;
 
@@ -114,8 +148,42 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
 
     public T addChild(UIElementBuilder<?> child) {
         this.children.add(child);
+        structureChanged();
         return (T) this;
     }
+
+    /**
+     * Records that this element's children were added or removed, or its id or listeners
+     * changed. Must be called after changing {@link #children} or {@link #listeners} directly.
+     */
+    protected void structureChanged() {
+        if (structureVersion != null) {
+            structureVersion.increment();
+        }
+    }
+
+    /**
+     * Makes this element report its structure changes to the given version, shared by the
+     * elements of one interface.
+     */
+    void shareStructureVersion(StructureVersion version) {
+        this.structureVersion = version;
+    }
+
+    /**
+     * Counts the structure changes of the elements sharing it.
+     */
+    static final class StructureVersion {
+        private int value;
+
+        void increment() {
+            value++;
+        }
+
+        int get() {
+            return value;
+        }
+    }
     
     public String getEffectiveId() {
         return id;
@@ -129,44 +197,158 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
         return userId;
     }
 
+    /**
+     * Sets the key that identifies this element among its siblings when a runtime template is
+     * merged, such as a row's id in a {@code {{#each}}} list. Keyed elements keep their state
+     * when the list is reordered.
+     *
+     * @param key the key, unique among the element's siblings
+     * @return the builder instance for method chaining
+     */
+    @SuppressWarnings("unchecked")
+    public T withKey(String key) {
+        this.key = key;
+        return (T) this;
+    }
+
+    /**
+     * @return the key set with {@link #withKey(String)}, or null
+     */
+    public String getKey() {
+        return key;
+    }
+
     protected void applyRuntimeValue(Object value) {
         // Default no-op for elements without a value.
     }
 
+    /**
+     * Updates this element from a newly parsed one of the same class, keeping its identity,
+     * children and listeners. Fields named in {@code TEMPLATE_FIELD_EXCLUSIONS} are kept too.
+     *
+     * @param template The newly parsed element.
+     */
     protected void applyTemplate(UIElementBuilder<?> template) {
         if (template == null || !getClass().equals(template.getClass())) {
             return;
         }
+        markDirty(TemplateCopier.forClass(getClass()).copy(this, template));
+    }
 
-        Class<?> type = getClass();
-        while (type != null && UIElementBuilder.class.isAssignableFrom(type)) {
-            for (Field field : type.getDeclaredFields()) {
-                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
-                    continue;
-                }
-                if (TEMPLATE_FIELD_EXCLUSIONS.contains(field.getName())) {
-                    continue;
-                }
-                try {
-                    if (!field.canAccess(this)) {
-                        field.setAccessible(true);
-                    }
-                    field.set(this, field.get(template));
-                } catch (IllegalAccessException ignored) {
-                    // Skip fields we can't safely update.
-                }
-            }
-            if (type == UIElementBuilder.class) {
-                break;
-            }
-            type = type.getSuperclass();
+    /**
+     * Creates a deep copy of this element and its children without going through reflection.
+     * The copy gets new element ids but keeps the id set with {@link #withId(String)}, so
+     * several copies of the same element can be added to different pages.
+     *
+     * @return the copied builder
+     */
+    @SuppressWarnings("unchecked")
+    public T copy() {
+        UIElementBuilder<T> copy;
+        try {
+            copy = (UIElementBuilder<T>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
         }
+        copy.onCopy();
+        return (T) copy;
     }
 
+    /**
+     * Called on a new {@link #copy()}, which starts out sharing every field with the original.
+     * Replaces whatever the copy must not share: collections, children and objects the builder
+     * changes in place. Overrides must call {@code super.onCopy()}.
+     */
+    protected void onCopy() {
+        if (userId.equals(id)) {
+            this.id = generateUniqueId();
+            this.userId = this.id;
+        } else {
+            this.id = sanitizeId(userId);
+        }
+        this.listeners = new ArrayList<>(listeners);
+        this.editAfterCallbacks = new ArrayList<>(editAfterCallbacks);
+        this.editBeforeCallbacks = new ArrayList<>(editBeforeCallbacks);
+        this.secondaryStyles = new HashMap<>(secondaryStyles);
+        this.dirtyProperties = DIRTY_ALL;
+        // The copy isn't on the original's interface.
+        this.structureVersion = null;
+        // The original and the copy share these until one of them changes them.
+        if (hyUIStyle != null) {
+            hyUIStyle.markShared();
+        }
+        if (anchor != null) {
+            anchor.markShared();
+        }
+        if (padding != null) {
+            padding.markShared();
+        }
+
+        List<UIElementBuilder<?>> copiedChildren = new ArrayList<>(children.size());
+        for (UIElementBuilder<?> child : children) {
+            copiedChildren.add(child.copy());
+        }
+        this.children = copiedChildren;
+    }
+
+    /**
+     * Gets the element's style. A style shared with other elements is copied first, so changes
+     * to the returned style only affect this element.
+     *
+     * @return the style, or null if none is set
+     */
     public HyUIStyle getHyUIStyle() {
+        if (hyUIStyle != null && hyUIStyle.isShared()) {
+            hyUIStyle = hyUIStyle.copy();
+        }
+        // The caller may change it.
+        markDirty(DIRTY_STYLE);
         return hyUIStyle;
     }
 
+    /**
+     * Marks every common property as changed, so the next update sends them all again. Needed
+     * after changing an anchor, padding or style object passed to this builder earlier, since
+     * the builder can't see those changes.
+     *
+     * @return the builder instance for method chaining
+     */
+    @SuppressWarnings("unchecked")
+    public T markDirty() {
+        markDirty(DIRTY_ALL);
+        return (T) this;
+    }
+
+    /**
+     * Marks properties as changed since they were last sent.
+     *
+     * @param properties The {@code DIRTY_*} bits of the properties.
+     */
+    protected void markDirty(int properties) {
+        this.dirtyProperties |= properties;
+    }
+
+    /**
+     * Marks the properties of this element and its children as sent, once the build sending them
+     * has been accepted. Until then, updates keep sending them.
+     */
+    void markSent() {
+        this.dirtyProperties = 0;
+        for (UIElementBuilder<?> child : children) {
+            child.markSent();
+        }
+    }
+
+    /**
+     * Whether the property has to be sent by the current build. A full build sends everything;
+     * an update only sends what changed since the last build.
+     *
+     * @param property The {@code DIRTY_*} bit of the property.
+     */
+    protected boolean shouldSend(int property) {
+        return !isUpdateOnly || (dirtyProperties & property) != 0;
+    }
+
     /**
      * @return true if the element uses the @Value (or data-type equiv.) (RefValue) property for its value in events.
      */
@@ -200,6 +382,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     public T withSecondaryStyle(String property, HyUIStyle style) {
         if (style != null) {
             this.secondaryStyles.put(property, style);
+            markDirty(DIRTY_SECONDARY_STYLES);
         }
         return (T) this;
     }
@@ -213,6 +396,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
         if (id != null) {
             this.userId = id;
             this.id = sanitizeId(id);
+            structureChanged();
         }
         return (T) this;
     }
@@ -253,6 +437,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     public T withStyle(HyUIStyle style) {
         if (supportsStyling()) {
             this.hyUIStyle = style;
+            markDirty(DIRTY_STYLE);
         }
         return (T) this;
     }
@@ -294,13 +479,38 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     @SuppressWarnings("unchecked")
     public T withAnchor(HyUIAnchor anchor) {
         this.anchor = anchor;
+        markDirty(DIRTY_ANCHOR);
         return (T) this;
     }
 
+    /**
+     * Gets the element's anchor. An anchor shared with other elements is copied first, so changes
+     * to the returned anchor only affect this element.
+     *
+     * @return the anchor, or null if none is set
+     */
     public HyUIAnchor getAnchor() {
+        if (anchor != null && anchor.isShared()) {
+            anchor = anchor.copy();
+        }
+        markDirty(DIRTY_ANCHOR);
         return anchor;
     }
 
+    /**
+     * Gets the element's padding. A padding shared with other elements is copied first, so
+     * changes to the returned padding only affect this element.
+     *
+     * @return the padding, or null if none is set
+     */
+    public HyUIPadding getPadding() {
+        if (padding != null && padding.isShared()) {
+            padding = padding.copy();
+        }
+        markDirty(DIRTY_PADDING);
+        return padding;
+    }
+
     /**
      * Sets the padding for the UI element.
      *
@@ -310,6 +520,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     @SuppressWarnings("unchecked")
     public T withPadding(HyUIPadding padding) {
         this.padding = padding;
+        markDirty(DIRTY_PADDING);
         return (T) this;
     }
 
@@ -322,6 +533,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     @SuppressWarnings("unchecked")
     public T withVisible(boolean visible) {
         this.visible = visible;
+        markDirty(DIRTY_VISIBLE);
         return (T) this;
     }
 
@@ -335,6 +547,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     @SuppressWarnings("unchecked")
     public T withTooltipTextSpan(Message message) {
         this.tooltipTextSpan = message;
+        markDirty(DIRTY_TOOLTIP);
         return (T) this;
     }
 
@@ -348,6 +561,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     public T withTooltipText(String tooltipText) {
         if (tooltipText != null) {
             this.tooltipTextSpan = Message.raw(tooltipText);
+            markDirty(DIRTY_TOOLTIP);
         }
         return (T) this;
     }
@@ -361,6 +575,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     @SuppressWarnings("unchecked")
     public T withHitTestVisible(boolean hitTestVisible) {
         this.hitTestVisible = hitTestVisible;
+        markDirty(DIRTY_HIT_TEST_VISIBLE);
         return (T) this;
     }
 
@@ -375,6 +590,7 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     @SuppressWarnings("unchecked")
     public T withFlexWeight(int weight) {
         this.flexWeight = weight;
+        markDirty(DIRTY_FLEX_WEIGHT);
         return (T) this;
     }
 
@@ -459,17 +675,41 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
                 }
 
                 inlineMarkup.append("}");
-                commands.appendInline(parentSelector, inlineMarkup.toString());
+                if (insertBeforeSelector != null) {
+                    commands.insertBeforeInline(insertBeforeSelector, inlineMarkup.toString());
+                } else {
+                    commands.appendInline(parentSelector, inlineMarkup.toString());
+                }
             }
 
             // The inner element should be inside the wrapping group
             String originalParent = parentSelector;
             parentSelector = "#" + wrappingGroupId;
+            insertBeforeSelector = null;
             executeBuild(commands, events, updateOnly);
             parentSelector = originalParent;
         } else {
             executeBuild(commands, events, updateOnly);
         }
+        this.insertBeforeSelector = null;
+    }
+
+    /**
+     * Makes the next build insert this element before the given sibling instead of appending it
+     * to its parent.
+     *
+     * @param siblingSelector the outer selector of the sibling, from {@link #getOuterSelector()}
+     */
+    void insertBefore(String siblingSelector) {
+        this.insertBeforeSelector = siblingSelector;
+    }
+
+    /**
+     * @return the selector of the outermost element this builder appends: its wrapping group,
+     *         if it has one, otherwise the element itself
+     */
+    protected String getOuterSelector() {
+        return wrapInGroup ? "#" + getWrappingGroupId() : "#" + id;
     }
 
     protected boolean hasCustomInlineContent() {
@@ -489,7 +729,11 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
                 String path = getAppendPath();
                 if (path != null && path.endsWith(".ui") && !hasCustomInlineContent()) {
                     HyUIPlugin.getLog().logFinest("Appending UI file: " + path + " to " + parentSelector);
-                    commands.append(parentSelector, path);
+                    if (insertBeforeSelector != null) {
+                        commands.insertBefore(insertBeforeSelector, path);
+                    } else {
+                        commands.append(parentSelector, path);
+                    }
 
                     // If it's a file but NOT wrapped, we need to set the ID of the root element in that file
                     // if it's not already correct.
@@ -500,20 +744,20 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
                 } else if (hasCustomInlineContent()) {
                     String inline = generateCustomInlineContent();
                     HyUIPlugin.getLog().logFinest("Appending custom inline: " + inline + " to " + parentSelector);
-                    commands.appendInline(parentSelector, inline);
+                    appendInline(commands, inline);
                 } else {
                     String inline = generateBasicInlineMarkup();
                     HyUIPlugin.getLog().logFinest("Appending inline: " + inline + " to " + parentSelector);
-                    commands.appendInline(parentSelector, inline);
+                    appendInline(commands, inline);
                 }
             }
             
-            if (anchor != null) {
+            if (anchor != null && shouldSend(DIRTY_ANCHOR)) {
                 HyUIPlugin.getLog().logFinest("Setting Anchor for " + selector);
                 commands.setObject(selector + ".Anchor", anchor.toHytaleAnchor());
             }
 
-            if (padding != null) {
+            if (padding != null && shouldSend(DIRTY_PADDING)) {
                 if (!wrapInGroup) {
                     HyUIPlugin.getLog().logFinest("Setting Padding for " + selector);
                     if (padding.getLeft() != null) commands.set(selector + ".Padding.Left", padding.getLeft());
@@ -530,28 +774,28 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
                 }
             }
 
-            if (visible != null) {
+            if (visible != null && shouldSend(DIRTY_VISIBLE)) {
                 HyUIPlugin.getLog().logFinest("Setting Visible: " + visible + " for " + selector);
                 commands.set(selector + ".Visible", visible);
             }
 
-            if (tooltipTextSpan != null) {
+            if (tooltipTextSpan != null && shouldSend(DIRTY_TOOLTIP)) {
                 HyUIPlugin.getLog().logFinest("Setting TooltipTextSpans for " + selector);
                 commands.set(selector + ".TooltipTextSpans", tooltipTextSpan);
             }
 
-            if (hitTestVisible != null) {
+            if (hitTestVisible != null && shouldSend(DIRTY_HIT_TEST_VISIBLE)) {
                 HyUIPlugin.getLog().logFinest("Setting HitTestVisible: " + hitTestVisible + " for " + selector);
                 commands.set(selector + ".HitTestVisible", hitTestVisible);
             }
 
-            if (flexWeight != null) {
+            if (flexWeight != null && shouldSend(DIRTY_FLEX_WEIGHT)) {
                 String flexSelector = wrapInGroup ? "#" + getWrappingGroupId() : selector;
                 HyUIPlugin.getLog().logFinest("Setting FlexWeight: " + flexWeight + " for " + flexSelector);
                 commands.set(flexSelector + ".FlexWeight", flexWeight);
             }
 
-            if (hyUIStyle != null) {
+            if (hyUIStyle != null && shouldSend(DIRTY_STYLE)) {
                 BsonDocumentHelper doc = PropertyBatcher.beginSet();
                 applyStyle(commands, selector + ".Style", hyUIStyle, doc);
                 PropertyBatcher.endSet(selector + ".Style", doc, commands);
@@ -564,18 +808,28 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
                 });
             }
 
-            secondaryStyles.forEach((property, style) -> {
-                BsonDocumentHelper doc = PropertyBatcher.beginSet();
-                applyStyle(commands, selector + "." + property, style, doc);
-                PropertyBatcher.endSet(selector + "." + property, doc, commands);
-                applyRawStyleProperties(commands, selector + "." + property, style);
-                style.getStates().forEach((state, nestedStyle) -> {
-                    BsonDocumentHelper innerDoc = PropertyBatcher.beginSet();
-                    applyStyle(commands, selector + "." + property + "." + state, nestedStyle, innerDoc);
-                    PropertyBatcher.endSet(selector + "." + property + "." + state, doc, commands);
-                    applyRawStyleProperties(commands, selector + "." + property + "." + state, nestedStyle);
+            if (shouldSend(DIRTY_SECONDARY_STYLES)) {
+                secondaryStyles.forEach((property, style) -> {
+                    BsonDocumentHelper doc = PropertyBatcher.beginSet();
+                    applyStyle(commands, selector + "." + property, style, doc);
+                    PropertyBatcher.endSet(selector + "." + property, doc, commands);
+                    applyRawStyleProperties(commands, selector + "." + property, style);
+                    style.getStates().forEach((state, nestedStyle) -> {
+                        BsonDocumentHelper innerDoc = PropertyBatcher.beginSet();
+                        applyStyle(commands, selector + "." + property + "." + state, nestedStyle, innerDoc);
+                        PropertyBatcher.endSet(selector + "." + property + "." + state, doc, commands);
+                        applyRawStyleProperties(commands, selector + "." + property + "." + state, nestedStyle);
+                    });
                 });
-            });
+            }
+        }
+    }
+
+    private void appendInline(UICommandBuilder commands, String inline) {
+        if (insertBeforeSelector != null) {
+            commands.insertBeforeInline(insertBeforeSelector, inline);
+        } else {
+            commands.appendInline(parentSelector, inline);
         }
     }
 
@@ -604,12 +858,14 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
     @SuppressWarnings("unchecked")
     protected <V> T addEventListenerInternal(CustomUIEventBindingType type, Consumer<V> callback) {
         this.listeners.add(new UIEventListener<>(type, (val, ctx) -> ((Consumer<Object>) callback).accept(val)));
+        structureChanged();
         return (T) this;
     }
 
     @SuppressWarnings("unchecked")
     protected <V> T addEventListenerInternal(CustomUIEventBindingType type, BiConsumer<V, UIContext> callback) {
         this.listeners.add(new UIEventListener<>(type, callback));
+        structureChanged();
         return (T) this;
     }
 
@@ -755,16 +1011,30 @@ public abstract class UIElementBuilder<T extends UIElementBuilder<T>> {
      *                 handling for the child elements
      */
     protected void buildChildren(UICommandBuilder commands, UIEventBuilder events, boolean updateOnly) {
-        String selector = getSelector();
-        if (selector != null) {
-            for (UIElementBuilder<?> child : children) {
-                String originalParent = child.parentSelector;
-                child.inside(selector).build(commands, events, updateOnly);
-                child.inside(originalParent);
-            }
+        for (UIElementBuilder<?> child : children) {
+            buildChild(commands, events, child, updateOnly);
         }
     }
 
+    /**
+     * Builds one child inside this element, the way {@link #buildChildren} builds each child.
+     *
+     * @param child the child to build
+     */
+    protected void buildChild(UICommandBuilder commands, UIEventBuilder events, UIElementBuilder<?> child, boolean updateOnly) {
+        String originalParent = child.parentSelector;
+        child.inside(getChildParentSelector(child)).build(commands, events, updateOnly);
+        child.inside(originalParent);
+    }
+
+    /**
+     * @param child one of this element's children
+     * @return the selector the child is appended to
+     */
+    protected String getChildParentSelector(UIElementBuilder<?> child) {
+        return getSelector();
+    }
+
     private void executeBuild(UICommandBuilder commands, UIEventBuilder events, boolean updateOnly) {
         this.isUpdateOnly = updateOnly;
 
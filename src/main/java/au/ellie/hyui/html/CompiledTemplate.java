@@ -0,0 +1,659 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.utils.LruCache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An immutable, pre-parsed form of a HyUIML template.
+ * <p>
+ * The template text is scanned once for {@code {{#each}}}, {@code {{#if}}}/{@code {{else}}},
+ * {@code {{&#64;component}}} and {@code {{$variable|filter}}} blocks and turned into a node tree that
+ * {@link TemplateProcessor} can render in a single pass. Compiled templates are cached by their
+ * source text, so re-rendering the same page does not re-scan it.
+ */
+public final class CompiledTemplate {
+
+    // Pattern for {{$variable}} or {{$variable|default}} or {{$variable|filter}}
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile(
+            "\\{\\{\\$([a-zA-Z_][a-zA-Z0-9_]*(?:\\.[a-zA-Z_][a-zA-Z0-9_]*)*)(?:\\|([^}]*))?\\}\\}"
+    );
+
+    // A number or $variable, as used by limit= and offset=
+    private static final Pattern COUNT_PATTERN = Pattern.compile("\\d+|\\$[a-zA-Z_][a-zA-Z0-9_.]*");
+
+    private static final String EACH_START = "{{#each";
+    private static final String EACH_END = "{{/each}}";
+    private static final String IF_START = "{{#if";
+    private static final String IF_END = "{{/if}}";
+    private static final String ELSE_TAG = "{{else}}";
+    private static final String COMPONENT_START = "{{@";
+
+    private static final LruCache<String, CompiledTemplate> CACHE = new LruCache<>(256);
+
+    /**
+     * File name suffix of precompiled templates, appended to the page's own name.
+     */
+    public static final String PRECOMPILED_EXTENSION = ".hyuic";
+    private static final int FORMAT_MAGIC = 0x48595549;
+    private static final int FORMAT_VERSION = 1;
+    // Openings of template blocks; finding one in plain text means the block didn't parse.
+    private static final List<String> BLOCK_MARKERS = List.of(
+            EACH_START, EACH_END, IF_START, IF_END, ELSE_TAG, COMPONENT_START, "{{$");
+
+    private final String source;
+    private final List<Node> nodes;
+
+    private CompiledTemplate(String source, List<Node> nodes) {
+        this.source = source;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the compiled form of the template, compiling it on first use.
+     *
+     * @param template The template source.
+     * @return The cached compiled template.
+     */
+    public static CompiledTemplate of(String template) {
+        Objects.requireNonNull(template, "template");
+        return CACHE.computeIfAbsent(template, CompiledTemplate::compile);
+    }
+
+    /**
+     * Compiles the template without consulting or populating the cache.
+     *
+     * @param template The template source.
+     * @return A new compiled template.
+     */
+    public static CompiledTemplate compile(String template) {
+        Objects.requireNonNull(template, "template");
+        return new CompiledTemplate(template, parse(template));
+    }
+
+    /**
+     * @return The template text this program was compiled from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Writes this template in the compact form produced by the build's {@code precompileTemplates}
+     * task. Read it back with {@link #readFrom}.
+     *
+     * @param out Destination stream, left open.
+     * @throws IOException If writing fails.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        GZIPOutputStream zip = new GZIPOutputStream(out);
+        DataOutputStream data = new DataOutputStream(zip);
+        data.writeInt(FORMAT_MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        writeString(data, source);
+        writeNodes(data, nodes);
+        data.flush();
+        zip.finish();
+    }
+
+    /**
+     * Reads a template written by {@link #writeTo} and caches it, so {@link #of} with the same
+     * source returns it without parsing.
+     *
+     * @param in Source stream, left open.
+     * @return The compiled template.
+     * @throws IOException If reading fails or the data was written by an incompatible version.
+     */
+    public static CompiledTemplate readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new GZIPInputStream(in));
+        if (data.readInt() != FORMAT_MAGIC) {
+            throw new IOException("Not a precompiled HyUIML template.");
+        }
+        int version = data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported precompiled template version " + version + ".");
+        }
+        String source = readString(data);
+        CompiledTemplate template = new CompiledTemplate(source, readNodes(data));
+        CACHE.put(source, template);
+        return template;
+    }
+
+    /**
+     * Finds template blocks that did not parse, such as an {@code {{#each}}} without its
+     * {@code {{/each}}} or an unknown {@code {{#each}}} option. The renderer keeps such blocks as
+     * plain text, so they are easy to miss at runtime.
+     *
+     * @return A description of each problem, empty if the template is well formed.
+     */
+    public List<String> findProblems() {
+        List<String> problems = new ArrayList<>();
+        findProblems(nodes, problems);
+        return problems;
+    }
+
+    private static void findProblems(List<Node> nodes, List<String> problems) {
+        for (Node node : nodes) {
+            switch (node) {
+                case Text text -> {
+                    for (String marker : BLOCK_MARKERS) {
+                        int index = text.text().indexOf(marker);
+                        if (index >= 0) {
+                            problems.add("Unclosed or malformed " + marker + " block near: "
+                                    + snippet(text.text(), index));
+                        }
+                    }
+                }
+                case Variable ignored -> {
+                }
+                case Each each -> {
+                    if (each.listName().isEmpty() || each.listName().chars().anyMatch(Character::isWhitespace)) {
+                        problems.add("Unknown {{#each}} option in: {{#each " + each.listName() + "}}");
+                    }
+                    findProblems(each.body(), problems);
+                }
+                case If block -> {
+                    findProblems(block.whenTrue(), problems);
+                    findProblems(block.whenFalse(), problems);
+                }
+                case Component component -> {
+                    for (Param param : component.params()) {
+                        findProblems(param.value(), problems);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String snippet(String text, int index) {
+        int end = Math.min(text.length(), index + 40);
+        return text.substring(index, end).replace('\n', ' ').strip();
+    }
+
+    private static void writeNodes(DataOutputStream out, List<Node> nodes) throws IOException {
+        out.writeInt(nodes.size());
+        for (Node node : nodes) {
+            switch (node) {
+                case Text text -> {
+                    out.writeByte(0);
+                    writeString(out, text.text());
+                }
+                case Variable variable -> {
+                    out.writeByte(1);
+                    writeString(out, variable.name());
+                    writeString(out, variable.filterOrDefault());
+                }
+                case Each each -> {
+                    EachOptions options = each.options();
+                    out.writeByte(2);
+                    writeString(out, each.listName());
+                    out.writeBoolean(options.cached());
+                    out.writeBoolean(options.parallel());
+                    writeString(out, options.sortBy());
+                    out.writeBoolean(options.descending());
+                    writeString(out, options.limit());
+                    writeString(out, options.offset());
+                    writeString(out, options.where() != null ? options.where().getSource() : null);
+                    writeNodes(out, each.body());
+                }
+                case If block -> {
+                    out.writeByte(3);
+                    writeString(out, block.condition().getSource());
+                    writeNodes(out, block.whenTrue());
+                    writeNodes(out, block.whenFalse());
+                }
+                case Component component -> {
+                    out.writeByte(4);
+                    writeString(out, component.name());
+                    out.writeInt(component.params().size());
+                    for (Param param : component.params()) {
+                        writeString(out, param.name());
+                        writeNodes(out, param.value());
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<Node> readNodes(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Node> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int type = in.readByte();
+            switch (type) {
+                case 0 -> nodes.add(new Text(readString(in)));
+                case 1 -> nodes.add(new Variable(readString(in), readString(in)));
+                case 2 -> {
+                    String listName = readString(in);
+                    boolean cached = in.readBoolean();
+                    boolean parallel = in.readBoolean();
+                    String sortBy = readString(in);
+                    boolean descending = in.readBoolean();
+                    String limit = readString(in);
+                    String offset = readString(in);
+                    String where = readString(in);
+                    EachOptions options = new EachOptions(cached, parallel, sortBy, descending, limit, offset,
+                            where != null ? ConditionExpression.of(where) : null);
+                    nodes.add(new Each(listName, readNodes(in), options));
+                }
+                case 3 -> nodes.add(new If(ConditionExpression.of(readString(in)), readNodes(in), readNodes(in)));
+                case 4 -> {
+                    String name = readString(in);
+                    int paramCount = in.readInt();
+                    List<Param> params = new ArrayList<>(paramCount);
+                    for (int p = 0; p < paramCount; p++) {
+                        params.add(new Param(readString(in), readNodes(in)));
+                    }
+                    nodes.add(new Component(name, List.copyOf(params)));
+                }
+                default -> throw new IOException("Unknown template node type " + type + ".");
+            }
+        }
+        return List.copyOf(nodes);
+    }
+
+    // Length-prefixed rather than writeUTF, which is limited to 64 KB.
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    sealed interface Node permits Text, Variable, Each, If, Component {}
+
+    record Text(String text) implements Node {}
+
+    record Variable(String name, String filterOrDefault) implements Node {}
+
+    record Each(String listName, List<Node> body, EachOptions options) implements Node {}
+
+    /**
+     * Options written after the list name, e.g. {@code {{#each players sort=score desc limit=20 offset=$page}}}.
+     *
+     * @param cached     Whether each iteration's output is memoised ({@code cache}).
+     * @param parallel   Whether large lists render on several threads ({@code parallel}).
+     * @param sortBy     Item property to sort by, or null to keep the list order.
+     * @param descending Whether to sort highest first ({@code desc}).
+     * @param limit      Maximum number of items, as a number or {@code $variable}, or null.
+     * @param offset     Number of items to skip, as a number or {@code $variable}, or null.
+     * @param where      Condition each item must match ({@code where="level >= 5"}), or null.
+     */
+    record EachOptions(boolean cached,
+                       boolean parallel,
+                       String sortBy,
+                       boolean descending,
+                       String limit,
+                       String offset,
+                       ConditionExpression where) {
+
+        static final EachOptions NONE = new EachOptions(false, false, null, false, null, null, null);
+
+        /**
+         * @return Whether only some of the items, or the items in a different order, are rendered.
+         */
+        boolean windowed() {
+            return sortBy != null || limit != null || offset != null || where != null;
+        }
+    }
+
+    record If(ConditionExpression condition, List<Node> whenTrue, List<Node> whenFalse) implements Node {}
+
+    record Component(String name, List<Param> params) implements Node {}
+
+    record Param(String name, List<Node> value) {}
+
+    private record Parsed(Node node, int end) {}
+
+    private static List<Node> parse(String template) {
+        List<Node> nodes = new ArrayList<>();
+        Matcher variableMatcher = VARIABLE_PATTERN.matcher(template);
+        int textStart = 0;
+        int cursor = 0;
+
+        while (true) {
+            int open = template.indexOf("{{", cursor);
+            if (open < 0) {
+                break;
+            }
+
+            Parsed parsed = null;
+            if (template.startsWith(EACH_START, open)) {
+                parsed = parseEach(template, open);
+            } else if (template.startsWith(IF_START, open)) {
+                parsed = parseIf(template, open);
+            } else if (template.startsWith(COMPONENT_START, open)) {
+                parsed = parseComponent(template, open);
+            } else if (template.startsWith("{{$", open)) {
+                variableMatcher.region(open, template.length());
+                if (variableMatcher.lookingAt()) {
+                    parsed = new Parsed(new Variable(variableMatcher.group(1), variableMatcher.group(2)),
+                            variableMatcher.end());
+                }
+            }
+
+            if (parsed == null) {
+                // Not a template construct, keep it as literal text.
+                cursor = open + 1;
+                continue;
+            }
+
+            if (open > textStart) {
+                nodes.add(new Text(template.substring(textStart, open)));
+            }
+            nodes.add(parsed.node());
+            textStart = parsed.end();
+            cursor = parsed.end();
+        }
+
+        if (textStart < template.length()) {
+            nodes.add(new Text(template.substring(textStart)));
+        }
+        return List.copyOf(nodes);
+    }
+
+    private static Parsed parseEach(String template, int start) {
+        int startClose = template.indexOf("}}", start);
+        if (startClose < 0) {
+            return null;
+        }
+
+        String header = template.substring(start + EACH_START.length(), startClose).trim();
+        List<String> words = splitHeader(header);
+        EachOptions options = words.isEmpty() ? null : parseEachOptions(words);
+        String listName = header;
+        if (options != null) {
+            listName = words.get(0);
+        } else {
+            // Keep the old behaviour of treating the whole header as the list name.
+            options = EachOptions.NONE;
+        }
+        int end = findMatchingEnd(template, startClose + 2, EACH_START, EACH_END);
+        if (end < 0) {
+            return null;
+        }
+
+        List<Node> body = parse(template.substring(startClose + 2, end));
+        return new Parsed(new Each(listName, body, options), end + EACH_END.length());
+    }
+
+    /**
+     * Parses the words after the list name.
+     *
+     * @return The options, or null if any word isn't a known option.
+     */
+    private static EachOptions parseEachOptions(List<String> words) {
+        boolean cached = false;
+        boolean parallel = false;
+        String sortBy = null;
+        boolean descending = false;
+        String limit = null;
+        String offset = null;
+        ConditionExpression where = null;
+
+        for (int i = 1; i < words.size(); i++) {
+            String word = words.get(i);
+            int equals = word.indexOf('=');
+            if (equals < 0) {
+                switch (word) {
+                    case "cache" -> cached = true;
+                    case "parallel" -> parallel = true;
+                    case "asc" -> descending = false;
+                    case "desc" -> descending = true;
+                    default -> {
+                        return null;
+                    }
+                }
+                continue;
+            }
+
+            String value = word.substring(equals + 1).trim();
+            if (value.isEmpty()) {
+                return null;
+            }
+            String key = word.substring(0, equals);
+            if ((key.equals("limit") || key.equals("offset")) && !COUNT_PATTERN.matcher(value).matches()) {
+                return null;
+            }
+            switch (key) {
+                case "sort" -> sortBy = value;
+                case "limit" -> limit = value;
+                case "offset" -> offset = value;
+                case "where" -> where = ConditionExpression.of(value);
+                default -> {
+                    return null;
+                }
+            }
+        }
+        return new EachOptions(cached, parallel, sortBy, descending, limit, offset, where);
+    }
+
+    /**
+     * Splits an {@code {{#each}}} header on whitespace, keeping double-quoted text (without the
+     * quotes) in one word.
+     */
+    private static List<String> splitHeader(String header) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                if (!word.isEmpty()) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                }
+            } else {
+                word.append(c);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    private static Parsed parseIf(String template, int start) {
+        int startClose = template.indexOf("}}", start);
+        if (startClose < 0) {
+            return null;
+        }
+
+        String condition = template.substring(start + IF_START.length(), startClose).trim();
+        int end = findMatchingEnd(template, startClose + 2, IF_START, IF_END);
+        if (end < 0) {
+            return null;
+        }
+
+        int elseIndex = findElseIndex(template, startClose + 2, end);
+        List<Node> whenTrue;
+        List<Node> whenFalse = List.of();
+        if (elseIndex >= 0) {
+            whenTrue = parse(template.substring(startClose + 2, elseIndex));
+            whenFalse = parse(template.substring(elseIndex + ELSE_TAG.length(), end));
+        } else {
+            whenTrue = parse(template.substring(startClose + 2, end));
+        }
+
+        return new Parsed(new If(ConditionExpression.of(condition), whenTrue, whenFalse), end + IF_END.length());
+    }
+
+    private static Parsed parseComponent(String template, int start) {
+        int cursor = start + COMPONENT_START.length();
+        int depth = 1;
+
+        while (cursor < template.length()) {
+            if (template.startsWith("{{", cursor)) {
+                depth++;
+                cursor += 2;
+                continue;
+            }
+            if (template.startsWith("}}", cursor)) {
+                depth--;
+                if (depth == 0) {
+                    break;
+                }
+                cursor += 2;
+                continue;
+            }
+            cursor++;
+        }
+
+        if (depth != 0) {
+            return null;
+        }
+
+        String content = template.substring(start + COMPONENT_START.length(), cursor).trim();
+        String componentName;
+        String paramsStr = null;
+        int colonIndex = content.indexOf(':');
+        if (colonIndex >= 0) {
+            componentName = content.substring(0, colonIndex).trim();
+            paramsStr = content.substring(colonIndex + 1).trim();
+        } else {
+            componentName = content.trim();
+        }
+
+        List<Param> params = List.of();
+        if (paramsStr != null && !paramsStr.isEmpty()) {
+            params = parseParams(paramsStr);
+        }
+        return new Parsed(new Component(componentName, params), cursor + 2);
+    }
+
+    private static List<Param> parseParams(String paramsStr) {
+        Map<String, String> raw = new LinkedHashMap<>();
+        for (String param : paramsStr.split(",")) {
+            String[] parts = param.trim().split("=", 2);
+            if (parts.length == 2) {
+                raw.put(parts[0].trim(), parts[1].trim());
+            }
+        }
+
+        List<Param> params = new ArrayList<>(raw.size());
+        for (Map.Entry<String, String> entry : raw.entrySet()) {
+            params.add(new Param(entry.getKey(), parse(entry.getValue())));
+        }
+        return List.copyOf(params);
+    }
+
+    private static int findMatchingEnd(String template, int searchFrom, String startTag, String endTag) {
+        int depth = 1;
+        int index = searchFrom;
+
+        while (index < template.length()) {
+            int nextStart = template.indexOf(startTag, index);
+            int nextEnd = template.indexOf(endTag, index);
+
+            if (nextEnd < 0) {
+                return -1;
+            }
+
+            if (nextStart != -1 && nextStart < nextEnd) {
+                depth++;
+                index = nextStart + startTag.length();
+            } else {
+                depth--;
+                if (depth == 0) {
+                    return nextEnd;
+                }
+                index = nextEnd + endTag.length();
+            }
+        }
+
+        return -1;
+    }
+
+    private static int findElseIndex(String template, int searchFrom, int endIndex) {
+        int depth = 1;
+        int index = searchFrom;
+
+        while (index < endIndex) {
+            int nextStart = template.indexOf(IF_START, index);
+            int nextEnd = template.indexOf(IF_END, index);
+            int nextElse = template.indexOf(ELSE_TAG, index);
+
+            int next = minPositive(nextStart, nextEnd, nextElse);
+            if (next < 0 || next >= endIndex) {
+                return -1;
+            }
+
+            if (next == nextStart) {
+                depth++;
+                index = nextStart + IF_START.length();
+            } else if (next == nextEnd) {
+                depth--;
+                if (depth == 0) {
+                    return -1;
+                }
+                index = nextEnd + IF_END.length();
+            } else {
+                if (depth == 1) {
+                    return nextElse;
+                }
+                index = nextElse + ELSE_TAG.length();
+            }
+        }
+
+        return -1;
+    }
+
+    private static int minPositive(int... values) {
+        int min = Integer.MAX_VALUE;
+        for (int value : values) {
+            if (value >= 0 && value < min) {
+                min = value;
+            }
+        }
+        return min == Integer.MAX_VALUE ? -1 : min;
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.utils.LruCache;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled {@code {{#if}}} condition.
+ * <p>
+ * Conditions are parsed once per distinct text into a small expression tree. Supported, from
+ * loosest to tightest binding:
+ * <pre>
+ * a || b            - Logical or
+ * a &amp;&amp; b            - Logical and
+ * !a                - Negation (applies to the whole comparison that follows, e.g. !a == b)
+ * == != &gt; &lt; &gt;= &lt;=   - Comparison
+ * a contains b      - Substring, collection or map key test
+ * a + b, a - b      - Addition (or string concatenation) and subtraction
+ * a * b, a / b, a % b
+ * (a)               - Grouping
+ * </pre>
+ * Arithmetic operators must be surrounded by spaces, so {@code a-b} stays a single operand.
+ * Operands are quoted strings, {@code null}, booleans, numbers, variables, or otherwise the
+ * literal text itself (which may contain spaces, e.g. {@code title == Slime Cleanup}).
+ */
+final class ConditionExpression {
+
+    private static final LruCache<String, ConditionExpression> CACHE = new LruCache<>(512);
+
+    private final String source;
+    private final Expr root;
+
+    private ConditionExpression(String source, Expr root) {
+        this.source = source;
+        this.root = root;
+    }
+
+    /**
+     * Returns the compiled condition, compiling it on first use.
+     *
+     * @param condition The condition text.
+     * @return The cached compiled condition.
+     */
+    static ConditionExpression of(String condition) {
+        String trimmed = condition != null ? condition.trim() : "";
+        return CACHE.computeIfAbsent(trimmed, ConditionExpression::compile);
+    }
+
+    /**
+     * Compiles the condition without consulting the cache.
+     *
+     * @param condition The condition text.
+     * @return A new compiled condition.
+     */
+    static ConditionExpression compile(String condition) {
+        String trimmed = condition != null ? condition.trim() : "";
+        return new ConditionExpression(trimmed, new Parser(trimmed).parse());
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * Evaluates the condition for truthiness.
+     */
+    <S> boolean test(S scope, Lookup<S> lookup) {
+        return isTruthy(root.evaluate(scope, lookup));
+    }
+
+    /**
+     * Evaluates the condition to its value.
+     */
+    <S> Object evaluate(S scope, Lookup<S> lookup) {
+        return root.evaluate(scope, lookup);
+    }
+
+    /**
+     * Resolves variable operands against a render scope.
+     *
+     * @param <S> The scope type.
+     */
+    interface Lookup<S> {
+        boolean has(S scope, String name);
+
+        Object resolve(S scope, String name);
+    }
+
+    sealed interface Expr permits Literal, Name, Not, And, Or, Compare, Arithmetic {
+        <S> Object evaluate(S scope, Lookup<S> lookup);
+    }
+
+    record Literal(Object value) implements Expr {
+        @Override
+        public <S> Object evaluate(S scope, Lookup<S> lookup) {
+            return value;
+        }
+    }
+
+    /**
+     * A bare operand: the variable if it exists, otherwise the text itself.
+     */
+    record Name(String name) implements Expr {
+        @Override
+        public <S> Object evaluate(S scope, Lookup<S> lookup) {
+            return lookup.has(scope, name) ? lookup.resolve(scope, name) : name;
+        }
+    }
+
+    record Not(Expr operand) implements Expr {
+        @Override
+        public <S> Object evaluate(S scope, Lookup<S> lookup) {
+            return !isTruthy(operand.evaluate(scope, lookup));
+        }
+    }
+
+    record And(List<Expr> operands) implements Expr {
+        @Override
+        public <S> Object evaluate(S scope, Lookup<S> lookup) {
+            for (Expr operand : operands) {
+                if (!isTruthy(operand.evaluate(scope, lookup))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    record Or(List<Expr> operands) implements Expr {
+        @Override
+        public <S> Object evaluate(S scope, Lookup<S> lookup) {
+            for (Expr operand : operands) {
+                if (isTruthy(operand.evaluate(scope, lookup))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record Compare(Expr left, String operator, Expr right) implements Expr {
+        @Override
+        public <S> Object evaluate(S scope, Lookup<S> lookup) {
+            Object leftValue = left.evaluate(scope, lookup);
+            Object rightValue = right.evaluate(scope, lookup);
+            if ("contains".equals(operator)) {
+                return containsValue(leftValue, rightValue);
+            }
+            return compareValues(leftValue, rightValue, operator);
+        }
+    }
+
+    record Arithmetic(Expr left, char operator, Expr right) implements Expr {
+        @Override
+        public <S> Object evaluate(S scope, Lookup<S> lookup) {
+            return arithmetic(operator, left.evaluate(scope, lookup), right.evaluate(scope, lookup));
+        }
+    }
+
+    private static final class Parser {
+        private static final String[] COMPARISON_OPERATORS = {"==", "!=", ">=", "<=", ">", "<"};
+
+        private final String text;
+        private int pos;
+        private int depth;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Expr parse() {
+            if (text.isEmpty()) {
+                return new Literal("");
+            }
+            Expr expr = parseOr();
+            skipWhitespace();
+            if (pos < text.length()) {
+                // Trailing text we can't make sense of, e.g. "(a) b": keep the old behaviour of
+                // treating the whole condition as a single operand.
+                return operand(text);
+            }
+            return expr;
+        }
+
+        private Expr parseOr() {
+            List<Expr> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (consume("||")) {
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.getFirst() : new Or(List.copyOf(operands));
+        }
+
+        private Expr parseAnd() {
+            List<Expr> operands = new ArrayList<>();
+            operands.add(parseNot());
+            while (consume("&&")) {
+                operands.add(parseNot());
+            }
+            return operands.size() == 1 ? operands.getFirst() : new And(List.copyOf(operands));
+        }
+
+        private Expr parseNot() {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == '!' && !text.startsWith("!=", pos)) {
+                pos++;
+                return new Not(parseNot());
+            }
+            return parseComparison();
+        }
+
+        private Expr parseComparison() {
+            Expr left = parseAdditive();
+            while (true) {
+                skipWhitespace();
+                String operator = comparisonOperatorAt(pos);
+                if (operator == null) {
+                    return left;
+                }
+                pos += operator.length();
+                left = new Compare(left, operator, parseAdditive());
+            }
+        }
+
+        private Expr parseAdditive() {
+            Expr left = parseMultiplicative();
+            while (true) {
+                skipWhitespace();
+                char operator = arithmeticOperatorAt(pos, "+-");
+                if (operator == 0) {
+                    return left;
+                }
+                pos++;
+                left = new Arithmetic(left, operator, parseMultiplicative());
+            }
+        }
+
+        private Expr parseMultiplicative() {
+            Expr left = parsePrimary();
+            while (true) {
+                skipWhitespace();
+                char operator = arithmeticOperatorAt(pos, "*/%");
+                if (operator == 0) {
+                    return left;
+                }
+                pos++;
+                left = new Arithmetic(left, operator, parsePrimary());
+            }
+        }
+
+        private Expr parsePrimary() {
+            skipWhitespace();
+            if (pos < text.length() && text.charAt(pos) == '(') {
+                pos++;
+                depth++;
+                Expr inner = parseOr();
+                skipWhitespace();
+                if (pos < text.length() && text.charAt(pos) == ')') {
+                    pos++;
+                }
+                depth--;
+                return inner;
+            }
+            return parseOperand();
+        }
+
+        private Expr parseOperand() {
+            int start = pos;
+            boolean inSingle = false;
+            boolean inDouble = false;
+            int i = pos;
+
+            for (; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' && !inSingle) {
+                    inDouble = !inDouble;
+                    continue;
+                }
+                if (c == '\'' && !inDouble) {
+                    inSingle = !inSingle;
+                    continue;
+                }
+                if (inSingle || inDouble) {
+                    continue;
+                }
+
+                if (text.startsWith("||", i) || text.startsWith("&&", i) || comparisonOperatorAt(i) != null) {
+                    break;
+                }
+                if (c == ')' && depth > 0) {
+                    break;
+                }
+                if (Character.isWhitespace(c) && i + 1 < text.length()
+                        && (arithmeticOperatorAt(i + 1, "+-*/%") != 0 || comparisonOperatorAt(i + 1) != null)) {
+                    break;
+                }
+            }
+
+            pos = i;
+            return operand(text.substring(start, i));
+        }
+
+        private String comparisonOperatorAt(int index) {
+            for (String operator : COMPARISON_OPERATORS) {
+                if (text.startsWith(operator, index)) {
+                    return operator;
+                }
+            }
+            if (index > 0 && Character.isWhitespace(text.charAt(index - 1))
+                    && text.startsWith("contains", index)
+                    && index + 8 < text.length() && Character.isWhitespace(text.charAt(index + 8))) {
+                return "contains";
+            }
+            return null;
+        }
+
+        private char arithmeticOperatorAt(int index, String operators) {
+            if (index <= 0 || index + 1 >= text.length()) {
+                return 0;
+            }
+            char c = text.charAt(index);
+            if (operators.indexOf(c) < 0) {
+                return 0;
+            }
+            if (!Character.isWhitespace(text.charAt(index - 1)) || !Character.isWhitespace(text.charAt(index + 1))) {
+                return 0;
+            }
+            return c;
+        }
+
+        private boolean consume(String token) {
+            skipWhitespace();
+            if (text.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    private static Expr operand(String token) {
+        String trimmed = token.trim();
+        if (trimmed.isEmpty()) {
+            return new Literal("");
+        }
+
+        if (trimmed.length() >= 2 && ((trimmed.startsWith("\"") && trimmed.endsWith("\""))
+                || (trimmed.startsWith("'") && trimmed.endsWith("'")))) {
+            return new Literal(trimmed.substring(1, trimmed.length() - 1));
+        }
+
+        if ("null".equalsIgnoreCase(trimmed)) {
+            return new Literal(null);
+        }
+
+        if ("true".equalsIgnoreCase(trimmed) || "false".equalsIgnoreCase(trimmed)) {
+            return new Literal(Boolean.parseBoolean(trimmed));
+        }
+
+        try {
+            if (trimmed.contains(".")) {
+                return new Literal(Double.parseDouble(trimmed));
+            }
+            return new Literal(Long.parseLong(trimmed));
+        } catch (NumberFormatException ignored) {
+            // Not a number literal.
+        }
+
+        return new Name(trimmed);
+    }
+
+    private static Object arithmetic(char operator, Object left, Object right) {
+        if (left == null || right == null) {
+            return null;
+        }
+
+        Double leftNum = toNumber(left);
+        Double rightNum = toNumber(right);
+        if (leftNum == null || rightNum == null) {
+            return operator == '+' ? String.valueOf(left) + right : null;
+        }
+
+        if (isIntegral(left) && isIntegral(right)) {
+            long a = ((Number) left).longValue();
+            long b = ((Number) right).longValue();
+            return switch (operator) {
+                case '+' -> a + b;
+                case '-' -> a - b;
+                case '*' -> a * b;
+                case '/' -> b == 0 ? null : (a % b == 0 ? (Object) (a / b) : (Object) ((double) a / b));
+                case '%' -> b == 0 ? null : a % b;
+                default -> null;
+            };
+        }
+
+        double a = leftNum;
+        double b = rightNum;
+        return switch (operator) {
+            case '+' -> a + b;
+            case '-' -> a - b;
+            case '*' -> a * b;
+            case '/' -> a / b;
+            case '%' -> a % b;
+            default -> null;
+        };
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    static boolean compareValues(Object left, Object right, String operator) {
+        if (left == null || right == null) {
+            if ("==".equals(operator)) {
+                return left == right;
+            }
+            if ("!=".equals(operator)) {
+                return left != right;
+            }
+            return false;
+        }
+
+        Double leftNum = toNumber(left);
+        Double rightNum = toNumber(right);
+        if (leftNum != null && rightNum != null) {
+            return switch (operator) {
+                case "==" -> Double.compare(leftNum, rightNum) == 0;
+                case "!=" -> Double.compare(leftNum, rightNum) != 0;
+                case ">" -> leftNum > rightNum;
+                case "<" -> leftNum < rightNum;
+                case ">=" -> leftNum >= rightNum;
+                case "<=" -> leftNum <= rightNum;
+                default -> false;
+            };
+        }
+
+        if (left instanceof Boolean || right instanceof Boolean) {
+            boolean leftVal = left instanceof Boolean ? (Boolean) left : Boolean.parseBoolean(left.toString());
+            boolean rightVal = right instanceof Boolean ? (Boolean) right : Boolean.parseBoolean(right.toString());
+            return switch (operator) {
+                case "==" -> leftVal == rightVal;
+                case "!=" -> leftVal != rightVal;
+                default -> false;
+            };
+        }
+
+        String leftStr = String.valueOf(left);
+        String rightStr = String.valueOf(right);
+        return switch (operator) {
+            case "==" -> leftStr.equals(rightStr);
+            case "!=" -> !leftStr.equals(rightStr);
+            default -> false;
+        };
+    }
+
+    static Double toNumber(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static boolean containsValue(Object left, Object right) {
+        if (left == null || right == null) {
+            return false;
+        }
+
+        if (left instanceof CharSequence seq) {
+            return seq.toString().contains(String.valueOf(right));
+        }
+
+        if (left instanceof Map<?, ?> map) {
+            return map.containsKey(right);
+        }
+
+        if (left instanceof Iterable<?> iterable) {
+            for (Object item : iterable) {
+                if (item != null && item.equals(right)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (left.getClass().isArray()) {
+            int length = Array.getLength(left);
+            for (int i = 0; i < length; i++) {
+                Object item = Array.get(left, i);
+                if (item != null && item.equals(right)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return left.toString().contains(String.valueOf(right));
+    }
+
+    static boolean isTruthy(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue() != 0;
+        }
+        if (value instanceof CharSequence seq) {
+            String text = seq.toString().trim();
+            return !text.isEmpty() && !"false".equalsIgnoreCase(text);
+        }
+        if (value instanceof Iterable<?> iterable) {
+            return iterable.iterator().hasNext();
+        }
+        if (value.getClass().isArray()) {
+            return Array.getLength(value) > 0;
+        }
+        return true;
+    }
+}
@@ -22,99 +22,170 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Preprocesses HTML by extracting styles from &lt;style&gt; tags and applying them to elements.
+ * <p>
+ * Global stylesheets (see {@link #addGlobalStylesheet(Stylesheet)}) apply to every page before
+ * the page's own styles, so a page can override them.
  */
 public class CssPreprocessor {
 
-    public void process(Document doc) {
-        Elements styleElements = doc.getElementsByTag("style");
-        Map<String, String> cssRules = new HashMap<>();
+    private static final List<Stylesheet> GLOBAL_STYLESHEETS = new CopyOnWriteArrayList<>();
 
-        for (Element styleElement : styleElements) {
-            parseCss(styleElement.data(), cssRules);
-            styleElement.remove();
+    /**
+     * Adds a stylesheet that applies to every HyUIML page.
+     *
+     * @param stylesheet The stylesheet to add.
+     */
+    public static void addGlobalStylesheet(Stylesheet stylesheet) {
+        GLOBAL_STYLESHEETS.add(stylesheet);
+        HtmlParser.clearCache();
+    }
+
+    /**
+     * Adds style text that applies to every HyUIML page.
+     *
+     * @param css The style text, as it would appear in a {@code <style>} block.
+     * @return The parsed stylesheet, to remove it again later.
+     */
+    public static Stylesheet addGlobalStylesheet(String css) {
+        Stylesheet stylesheet = Stylesheet.of(css);
+        addGlobalStylesheet(stylesheet);
+        return stylesheet;
+    }
+
+    /**
+     * @param stylesheet The global stylesheet to remove.
+     * @return true if it was registered.
+     */
+    public static boolean removeGlobalStylesheet(Stylesheet stylesheet) {
+        boolean removed = GLOBAL_STYLESHEETS.remove(stylesheet);
+        if (removed) {
+            HtmlParser.clearCache();
         }
+        return removed;
+    }
+
+    public static void clearGlobalStylesheets() {
+        GLOBAL_STYLESHEETS.clear();
+        HtmlParser.clearCache();
+    }
 
-        applyRules(doc, cssRules);
+    /**
+     * @return The global stylesheets, in the order they apply.
+     */
+    public static List<Stylesheet> getGlobalStylesheets() {
+        return List.copyOf(GLOBAL_STYLESHEETS);
     }
 
-    private void parseCss(String css, Map<String, String> cssRules) {
-        // Remove comments
-        css = css.replaceAll("//.*|/\\*([\\s\\S]*?)\\*/", "");
-
-        // Updated regex to handle multi-line and different brace placements
-        // Use DOTALL (?s) to allow . to match newlines
-        Pattern pattern = Pattern.compile("(?s)\\s*([^{]+)\\s*\\{\\s*([^}]+)\\s*\\}");
-        Matcher matcher = pattern.matcher(css);
-
-        while (matcher.find()) {
-            String selectors = matcher.group(1).trim();
-            String properties = matcher.group(2).trim();
-
-            for (String selector : selectors.split(",")) {
-                selector = selector.trim();
-                if (!selector.isEmpty()) {
-                    // Normalize properties: replace newlines/tabs with spaces and trim
-                    String normalizedProperties = properties.replaceAll("\\s+", " ").trim();
-
-                    // If multiple rules for same selector, append properties
-                    String existing = cssRules.getOrDefault(selector, "");
-                    if (!existing.isEmpty() && !existing.endsWith(";")) {
-                        existing += ";";
-                    }
-                    cssRules.put(selector, existing + normalizedProperties);
+    public void process(Document doc) {
+        Elements styleElements = doc.getElementsByTag("style");
+        String css = null;
+        if (!styleElements.isEmpty()) {
+            if (styleElements.size() == 1) {
+                css = styleElements.get(0).data();
+            } else {
+                StringBuilder combined = new StringBuilder();
+                for (Element styleElement : styleElements) {
+                    combined.append(styleElement.data()).append('\n');
                 }
+                css = combined.toString();
             }
+            styleElements.remove();
+        }
+        List<Stylesheet> stylesheets = getStylesheets(css);
+        if (stylesheets.isEmpty()) {
+            return;
+        }
+
+        applyDefinitions(stylesheets, doc.body());
+        List<Map<Element, List<Stylesheet.Rule>>> structuralMatches = new ArrayList<>(stylesheets.size());
+        for (Stylesheet stylesheet : stylesheets) {
+            structuralMatches.add(stylesheet.matchStructural(doc));
+        }
+
+        List<Stylesheet.Rule> matches = new ArrayList<>();
+        StringBuilder style = new StringBuilder();
+        StringBuilder hoverStyle = new StringBuilder();
+        for (Element element : doc.getAllElements()) {
+            matches.clear();
+            for (int i = 0; i < stylesheets.size(); i++) {
+                stylesheets.get(i).match(element, structuralMatches.get(i), matches);
+            }
+            applyMatches(element, matches, style, hoverStyle);
         }
     }
 
-    private void applyRules(Document doc, Map<String, String> cssRules) {
-        for (Map.Entry<String, String> entry : cssRules.entrySet()) {
-            String selector = entry.getKey();
-            String properties = entry.getValue();
-
-            try {
-                if (selector.startsWith("@")) {
-                    String name = selector.substring(1).trim();
-                    if (!name.isEmpty()) {
-                        doc.body().attr("data-hyui-style-def-" + name, properties);
-                    }
-                    continue;
-                }
+    /**
+     * Gets the stylesheets that apply to a page: the global ones, then the page's own.
+     *
+     * @param css The page's style text, or null if it has none.
+     */
+    static List<Stylesheet> getStylesheets(String css) {
+        List<Stylesheet> stylesheets = new ArrayList<>(GLOBAL_STYLESHEETS);
+        if (css != null) {
+            stylesheets.add(Stylesheet.of(css));
+        }
+        return stylesheets;
+    }
 
-                // Handle :hover pseudo-class
-                if (selector.endsWith(":hover")) {
-                    String baseSelector = selector.substring(0, selector.length() - 6);
-                    Elements elements = doc.select(baseSelector.isEmpty() ? "*" : baseSelector);
-                    for (Element element : elements) {
-                        String existingHover = element.attr("data-hyui-hover-style");
-                        if (!existingHover.isEmpty() && !existingHover.endsWith(";")) {
-                            existingHover += ";";
-                        }
-                        element.attr("data-hyui-hover-style", properties + (properties.endsWith(";") ? "" : ";") + existingHover);
-                    }
-                    continue;
-                }
+    /**
+     * Stores the stylesheets' named definitions on the body, where tag handlers look them up.
+     */
+    static void applyDefinitions(List<Stylesheet> stylesheets, Element body) {
+        for (Stylesheet stylesheet : stylesheets) {
+            stylesheet.getDefinitions().forEach((name, properties) ->
+                    body.attr("data-hyui-style-def-" + name, properties));
+        }
+    }
 
-                Elements elements = doc.select(selector);
-                for (Element element : elements) {
-                    String existingStyle = element.attr("style");
-                    if (!existingStyle.isEmpty() && !existingStyle.endsWith(";")) {
-                        existingStyle += ";";
-                    }
-                    // CSS properties from style attribute should override CSS rules (specificity)
-                    // So we prepend the CSS rules to the existing style
-                    element.attr("style", properties + (properties.endsWith(";") ? "" : ";") + existingStyle);
-                }
-            } catch (Exception ignored) {
-                // Ignore invalid selectors
-            }
+    /**
+     * Styles one element of a document that is still being parsed. Every stylesheet must be
+     * {@link Stylesheet#isIncremental() incremental}.
+     *
+     * @param element     The element, whose ancestors have been parsed.
+     * @param stylesheets The stylesheets to apply.
+     */
+    static void processIncrementally(Element element, List<Stylesheet> stylesheets) {
+        List<Stylesheet.Rule> matches = new ArrayList<>();
+        for (Stylesheet stylesheet : stylesheets) {
+            stylesheet.matchIncrementally(element, matches);
+        }
+        applyMatches(element, matches, new StringBuilder(), new StringBuilder());
+    }
+
+    private static void applyMatches(Element element,
+                                     List<Stylesheet.Rule> matches,
+                                     StringBuilder style,
+                                     StringBuilder hoverStyle) {
+        if (matches.isEmpty()) {
+            return;
+        }
+
+        style.setLength(0);
+        hoverStyle.setLength(0);
+        for (Stylesheet.Rule rule : matches) {
+            appendDeclarations(rule.hover() ? hoverStyle : style, rule.properties());
+        }
+        // CSS properties from style attribute should override CSS rules (specificity)
+        // So the CSS rules go before the existing style
+        if (!style.isEmpty()) {
+            element.attr("style", style.append(element.attr("style")).toString());
+        }
+        if (!hoverStyle.isEmpty()) {
+            element.attr("data-hyui-hover-style", hoverStyle.append(element.attr("data-hyui-hover-style")).toString());
+        }
+    }
+
+    private static void appendDeclarations(StringBuilder target, String properties) {
+        target.append(properties);
+        if (!properties.endsWith(";")) {
+            target.append(';');
         }
     }
 }
@@ -0,0 +1,265 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.builders.UIElementBuilder;
+import au.ellie.hyui.events.UIContext;
+import au.ellie.hyui.utils.LruCache;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A HyUIML template parsed once into a document with holes where its {@code {{$variable}}}
+ * placeholders are, so rendering it fills the holes in a copy of the document instead of
+ * rendering HTML text and parsing it again.
+ * <p>
+ * Only templates made of plain markup and placeholders are supported, and every placeholder has
+ * to sit in an attribute value or in text. Placeholder values are inserted as they are, so markup
+ * and character references in them are not parsed. Use {@link #isSupported()} to check a template.
+ */
+public final class ElementTemplate {
+
+    // Private use characters, which never appear in real pages.
+    private static final char HOLE_START = '\uE000';
+    private static final char HOLE_END = '\uE001';
+    private static final int[] ROOT = new int[0];
+
+    private static final LruCache<String, ElementTemplate> CACHE = new LruCache<>(64);
+
+    private final List<CompiledTemplate.Variable> placeholders;
+    private final Document document;
+    private final List<Site> sites;
+
+    private ElementTemplate(List<CompiledTemplate.Variable> placeholders, Document document, List<Site> sites) {
+        this.placeholders = placeholders;
+        this.document = document;
+        this.sites = sites;
+    }
+
+    /**
+     * Gets the element template for the given template source, compiling it on first use.
+     *
+     * @param template The template source.
+     * @return The cached element template, which may not be supported.
+     */
+    public static ElementTemplate of(String template) {
+        Objects.requireNonNull(template, "template");
+        return CACHE.computeIfAbsent(template, ElementTemplate::compile);
+    }
+
+    /**
+     * Compiles the template without consulting or populating the cache.
+     *
+     * @param template The template source.
+     * @return A new element template, which may not be supported.
+     */
+    public static ElementTemplate compile(String template) {
+        List<CompiledTemplate.Variable> placeholders = new ArrayList<>();
+        StringBuilder marked = new StringBuilder(template.length());
+        for (CompiledTemplate.Node node : CompiledTemplate.of(template).getNodes()) {
+            switch (node) {
+                case CompiledTemplate.Text text -> marked.append(text.text());
+                case CompiledTemplate.Variable variable -> {
+                    marked.append(HOLE_START).append(placeholders.size()).append(HOLE_END);
+                    placeholders.add(variable);
+                }
+                default -> {
+                    // Blocks can change the structure of the page.
+                    return unsupported();
+                }
+            }
+        }
+
+        Document document = Jsoup.parseBodyFragment(marked.toString());
+        List<Site> sites = new ArrayList<>();
+        BitSet found = new BitSet(placeholders.size());
+        if (!findSites(document, ROOT, sites, found) || found.cardinality() != placeholders.size()) {
+            return unsupported();
+        }
+        return new ElementTemplate(List.copyOf(placeholders), document, List.copyOf(sites));
+    }
+
+    private static ElementTemplate unsupported() {
+        return new ElementTemplate(null, null, List.of());
+    }
+
+    /**
+     * @return Whether this template can be rendered without going through HTML text.
+     */
+    public boolean isSupported() {
+        return document != null;
+    }
+
+    /**
+     * Renders the value of every placeholder. Comparing the values of two renders tells whether
+     * the page changed.
+     *
+     * @param processor The processor supplying variables and filters.
+     * @param context   The UI context for runtime values, may be null.
+     * @return The values, in the order the placeholders appear in the template.
+     */
+    public String[] renderValues(TemplateProcessor processor, UIContext context) {
+        requireSupported();
+        return processor.renderVariables(placeholders, processor.resolverFor(context));
+    }
+
+    /**
+     * Builds the elements of the template with the given placeholder values.
+     *
+     * @param values Values from {@link #renderValues}.
+     * @return The parsed elements, as {@link HtmlParser#parse} would return for the rendered HTML.
+     */
+    public List<UIElementBuilder<?>> instantiate(String[] values) {
+        requireSupported();
+        if (values.length != placeholders.size()) {
+            throw new IllegalArgumentException("Expected " + placeholders.size() + " values, got " + values.length);
+        }
+
+        Document page;
+        // Cloning only reads the original, but jsoup doesn't promise that is thread-safe.
+        synchronized (document) {
+            page = document.clone();
+        }
+        List<TextNode> emptyText = new ArrayList<>();
+        for (Site site : sites) {
+            Node node = page;
+            for (int index : site.path()) {
+                node = node.childNode(index);
+            }
+            String value = site.fill(values);
+            if (site.attribute() != null) {
+                ((Element) node).attr(site.attribute(), value);
+            } else {
+                TextNode text = (TextNode) node;
+                text.text(value);
+                if (value.isEmpty()) {
+                    emptyText.add(text);
+                }
+            }
+        }
+        // Removed last, so the sites' paths stay valid while filling.
+        emptyText.forEach(Node::remove);
+
+        new CssPreprocessor().process(page);
+        return new HtmlParser().parseChildren(page.body());
+    }
+
+    private void requireSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Template has blocks or placeholders outside attribute values and text.");
+        }
+    }
+
+    /**
+     * Records where the placeholders ended up in the parsed document.
+     *
+     * @return false if a placeholder is anywhere but an attribute value or text.
+     */
+    private static boolean findSites(Node node, int[] path, List<Site> sites, BitSet found) {
+        if (node instanceof Element element) {
+            if (hasHole(element.tagName())) {
+                return false;
+            }
+            for (Attribute attribute : element.attributes()) {
+                if (hasHole(attribute.getKey())) {
+                    return false;
+                }
+                if (hasHole(attribute.getValue())) {
+                    sites.add(Site.of(path, attribute.getKey(), attribute.getValue(), found));
+                }
+            }
+        } else if (node instanceof TextNode text) {
+            String value = text.getWholeText();
+            if (hasHole(value)) {
+                Site site = Site.of(path, null, value, found);
+                for (int i = 0; i < site.holes().length; i++) {
+                    String before = site.literals()[i];
+                    // e.g. <{{$tag}}>, which would be an element once rendered.
+                    if (before.endsWith("<") || before.endsWith("</")) {
+                        return false;
+                    }
+                }
+                sites.add(site);
+            }
+        } else if (!(node instanceof Document) && hasHole(node.outerHtml())) {
+            // Comments, style and script contents and the like.
+            return false;
+        }
+
+        for (int i = 0; i < node.childNodeSize(); i++) {
+            int[] childPath = Arrays.copyOf(path, path.length + 1);
+            childPath[path.length] = i;
+            if (!findSites(node.childNode(i), childPath, sites, found)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasHole(String text) {
+        return text.indexOf(HOLE_START) >= 0;
+    }
+
+    /**
+     * An attribute value or text containing placeholders.
+     *
+     * @param path      Child indexes from the document to the node.
+     * @param attribute The attribute name, or null for a text node.
+     * @param literals  The text around the placeholders, one more than there are placeholders.
+     * @param holes     The placeholder indexes, in order.
+     */
+    private record Site(int[] path, String attribute, String[] literals, int[] holes) {
+
+        static Site of(int[] path, String attribute, String value, BitSet found) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> holes = new ArrayList<>();
+            int start = 0;
+            int open;
+            while ((open = value.indexOf(HOLE_START, start)) >= 0) {
+                int close = value.indexOf(HOLE_END, open);
+                literals.add(value.substring(start, open));
+                int hole = Integer.parseInt(value.substring(open + 1, close));
+                holes.add(hole);
+                found.set(hole);
+                start = close + 1;
+            }
+            literals.add(value.substring(start));
+            return new Site(path, attribute, literals.toArray(String[]::new),
+                    holes.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        String fill(String[] values) {
+            StringBuilder out = new StringBuilder(literals[0]);
+            for (int i = 0; i < holes.length; i++) {
+                out.append(values[holes[i]]).append(literals[i + 1]);
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.utils.LruCache;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Memoised output of cacheable template fragments ({@code {{#each items cache}}} iterations and
+ * components registered as cached).
+ * <p>
+ * A fragment's output is keyed on the values of the variables it actually read the last time it
+ * rendered. The names read are remembered per fragment, and grow if a later render takes a branch
+ * that reads something new, so a lookup only has to resolve those names again and compare.
+ */
+final class FragmentCache {
+
+    private final LruCache<Key, String> outputs;
+    private final LruCache<FragmentId, Reads> reads;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    FragmentCache(int maxSize) {
+        this.outputs = new LruCache<>(maxSize);
+        this.reads = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Looks up the fragment's output for the current values of the names it has read before.
+     *
+     * @param fragment The {@code {{#each}}} node or component definition.
+     * @param keys     Builds the key for the fragment's known reads.
+     * @return The cached output, or null if the fragment has to render.
+     */
+    String get(Object fragment, Function<Reads, Key> keys) {
+        Reads known = reads.get(new FragmentId(fragment));
+        String output = known != null ? outputs.get(keys.apply(known)) : null;
+        (output != null ? hits : misses).incrementAndGet();
+        return output;
+    }
+
+    /**
+     * Caches a freshly rendered fragment, merging what it read into what is known about the
+     * fragment. The key is built for the merged reads, so later lookups find it.
+     */
+    void put(Object fragment, Reads seen, Function<Reads, Key> keys, String output) {
+        FragmentId id = new FragmentId(fragment);
+        Reads known = reads.get(id);
+        Reads merged = known == null ? seen : known.union(seen);
+        if (merged != known) {
+            reads.put(id, merged);
+        }
+        outputs.put(keys.apply(merged), output);
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    void clear() {
+        outputs.clear();
+        reads.clear();
+    }
+
+    /**
+     * The variables a fragment reads.
+     *
+     * @param resolved Names whose values it uses.
+     * @param checked  Names it only tests for presence.
+     */
+    record Reads(List<String> resolved, List<String> checked) {
+
+        Reads union(Reads other) {
+            if (resolved.containsAll(other.resolved) && checked.containsAll(other.checked)) {
+                return this;
+            }
+            Set<String> allResolved = new LinkedHashSet<>(resolved);
+            allResolved.addAll(other.resolved);
+            Set<String> allChecked = new LinkedHashSet<>(checked);
+            allChecked.addAll(other.checked);
+            return new Reads(List.copyOf(allResolved), List.copyOf(allChecked));
+        }
+    }
+
+    /**
+     * Identifies one rendering of a fragment. Fragments are compared by identity, everything else
+     * by value.
+     *
+     * @param fragment  The {@code {{#each}}} node or component definition.
+     * @param depth     The component depth it rendered at, which decides where recursion stops.
+     * @param arguments The rendered component arguments in scope, if any.
+     * @param values    The value of each of {@code reads.resolved()}, in order.
+     * @param presence  Whether each of {@code reads.checked()} was defined, in order.
+     */
+    record Key(Object fragment, int depth, List<String> arguments, Reads reads,
+               List<Object> values, List<Boolean> presence) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other
+                    && fragment == other.fragment
+                    && depth == other.depth
+                    && arguments.equals(other.arguments)
+                    && reads.equals(other.reads)
+                    && values.equals(other.values)
+                    && presence.equals(other.presence);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(fragment), depth, arguments, values, presence);
+        }
+    }
+
+    private record FragmentId(Object fragment) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FragmentId other && fragment == other.fragment;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(fragment);
+        }
+    }
+}
@@ -22,7 +22,7 @@ import au.ellie.hyui.HyUIPlugin;
 import au.ellie.hyui.builders.LabelBuilder;
 import au.ellie.hyui.builders.InterfaceBuilder;
 import au.ellie.hyui.builders.UIElementBuilder;
-import au.ellie.hyui.html.handlers.*;
+import au.ellie.hyui.utils.LruCache;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -31,41 +31,70 @@ import org.jsoup.nodes.TextNode;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A modular parser that converts HTML/XML-like language to HyUI builders.
  */
 public class HtmlParser {
-    private final List<TagHandler> handlers = new ArrayList<>();
+    private static final int PROTOTYPE_CACHE_SIZE = 128;
+    // Parsed element trees by processed HTML, only ever handed out as copies.
+    private static final LruCache<String, List<UIElementBuilder<?>>> PROTOTYPES = new LruCache<>(PROTOTYPE_CACHE_SIZE);
+    // Larger pages are parsed every time, so a few of them can't hold on to most of the heap.
+    static final int MAX_CACHED_HTML_LENGTH = 64 * 1024;
+
+    private TagHandlerRegistry handlers;
     private TemplateProcessor templateProcessor;
-    
+    private boolean cacheEnabled = true;
+    // Reused across parse calls so template output is streamed into one buffer.
+    private final StringBuilder renderBuffer = new StringBuilder();
+
     public HtmlParser() {
-        // Register default handlers
-        registerHandler(new ItemGridHandler());
-        registerHandler(new TabContentHandler());
-        registerHandler(new DivHandler());
-        registerHandler(new LabelHandler());
-        registerHandler(new InputHandler());
-        registerHandler(new TextAreaHandler());
-        registerHandler(new ButtonHandler());
-        registerHandler(new ImgHandler());
-        registerHandler(new HyvatarHandler());
-        registerHandler(new ProgressBarHandler());
-        registerHandler(new ItemIconHandler());
-        registerHandler(new ItemSlotHandler());
-        registerHandler(new SelectHandler());
-        registerHandler(new SpriteHandler());
-        registerHandler(new TimerHandler());
-        registerHandler(new TabNavigationHandler());
+        this(TagHandlerRegistry.DEFAULT);
     }
 
     /**
-     * Registers a new tag handler.
+     * Creates a parser using the given handlers, e.g. a registry with custom handlers shared
+     * between parsers.
+     *
+     * @param handlers The tag handlers to use.
+     */
+    public HtmlParser(TagHandlerRegistry handlers) {
+        this.handlers = handlers;
+    }
+
+    /**
+     * Registers a new tag handler. It is asked before the default handlers, so it can override
+     * how a tag is handled.
      *
      * @param handler The handler to register.
      */
     public void registerHandler(TagHandler handler) {
-        handlers.add(handler);
+        handlers = handlers.withHandler(handler);
+    }
+
+    /**
+     * @return The tag handlers this parser uses.
+     */
+    public TagHandlerRegistry getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * Clears the parsed elements cached for every page.
+     */
+    public static void clearCache() {
+        PROTOTYPES.clear();
+    }
+
+    /**
+     * Sets whether this parser reads and fills the shared cache of parsed pages. Turn it off for
+     * HTML that is unlikely to be parsed again, such as a runtime template's latest output.
+     *
+     * @param cacheEnabled Whether parsed pages are cached.
+     */
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
     }
 
     /**
@@ -101,17 +130,47 @@ public class HtmlParser {
 
     /**
      * Parses the HTML string into a list of UIElementBuilders.
+     * <p>
+     * The elements parsed from each distinct (template processed) HTML are cached, so parsing the
+     * same page again only copies them. Pages over 64K characters are not cached.
      *
      * @param html The HTML string to parse.
      * @return A list of UIElementBuilders.
      */
     public List<UIElementBuilder<?>> parse(String html) {
-        // Apply template processing if a processor is set
-        String processedHtml = html;
-        if (templateProcessor != null) {
-            processedHtml = templateProcessor.process(html);
-            HyUIPlugin.getLog().logFinest("Processed template: " + processedHtml);
+        String processedHtml = processTemplate(html);
+        // Subclasses and custom handlers may build different elements from the same HTML.
+        if (handlers != TagHandlerRegistry.DEFAULT || getClass() != HtmlParser.class
+                || !cacheEnabled || processedHtml.length() > MAX_CACHED_HTML_LENGTH) {
+            return parseDocument(processedHtml);
         }
+
+        List<UIElementBuilder<?>> prototypes = PROTOTYPES.computeIfAbsent(processedHtml, this::parseDocument);
+        List<UIElementBuilder<?>> builders = new ArrayList<>(prototypes.size());
+        for (UIElementBuilder<?> prototype : prototypes) {
+            builders.add(prototype.copy());
+        }
+        return builders;
+    }
+
+    /**
+     * Applies template processing if a processor is set.
+     *
+     * @param html The HTML string to process.
+     * @return The processed HTML.
+     */
+    String processTemplate(String html) {
+        if (templateProcessor == null) {
+            return html;
+        }
+        renderBuffer.setLength(0);
+        templateProcessor.renderUnchecked(CompiledTemplate.of(html), Map.of(), renderBuffer);
+        String processedHtml = renderBuffer.toString();
+        HyUIPlugin.getLog().logFinest("Processed template: " + processedHtml);
+        return processedHtml;
+    }
+
+    List<UIElementBuilder<?>> parseDocument(String processedHtml) {
         Document doc = Jsoup.parseBodyFragment(processedHtml);
         new CssPreprocessor().process(doc);
         HyUIPlugin.getLog().logFinest("Document elements after preprocessing: " + doc.body().html());
@@ -148,11 +207,7 @@ public class HtmlParser {
     }
 
     public UIElementBuilder<?> handleElement(Element element) {
-        for (TagHandler handler : handlers) {
-            if (handler.canHandle(element)) {
-                return handler.handle(element, this);
-            }
-        }
-        return null;
+        TagHandler handler = handlers.find(element);
+        return handler != null ? handler.handle(element, this) : null;
     }
 }
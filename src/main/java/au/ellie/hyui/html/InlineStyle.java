@@ -0,0 +1,49 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.utils.LruCache;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A parsed {@code style} attribute. Parses are interned by their text, so every element with the
+ * same inline style shares one parse and one style, anchor and padding instance.
+ * <p>
+ * The shared instances are marked shared; builders copy them before changing them.
+ *
+ * @param declarations The declarations by property name, unmodifiable.
+ * @param parsed       The style, anchor and padding the declarations describe.
+ */
+record InlineStyle(Map<String, Object> declarations, TagHandler.ParsedStyles parsed) {
+
+    private static final LruCache<String, InlineStyle> CACHE = new LruCache<>(1024);
+
+    /**
+     * Gets the parse of a style attribute, parsing it only the first time its text is seen.
+     *
+     * @param styleText The attribute value.
+     * @param parser    Parses text that isn't cached yet.
+     * @return The shared parse.
+     */
+    static InlineStyle of(String styleText, Function<String, InlineStyle> parser) {
+        return CACHE.computeIfAbsent(styleText.strip(), parser);
+    }
+}
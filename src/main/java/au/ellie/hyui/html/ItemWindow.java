@@ -0,0 +1,164 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Picks the items a windowed {@code {{#each}}} renders ({@code where=}, {@code sort=},
+ * {@code offset=}, {@code limit=}) in one pass over the source.
+ * <p>
+ * Unsorted windows stop reading the source as soon as the window is full. Sorted windows with a
+ * limit keep only the best {@code offset + limit} items in a bounded heap instead of sorting
+ * everything. Sorting is stable, and items with no sort value go last.
+ */
+final class ItemWindow {
+
+    private ItemWindow() {
+    }
+
+    /**
+     * @param items      The source items, read once and never copied as a whole.
+     * @param filter     Items to keep, or null for all.
+     * @param sortKey    Reads an item's sort value, or null to keep the source order.
+     * @param descending Whether to sort highest first.
+     * @param offset     Number of matching items to skip.
+     * @param limit      Maximum number of items to return, {@link Integer#MAX_VALUE} for no limit.
+     * @return The selected items, in render order.
+     */
+    static List<?> select(Iterable<?> items,
+                          Predicate<Object> filter,
+                          Function<Object, Object> sortKey,
+                          boolean descending,
+                          int offset,
+                          int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (sortKey == null) {
+            return slice(items, filter, offset, limit);
+        }
+
+        Comparator<Ranked> order = (left, right) -> {
+            int compared = compareKeys(left.key(), right.key(), descending);
+            return compared != 0 ? compared : Integer.compare(left.index(), right.index());
+        };
+
+        long wanted = (long) offset + limit;
+        Ranked[] ranked;
+        if (wanted >= Integer.MAX_VALUE) {
+            List<Ranked> all = new ArrayList<>();
+            int index = 0;
+            for (Object item : items) {
+                if (filter == null || filter.test(item)) {
+                    all.add(new Ranked(sortValue(sortKey.apply(item)), index, item));
+                }
+                index++;
+            }
+            ranked = all.toArray(new Ranked[0]);
+        } else {
+            // Worst kept item on top, so each new item is compared against it once.
+            int capacity = (int) wanted;
+            PriorityQueue<Ranked> heap = new PriorityQueue<>(Math.min(capacity, 1024) + 1, order.reversed());
+            int index = 0;
+            for (Object item : items) {
+                if (filter == null || filter.test(item)) {
+                    Object key = sortValue(sortKey.apply(item));
+                    if (heap.size() < capacity) {
+                        heap.add(new Ranked(key, index, item));
+                    } else if (compareKeys(key, heap.peek().key(), descending) < 0) {
+                        // Ties never replace: the kept item came first.
+                        heap.poll();
+                        heap.add(new Ranked(key, index, item));
+                    }
+                }
+                index++;
+            }
+            ranked = heap.toArray(new Ranked[0]);
+        }
+
+        Arrays.sort(ranked, order);
+        int end = (int) Math.min(ranked.length, wanted);
+        List<Object> window = new ArrayList<>(Math.max(0, end - offset));
+        for (int i = offset; i < end; i++) {
+            window.add(ranked[i].item());
+        }
+        return window;
+    }
+
+    private static List<?> slice(Iterable<?> items, Predicate<Object> filter, int offset, int limit) {
+        if (filter == null && items instanceof List<?> list) {
+            int from = Math.min(offset, list.size());
+            int to = (int) Math.min(list.size(), (long) from + limit);
+            return list.subList(from, to);
+        }
+
+        List<Object> window = new ArrayList<>(Math.min(limit, 64));
+        int skipped = 0;
+        for (Object item : items) {
+            if (filter != null && !filter.test(item)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            window.add(item);
+            if (window.size() >= limit) {
+                break;
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Numbers (including numeric strings) sort numerically, everything else by its text.
+     */
+    private static Object sortValue(Object value) {
+        if (value == null || value instanceof String text && text.isEmpty()) {
+            return null;
+        }
+        Double number = ConditionExpression.toNumber(value);
+        return number != null ? number : String.valueOf(value);
+    }
+
+    private static int compareKeys(Object left, Object right, boolean descending) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : 1) : -1;
+        }
+        int compared;
+        if (left instanceof Double leftNumber && right instanceof Double rightNumber) {
+            compared = Double.compare(leftNumber, rightNumber);
+        } else if (left instanceof Double || right instanceof Double) {
+            // Numbers before text.
+            compared = left instanceof Double ? -1 : 1;
+        } else {
+            compared = ((String) left).compareTo((String) right);
+        }
+        return descending ? -compared : compared;
+    }
+
+    private record Ranked(Object key, int index, Object item) {}
+}
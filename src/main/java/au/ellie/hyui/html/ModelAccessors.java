@@ -0,0 +1,187 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-class property accessors used to bind template models.
+ * <p>
+ * Fields, {@code getX()}/{@code isX()} getters and record components are looked up once per class
+ * and turned into {@link MethodHandle}s, so binding many items of the same class only pays for
+ * reflection the first time.
+ */
+final class ModelAccessors {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<ModelAccessors> CACHE = new ClassValue<>() {
+        @Override
+        protected ModelAccessors computeValue(Class<?> type) {
+            return new ModelAccessors(type);
+        }
+    };
+
+    private final List<Property> properties;
+    private final Map<String, Property> byName;
+
+    private ModelAccessors(Class<?> type) {
+        Map<String, Property> found = new HashMap<>();
+        List<Property> ordered = new ArrayList<>();
+
+        // Same precedence the template processor has always used:
+        // public fields, public getters, record components, then declared fields and getters.
+        for (Field field : type.getFields()) {
+            addField(field, found, ordered);
+        }
+        addGetters(type.getMethods(), found, ordered);
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                add(component.getName(), component.getAccessor(), found, ordered);
+            }
+        }
+        for (Field field : type.getDeclaredFields()) {
+            if (!field.isSynthetic()) {
+                addField(field, found, ordered);
+            }
+        }
+        addGetters(type.getDeclaredMethods(), found, ordered);
+
+        this.properties = List.copyOf(ordered);
+        this.byName = found;
+    }
+
+    /**
+     * @param type The model class.
+     * @return The cached accessors for the class.
+     */
+    static ModelAccessors forClass(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    /**
+     * @return All readable properties, in precedence order.
+     */
+    List<Property> properties() {
+        return properties;
+    }
+
+    /**
+     * @param name The property name.
+     * @return The property, or null if the class has no readable property with that name.
+     */
+    Property find(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * A readable property of a model class.
+     *
+     * @param name   The property name as used in templates.
+     * @param handle A getter of type {@code (Object)Object}.
+     */
+    record Property(String name, MethodHandle handle) {
+
+        /**
+         * Reads the property, returning {@code fallback} if the underlying getter throws.
+         */
+        Object read(Object target, Object fallback) {
+            try {
+                return (Object) handle.invokeExact(target);
+            } catch (Throwable ignored) {
+                return fallback;
+            }
+        }
+    }
+
+    private static void addField(Field field, Map<String, Property> found, List<Property> ordered) {
+        if (found.containsKey(field.getName())) {
+            return;
+        }
+        try {
+            field.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectGetter(field);
+            if (Modifier.isStatic(field.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            put(field.getName(), handle, found, ordered);
+        } catch (RuntimeException | IllegalAccessException ignored) {
+            // For whatever reason we can't access it, ignore the field.
+        }
+    }
+
+    private static void addGetters(Method[] methods, Map<String, Property> found, List<Property> ordered) {
+        // getX() wins over isX() when both exist.
+        for (Method method : methods) {
+            String name = method.getName();
+            if (name.startsWith("get") && name.length() > 3 && !name.equals("getClass")) {
+                add(decapitalize(name.substring(3)), method, found, ordered);
+            }
+        }
+        for (Method method : methods) {
+            String name = method.getName();
+            if (name.startsWith("is") && name.length() > 2) {
+                add(decapitalize(name.substring(2)), method, found, ordered);
+            }
+        }
+    }
+
+    private static void add(String name, Method method, Map<String, Property> found, List<Property> ordered) {
+        if (method.getParameterCount() != 0 || method.getReturnType() == void.class || found.containsKey(name)) {
+            return;
+        }
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            put(name, handle, found, ordered);
+        } catch (RuntimeException | IllegalAccessException ignored) {
+            // For whatever reason we can't access it, ignore the method.
+        }
+    }
+
+    private static void put(String name, MethodHandle handle, Map<String, Property> found, List<Property> ordered) {
+        Property property = new Property(name, handle.asType(GETTER_TYPE));
+        found.put(name, property);
+        ordered.add(property);
+    }
+
+    static String decapitalize(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        if (value.length() > 1 && Character.isUpperCase(value.charAt(0)) && Character.isUpperCase(value.charAt(1))) {
+            return value;
+        }
+        return Character.toLowerCase(value.charAt(0)) + value.substring(1);
+    }
+}
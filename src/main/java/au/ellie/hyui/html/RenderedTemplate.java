@@ -0,0 +1,193 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The output of a template rendered with dependency tracking.
+ * <p>
+ * Every top-level block of the template ({@code {{$var}}}, {@code {{#if}}}, {@code {{#each}}},
+ * {@code {{&#64;component}}}) is rendered separately, remembering the variables and runtime values it
+ * read. {@link TemplateProcessor#refresh} then only re-renders the blocks whose inputs changed.
+ * <p>
+ * Instances are mutable and not thread-safe; each page keeps its own.
+ */
+public final class RenderedTemplate {
+
+    final CompiledTemplate template;
+    final TemplateProcessor processor;
+    long processorVersion;
+    final String[] chunks;
+    final Region[] regions;
+    private String output;
+
+    RenderedTemplate(CompiledTemplate template, TemplateProcessor processor, long processorVersion) {
+        this.template = template;
+        this.processor = processor;
+        this.processorVersion = processorVersion;
+        int size = template.getNodes().size();
+        this.chunks = new String[size];
+        this.regions = new Region[size];
+    }
+
+    /**
+     * @return The compiled template this output was rendered from.
+     */
+    public CompiledTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return The processor that rendered this template.
+     */
+    public TemplateProcessor getProcessor() {
+        return processor;
+    }
+
+    /**
+     * @return The full rendered output.
+     */
+    public String getOutput() {
+        if (output == null) {
+            StringBuilder builder = new StringBuilder(template.getSource().length());
+            for (String chunk : chunks) {
+                builder.append(chunk);
+            }
+            output = builder.toString();
+        }
+        return output;
+    }
+
+    /**
+     * @return Every variable and runtime value name read by the last render.
+     */
+    public Set<String> getDependencies() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Region region : regions) {
+            if (region != null) {
+                names.addAll(region.names());
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    void invalidateOutput() {
+        output = null;
+    }
+
+    /**
+     * What one top-level block read while rendering.
+     *
+     * @param names    Every variable or runtime value name looked up.
+     * @param observed The runtime values seen, by name, to detect changes on refresh.
+     * @param live     Whether a {@link java.util.function.Supplier} was read, so the block must always re-render.
+     */
+    record Region(Set<String> names, Map<String, Optional<Object>> observed, boolean live) {
+
+        boolean isAffected(TemplateProcessor.ValueResolver resolver, Set<String> changedNames) {
+            if (live) {
+                return true;
+            }
+            if (changedNames != null) {
+                for (String name : changedNames) {
+                    if (names.contains(name)) {
+                        return true;
+                    }
+                }
+            }
+            for (Map.Entry<String, Optional<Object>> entry : observed.entrySet()) {
+                Optional<Object> current = resolver != null ? resolver.resolve(entry.getKey()) : Optional.empty();
+                if (!entry.getValue().equals(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Collects what a block reads while it renders. A tracker nested inside another (such as a
+     * cached fragment inside a tracked block) passes everything it sees on to its parent.
+     */
+    static final class Tracker {
+        final Tracker parent;
+        // Names whose values were used, and names only tested for presence, in the order first read.
+        final Set<String> resolved = new LinkedHashSet<>();
+        final Set<String> checked = new LinkedHashSet<>();
+        final Map<String, Optional<Object>> observed = new HashMap<>();
+        boolean live;
+
+        Tracker() {
+            this(null);
+        }
+
+        Tracker(Tracker parent) {
+            this.parent = parent;
+        }
+
+        void resolved(String name) {
+            for (Tracker tracker = this; tracker != null; tracker = tracker.parent) {
+                tracker.resolved.add(name);
+            }
+        }
+
+        void checked(String name) {
+            for (Tracker tracker = this; tracker != null; tracker = tracker.parent) {
+                tracker.checked.add(name);
+            }
+        }
+
+        void observed(String name, Optional<Object> value) {
+            for (Tracker tracker = this; tracker != null; tracker = tracker.parent) {
+                tracker.observed.putIfAbsent(name, value);
+            }
+        }
+
+        void markLive() {
+            for (Tracker tracker = this; tracker != null; tracker = tracker.parent) {
+                tracker.live = true;
+            }
+        }
+
+        /**
+         * Adds everything another tracker saw, e.g. one used by a parallel {@code {{#each}}} chunk.
+         */
+        void addAll(Tracker other) {
+            for (Tracker tracker = this; tracker != null; tracker = tracker.parent) {
+                tracker.resolved.addAll(other.resolved);
+                tracker.checked.addAll(other.checked);
+                other.observed.forEach(tracker.observed::putIfAbsent);
+                tracker.live |= other.live;
+            }
+        }
+
+        Region toRegion() {
+            Set<String> names = new HashSet<>(resolved);
+            names.addAll(checked);
+            return new Region(Set.copyOf(names), Map.copyOf(observed), live);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import java.util.Map;
+
+/**
+ * A variable scope used while rendering a template.
+ * <p>
+ * Scopes are immutable frames chained to a parent. A {@code {{#each}}} iteration adds one small
+ * frame for its item instead of copying every variable, and lookups fall back to the parent
+ * frame when a name is not found.
+ */
+final class Scope {
+
+    /**
+     * Returned by {@link #find} when no frame defines a name.
+     */
+    static final Object MISSING = new Object();
+
+    /**
+     * Stands in for a null variable value in maps that can't hold nulls.
+     */
+    static final Object NULL = new Object();
+
+    private static final String ITEM = "item";
+
+    private final Scope parent;
+    private final Map<String, ?> values;
+    private final boolean itemFrame;
+    private final Object item;
+    private final ModelAccessors accessors;
+
+    private Scope(Scope parent, Map<String, ?> values, boolean itemFrame, Object item, ModelAccessors accessors) {
+        this.parent = parent;
+        this.values = values;
+        this.itemFrame = itemFrame;
+        this.item = item;
+        this.accessors = accessors;
+    }
+
+    /**
+     * Creates a root scope backed by the given variables. The map is not copied.
+     */
+    static Scope of(Map<String, ?> variables) {
+        return new Scope(null, variables, false, null, null);
+    }
+
+    /**
+     * @return A child scope whose variables take precedence over this one.
+     */
+    Scope withValues(Map<String, ?> variables) {
+        if (variables == null || variables.isEmpty()) {
+            return this;
+        }
+        return new Scope(this, variables, false, null, null);
+    }
+
+    /**
+     * @return A child scope for one {@code {{#each}}} item, exposing {@code item} and the item's
+     * map entries or properties.
+     */
+    Scope withItem(Object item) {
+        if (item instanceof Map<?, ?> map) {
+            @SuppressWarnings("unchecked")
+            Map<String, ?> entries = (Map<String, ?>) map;
+            return new Scope(this, entries, true, item, null);
+        }
+        ModelAccessors accessors = item != null ? ModelAccessors.forClass(item.getClass()) : null;
+        return new Scope(this, null, true, item, accessors);
+    }
+
+    /**
+     * @return Whether any frame defines the name, without reading model properties.
+     */
+    boolean contains(String name) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            if (scope.itemFrame && ITEM.equals(name)) {
+                return true;
+            }
+            if (scope.values != null && lookup(scope.values, name) != MISSING) {
+                return true;
+            }
+            if (scope.accessors != null && scope.accessors.find(name) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The raw value of the nearest frame defining the name (possibly a {@code Supplier}),
+     * or {@link #MISSING}.
+     */
+    Object find(String name) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            if (scope.itemFrame && ITEM.equals(name)) {
+                return scope.item;
+            }
+            if (scope.values != null) {
+                Object value = lookup(scope.values, name);
+                if (value != MISSING) {
+                    return value == NULL ? null : value;
+                }
+            }
+            if (scope.accessors != null) {
+                ModelAccessors.Property property = scope.accessors.find(name);
+                if (property != null) {
+                    return property.read(scope.item, "");
+                }
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Looks a name up in a map whose keys may not be strings. Item maps are used as they are, and
+     * a {@code TreeMap} of numbers, for one, throws when asked for a string key.
+     *
+     * @return The value, or {@link #MISSING} if the map has no such key.
+     */
+    static Object lookup(Map<?, ?> map, String name) {
+        try {
+            Object value = map.get(name);
+            return value != null || map.containsKey(name) ? value : MISSING;
+        } catch (ClassCastException e) {
+            return MISSING;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.HyUIPlugin;
+import au.ellie.hyui.builders.UIElementBuilder;
+import au.ellie.hyui.html.handlers.DivHandler;
+import au.ellie.hyui.html.handlers.TabContentHandler;
+import au.ellie.hyui.html.handlers.TabNavigationHandler;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A parser for very large pages, such as long generated lists, that hands elements to the tag
+ * handlers while the HTML is still being read instead of building the whole document first.
+ * <p>
+ * Each element is styled and built as soon as its end tag is read, then replaced in the
+ * document by an empty placeholder. The document holds the elements still open plus one
+ * placeholder per finished child, rather than every finished element's subtree. The HTML
+ * itself, after template processing, is still held in full while parsing. The resulting
+ * builders are the same as {@link HtmlParser} would produce.
+ * <p>
+ * Elements are only built early inside plain containers ({@code div}s and tab contents) and at
+ * the top level; anything else is built with its parent. Tab navigation and tab contents, which
+ * refer to each other by id, are built once the common parent has been read. Pages whose
+ * stylesheets use pseudo-classes or sibling combinators can't be styled before the rest of the
+ * page is known and are parsed as a whole document instead.
+ * <p>
+ * Parsed pages are not cached.
+ */
+public class StreamingHtmlParser extends HtmlParser {
+
+    private static final Pattern STYLE_BLOCK = Pattern.compile(
+            "<style\\b[^>]*>(.*?)</style\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final String PLACEHOLDER_TAG = "hyui-built";
+
+    // Builders of the elements already built, by the placeholder left in their place.
+    private final Map<Element, UIElementBuilder<?>> built = new IdentityHashMap<>();
+
+    public StreamingHtmlParser() {
+    }
+
+    /**
+     * Creates a parser using the given handlers.
+     *
+     * @param handlers The tag handlers to use.
+     */
+    public StreamingHtmlParser(TagHandlerRegistry handlers) {
+        super(handlers);
+    }
+
+    @Override
+    public List<UIElementBuilder<?>> parse(String html) {
+        String processedHtml = processTemplate(html);
+        List<Stylesheet> stylesheets = CssPreprocessor.getStylesheets(findStyles(processedHtml));
+        for (Stylesheet stylesheet : stylesheets) {
+            if (!stylesheet.isIncremental()) {
+                HyUIPlugin.getLog().logFinest("Stylesheet needs the whole document, parsing without streaming");
+                return parseDocument(processedHtml);
+            }
+        }
+
+        try {
+            return stream(processedHtml, stylesheets);
+        } finally {
+            built.clear();
+        }
+    }
+
+    @Override
+    public UIElementBuilder<?> handleElement(Element element) {
+        UIElementBuilder<?> builder = built.remove(element);
+        return builder != null ? builder : super.handleElement(element);
+    }
+
+    private List<UIElementBuilder<?>> stream(String html, List<Stylesheet> stylesheets) {
+        // Open elements holding tab navigation or tab contents, built with the whole page.
+        Set<Element> deferred = Collections.newSetFromMap(new IdentityHashMap<>());
+        Element body = null;
+
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser())) {
+            Document doc = streamer.parse(html, "").document();
+            Iterator<Element> elements = streamer.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                if (element.normalName().equals("style")) {
+                    element.remove();
+                    continue;
+                }
+                if (body == null) {
+                    body = doc.body();
+                    if (body == null) {
+                        continue;
+                    }
+                    CssPreprocessor.applyDefinitions(stylesheets, body);
+                }
+                if (!isInside(element, body)) {
+                    continue;
+                }
+
+                CssPreprocessor.processIncrementally(element, stylesheets);
+                TagHandler handler = getHandlers().find(element);
+                if (handler instanceof TabNavigationHandler || handler instanceof TabContentHandler) {
+                    // These look each other up by id, so they must not be built before both are read.
+                    Element parent = element.parent();
+                    while (parent != null && deferred.add(parent)) {
+                        parent = parent.parent();
+                    }
+                    continue;
+                }
+                if (deferred.remove(element) || !canBuildEarly(element, body)) {
+                    continue;
+                }
+
+                UIElementBuilder<?> builder = handler != null ? handler.handle(element, this) : null;
+                if (builder == null) {
+                    element.remove();
+                } else {
+                    Element placeholder = new Element(PLACEHOLDER_TAG);
+                    element.replaceWith(placeholder);
+                    built.put(placeholder, builder);
+                }
+            }
+            return body != null ? parseChildren(body) : List.of();
+        }
+    }
+
+    /**
+     * Whether the element's parent builds its children with {@link #handleElement}, so the child
+     * can be built before the parent is read.
+     */
+    private boolean canBuildEarly(Element element, Element body) {
+        if (element.hasClass("container-title") || element.hasClass("container-contents")) {
+            return false;
+        }
+        Element parent = element.parent();
+        if (parent == body) {
+            return true;
+        }
+        if (parent == null) {
+            return false;
+        }
+        TagHandler parentHandler = getHandlers().find(parent);
+        return parentHandler instanceof DivHandler || parentHandler instanceof TabContentHandler;
+    }
+
+    private static boolean isInside(Element element, Element ancestor) {
+        for (Element parent = element.parent(); parent != null; parent = parent.parent()) {
+            if (parent == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the page's style blocks up front, since they apply to elements read before them.
+     *
+     * @return The style text, or null if the page has none.
+     */
+    private static String findStyles(String html) {
+        Matcher matcher = STYLE_BLOCK.matcher(html);
+        if (!matcher.find()) {
+            return null;
+        }
+        String first = matcher.group(1);
+        if (!matcher.find()) {
+            return first;
+        }
+        StringBuilder combined = new StringBuilder(first).append('\n');
+        do {
+            combined.append(matcher.group(1)).append('\n');
+        } while (matcher.find());
+        return combined.toString();
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.utils.LruCache;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The rules of a HyUIML {@code <style>} block, parsed once and shared by every page using the same
+ * style text (see {@link #of(String)}).
+ * <p>
+ * Rules are indexed by the id, class or tag their selector requires, so an element is only
+ * checked against the rules that could match it. Selectors with combinators or {@code :has},
+ * {@code :is} and {@code :not} are matched against the whole document instead.
+ * <p>
+ * Stylesheets whose selectors only use descendant and child combinators and no pseudo-classes
+ * can also be matched while the document is still being parsed (see {@link #isIncremental()}).
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class Stylesheet {
+
+    private static final Pattern COMMENTS = Pattern.compile("//.*|/\\*([\\s\\S]*?)\\*/");
+    // Handles multi-line rules and different brace placements.
+    private static final Pattern RULE = Pattern.compile("(?s)\\s*([^{]+)\\s*\\{\\s*([^}]+)\\s*\\}");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String HOVER = ":hover";
+
+    private static final LruCache<String, Stylesheet> CACHE = new LruCache<>(64);
+
+    private final Map<String, String> definitions;
+    private final Map<String, List<Rule>> byId = new HashMap<>();
+    private final Map<String, List<Rule>> byClass = new HashMap<>();
+    private final Map<String, List<Rule>> byTag = new HashMap<>();
+    private final List<Rule> unindexed = new ArrayList<>();
+    private final List<Rule> structural = new ArrayList<>();
+    private final Map<Rule, Chain> chains = new IdentityHashMap<>();
+    private boolean incremental = true;
+
+    private Stylesheet(Map<String, String> definitions, List<Rule> rules) {
+        this.definitions = Collections.unmodifiableMap(definitions);
+        for (Rule rule : rules) {
+            index(rule);
+        }
+    }
+
+    /**
+     * Gets the stylesheet for the given style text, parsing it only the first time it is seen.
+     *
+     * @param css The contents of a {@code <style>} block.
+     * @return The shared stylesheet.
+     */
+    public static Stylesheet of(String css) {
+        return CACHE.computeIfAbsent(css, Stylesheet::parse);
+    }
+
+    /**
+     * Parses style text into a new stylesheet without caching it. Rules with invalid selectors
+     * are skipped.
+     *
+     * @param css The contents of a {@code <style>} block.
+     * @return The parsed stylesheet.
+     */
+    public static Stylesheet parse(String css) {
+        css = COMMENTS.matcher(css).replaceAll("");
+
+        // Rules for the same selector are merged, later properties after earlier ones.
+        Map<String, String> properties = new LinkedHashMap<>();
+        Matcher matcher = RULE.matcher(css);
+        while (matcher.find()) {
+            String normalizedProperties = WHITESPACE.matcher(matcher.group(2).trim()).replaceAll(" ").trim();
+            for (String selector : matcher.group(1).trim().split(",")) {
+                selector = selector.trim();
+                if (!selector.isEmpty()) {
+                    properties.merge(selector, normalizedProperties, Stylesheet::appendProperties);
+                }
+            }
+        }
+
+        Map<String, String> definitions = new LinkedHashMap<>();
+        List<Rule> rules = new ArrayList<>();
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            String selector = entry.getKey();
+            if (selector.startsWith("@")) {
+                String name = selector.substring(1).trim();
+                if (!name.isEmpty()) {
+                    definitions.put(name, entry.getValue());
+                }
+                continue;
+            }
+
+            boolean hover = selector.endsWith(HOVER);
+            String query = hover ? selector.substring(0, selector.length() - HOVER.length()) : selector;
+            if (query.isEmpty()) {
+                query = "*";
+            }
+            try {
+                rules.add(new Rule(rules.size(), query, QueryParser.parse(query), entry.getValue(), hover));
+            } catch (RuntimeException ignored) {
+                // Ignore invalid selectors
+            }
+        }
+        return new Stylesheet(definitions, rules);
+    }
+
+    /**
+     * @return The named style definitions ({@code @name { ... }}) by name.
+     */
+    public Map<String, String> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * Finds the rules matching the element, in the order they appear in the style text.
+     *
+     * @param element           The element to match.
+     * @param structuralMatches This stylesheet's structural rule matches for the document, from
+     *                          {@link #matchStructural(Element)}.
+     * @param matches           Receives the matching rules.
+     */
+    void match(Element element, Map<Element, List<Rule>> structuralMatches, List<Rule> matches) {
+        int start = matches.size();
+        matchIndexed(element, matches);
+        List<Rule> structuralRules = structuralMatches.get(element);
+        if (structuralRules != null) {
+            matches.addAll(structuralRules);
+        }
+        sortMatches(matches, start);
+    }
+
+    /**
+     * @return Whether the rules can be matched by {@link #matchIncrementally}, looking only at an
+     * element and its ancestors.
+     */
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Finds the rules matching the element while the document is still being parsed, so only the
+     * element and its ancestors need to exist. Only valid if {@link #isIncremental()}.
+     *
+     * @param element The element to match.
+     * @param matches Receives the matching rules.
+     */
+    void matchIncrementally(Element element, List<Rule> matches) {
+        int start = matches.size();
+        matchIndexed(element, matches);
+        for (Rule rule : structural) {
+            if (chains.get(rule).matches(element)) {
+                matches.add(rule);
+            }
+        }
+        sortMatches(matches, start);
+    }
+
+    private void matchIndexed(Element element, List<Rule> matches) {
+        String id = element.id();
+        if (!id.isEmpty()) {
+            addMatches(element, byId.get(id), matches);
+        }
+        if (!byClass.isEmpty()) {
+            for (String className : element.classNames()) {
+                addMatches(element, byClass.get(className.toLowerCase(Locale.ROOT)), matches);
+            }
+        }
+        addMatches(element, byTag.get(element.normalName()), matches);
+        addMatches(element, unindexed, matches);
+    }
+
+    private static void sortMatches(List<Rule> matches, int start) {
+        List<Rule> found = matches.subList(start, matches.size());
+        if (found.size() > 1) {
+            found.sort(null);
+            // An element with a repeated class name finds that class's rules twice.
+            for (int i = found.size() - 1; i > 0; i--) {
+                if (found.get(i) == found.get(i - 1)) {
+                    found.remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches the rules that can't be looked up by id, class or tag, once for the whole document.
+     *
+     * @param root The document root.
+     * @return The structural rules matching each element.
+     */
+    Map<Element, List<Rule>> matchStructural(Element root) {
+        if (structural.isEmpty()) {
+            return Map.of();
+        }
+        Map<Element, List<Rule>> matches = new IdentityHashMap<>();
+        for (Rule rule : structural) {
+            for (Element element : root.select(rule.evaluator())) {
+                matches.computeIfAbsent(element, key -> new ArrayList<>(2)).add(rule);
+            }
+        }
+        return matches;
+    }
+
+    private static void addMatches(Element element, List<Rule> candidates, List<Rule> matches) {
+        if (candidates == null) {
+            return;
+        }
+        for (Rule rule : candidates) {
+            if (element.is(rule.evaluator())) {
+                matches.add(rule);
+            }
+        }
+    }
+
+    static String appendProperties(String existing, String properties) {
+        if (existing.isEmpty()) {
+            return properties;
+        }
+        return existing.endsWith(";") ? existing + properties : existing + ";" + properties;
+    }
+
+    /**
+     * Files the rule under the id, class or tag of its selector's last compound selector, which
+     * every matching element must have.
+     */
+    private void index(Rule rule) {
+        String selector = rule.selector();
+        Chain chain = Chain.of(selector);
+        if (chain == null) {
+            incremental = false;
+        }
+        int compoundStart = 0;
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"', '\'' -> quote = c;
+                case '[', '(' -> depth++;
+                case ']', ')' -> depth--;
+                case ' ', '\t', '\n', '\r', '\f', '>', '+', '~' -> {
+                    if (depth == 0) {
+                        compoundStart = i + 1;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        // Matching these walks other elements, so they are matched once per document.
+        String lower = selector.toLowerCase(Locale.ROOT);
+        if (compoundStart > 0 || lower.contains(":has(") || lower.contains(":is(") || lower.contains(":not(")) {
+            structural.add(rule);
+            if (chain != null) {
+                chains.put(rule, chain);
+            }
+            return;
+        }
+
+        String tag = null;
+        String className = null;
+        depth = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[' || c == '(') {
+                depth++;
+            } else if (c == ']' || c == ')') {
+                depth--;
+            } else if (depth == 0 && c == '\\') {
+                // Escaped names aren't worth decoding here.
+                unindexed.add(rule);
+                return;
+            } else if (depth == 0 && (c == '#' || c == '.' || i == 0 && isNameChar(c))) {
+                int nameStart = c == '#' || c == '.' ? i + 1 : i;
+                int nameEnd = nameStart;
+                while (nameEnd < selector.length() && isNameChar(selector.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                String name = selector.substring(nameStart, nameEnd);
+                if (c == '#' && !name.isEmpty()) {
+                    byId.computeIfAbsent(name, key -> new ArrayList<>()).add(rule);
+                    return;
+                }
+                if (c == '.' && className == null && !name.isEmpty()) {
+                    className = name.toLowerCase(Locale.ROOT);
+                } else if (i == 0 && (nameEnd >= selector.length() || selector.charAt(nameEnd) != '|')) {
+                    tag = name.toLowerCase(Locale.ROOT);
+                }
+                i = nameEnd - 1;
+            }
+        }
+
+        if (className != null) {
+            byClass.computeIfAbsent(className, key -> new ArrayList<>()).add(rule);
+        } else if (tag != null) {
+            byTag.computeIfAbsent(tag, key -> new ArrayList<>()).add(rule);
+        } else {
+            unindexed.add(rule);
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+
+    /**
+     * A selector made of compound selectors joined by descendant or child combinators, matched
+     * from the element up through its ancestors.
+     *
+     * @param compounds   The compound selectors, outermost first.
+     * @param combinators The combinator after each compound but the last, {@code ' '} or {@code '>'}.
+     */
+    private record Chain(Evaluator[] compounds, char[] combinators) {
+
+        /**
+         * @return The chain, or null if the selector uses pseudo-classes or sibling combinators.
+         */
+        static Chain of(String selector) {
+            List<String> compounds = new ArrayList<>();
+            StringBuilder combinators = new StringBuilder();
+            StringBuilder compound = new StringBuilder();
+            char combinator = ' ';
+            int depth = 0;
+            char quote = 0;
+            for (int i = 0; i < selector.length(); i++) {
+                char c = selector.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '[' || c == '(') {
+                    depth++;
+                } else if (c == ']' || c == ')') {
+                    depth--;
+                } else if (depth == 0) {
+                    if (c == ':' || c == '+' || c == '~') {
+                        return null;
+                    }
+                    if (c == '>' || Character.isWhitespace(c)) {
+                        if (!compound.isEmpty()) {
+                            compounds.add(compound.toString());
+                            compound.setLength(0);
+                            combinator = ' ';
+                        }
+                        if (c == '>') {
+                            if (compounds.isEmpty()) {
+                                return null;
+                            }
+                            combinator = '>';
+                        }
+                        continue;
+                    }
+                    if (c == '\\' && i + 1 < selector.length()) {
+                        startCompound(compound, compounds, combinators, combinator);
+                        compound.append(c);
+                        c = selector.charAt(++i);
+                    }
+                }
+                startCompound(compound, compounds, combinators, combinator);
+                compound.append(c);
+            }
+            if (compound.isEmpty()) {
+                return null;
+            }
+            compounds.add(compound.toString());
+
+            Evaluator[] evaluators = new Evaluator[compounds.size()];
+            try {
+                for (int i = 0; i < evaluators.length; i++) {
+                    evaluators[i] = QueryParser.parse(compounds.get(i));
+                }
+            } catch (RuntimeException e) {
+                return null;
+            }
+            return new Chain(evaluators, combinators.toString().toCharArray());
+        }
+
+        private static void startCompound(StringBuilder compound, List<String> compounds,
+                                          StringBuilder combinators, char combinator) {
+            if (compound.isEmpty() && !compounds.isEmpty()) {
+                combinators.append(combinator);
+            }
+        }
+
+        boolean matches(Element element) {
+            return matches(element, compounds.length - 1);
+        }
+
+        private boolean matches(Element element, int index) {
+            if (!element.is(compounds[index])) {
+                return false;
+            }
+            if (index == 0) {
+                return true;
+            }
+            if (combinators[index - 1] == '>') {
+                Element parent = element.parent();
+                return parent != null && matches(parent, index - 1);
+            }
+            for (Element ancestor = element.parent(); ancestor != null; ancestor = ancestor.parent()) {
+                if (matches(ancestor, index - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * One selector of a stylesheet.
+     *
+     * @param order      The rule's position in the stylesheet.
+     * @param selector   The selector, without {@code :hover}.
+     * @param evaluator  The compiled selector.
+     * @param properties The declarations, e.g. {@code color: #fff; font-size: 12}.
+     * @param hover      Whether the rule only applies on hover.
+     */
+    record Rule(int order, String selector, Evaluator evaluator, String properties, boolean hover)
+            implements Comparable<Rule> {
+
+        @Override
+        public int compareTo(Rule other) {
+            return Integer.compare(order, other.order);
+        }
+    }
+}
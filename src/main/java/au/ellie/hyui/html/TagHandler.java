@@ -27,8 +27,10 @@ import au.ellie.hyui.utils.StyleUtils;
 import com.hypixel.hytale.server.core.Message;
 import org.jsoup.nodes.Element;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Interface for handling a specific HTML tag and converting it to a HyUI builder.
@@ -42,6 +44,16 @@ public interface TagHandler {
      */
     boolean canHandle(Element element);
 
+    /**
+     * The lower case tag names this handler can handle. The parser only asks a handler about
+     * elements with one of these tags; an empty set means it is asked about every element.
+     *
+     * @return The tag names, or an empty set for any tag.
+     */
+    default Set<String> getTagNames() {
+        return Set.of();
+    }
+
     /**
      * Handles the conversion of the HTML element to a UIElementBuilder.
      *
@@ -62,6 +74,10 @@ public interface TagHandler {
             builder.withId(element.attr("id"));
         }
 
+        if (element.hasAttr("data-hyui-key")) {
+            builder.withKey(element.attr("data-hyui-key"));
+        }
+
         if (element.hasAttr("data-hyui-tooltiptext")) {
             builder.withTooltipTextSpan(Message.raw(element.attr("data-hyui-tooltiptext")));
         }
@@ -73,13 +89,13 @@ public interface TagHandler {
         }
 
         if (element.hasAttr("style")) {
-            Map<String, Object> styles = parseStyleAttribute(element.attr("style"));
-            applyStyles(builder, styles);
+            applyStyles(builder, parseInlineStyle(element.attr("style")));
         }
 
         if (element.hasAttr("data-hyui-hover-style")) {
-            Map<String, Object> hoverStyles = parseStyleAttribute(element.attr("data-hyui-hover-style"));
-            ParsedStyles parsed = getStylesAnchorsPadding(hoverStyles, builder);
+            InlineStyle hoverStyle = parseInlineStyle(element.attr("data-hyui-hover-style"));
+            applyElementStyles(hoverStyle.declarations(), builder);
+            ParsedStyles parsed = hoverStyle.parsed();
             if (parsed.hasStyle) {
                 HyUIStyle currentStyle = builder.getHyUIStyle();
                 if (currentStyle == null) {
@@ -92,7 +108,7 @@ public interface TagHandler {
         }
 
         if (element.hasAttr("data-hyui-style")) {
-            Map<String, Object> rawStyles = parseStyleAttribute(element.attr("data-hyui-style"));
+            Map<String, Object> rawStyles = parseInlineStyle(element.attr("data-hyui-style")).declarations();
             if (!rawStyles.isEmpty()) {
                 HyUIStyle currentStyle = builder.getHyUIStyle();
                 if (currentStyle == null) {
@@ -164,8 +180,20 @@ public interface TagHandler {
         return styles;
     }
 
-    private void applyStyles(UIElementBuilder<?> builder, Map<String, Object> styles) {
-        ParsedStyles parsed = getStylesAnchorsPadding(styles, builder);
+    private InlineStyle parseInlineStyle(String styleAttr) {
+        return InlineStyle.of(styleAttr, text -> {
+            Map<String, Object> declarations = parseStyleAttribute(text);
+            ParsedStyles parsed = getStylesAnchorsPadding(declarations);
+            parsed.style.markShared();
+            parsed.anchor.markShared();
+            parsed.padding.markShared();
+            return new InlineStyle(Collections.unmodifiableMap(declarations), parsed);
+        });
+    }
+
+    private void applyStyles(UIElementBuilder<?> builder, InlineStyle inlineStyle) {
+        applyElementStyles(inlineStyle.declarations(), builder);
+        ParsedStyles parsed = inlineStyle.parsed();
         if (parsed.hasStyle) {
             builder.withStyle(parsed.style);
         }
@@ -186,7 +214,7 @@ public interface TagHandler {
         boolean hasPadding = false;
     }
 
-    private ParsedStyles getStylesAnchorsPadding(Map<String, Object> styles, UIElementBuilder<?> builder) {
+    private ParsedStyles getStylesAnchorsPadding(Map<String, Object> styles) {
         ParsedStyles parsed = new ParsedStyles();
 
         for (Map.Entry<String, Object> entry : styles.entrySet()) {
@@ -248,26 +276,6 @@ public interface TagHandler {
                     parsed.style.setOutlineColor(value);
                     parsed.hasStyle = true;
                     break;
-                case "layout-mode":
-                case "layout":
-                    if (builder instanceof LayoutModeSupported) {
-                        ((LayoutModeSupported<?>) builder).withLayoutMode(normalizeLayoutMode(value));
-                    }
-                    break;
-                case "flex-direction":
-                    // Map CSS flex-direction to Hytale LayoutMode
-                    // row = Left (horizontal), column = Top (vertical)
-                    if (builder instanceof LayoutModeSupported) {
-                        String layoutMode = switch (value.toLowerCase()) {
-                            case "row" -> "Left";
-                            case "row-reverse" -> "Right";
-                            case "column" -> "Top";
-                            case "column-reverse" -> "Bottom";
-                            default -> capitalize(value);
-                        };
-                        ((LayoutModeSupported<?>) builder).withLayoutMode(layoutMode);
-                    }
-                    break;
                 case "justify-content":
                     // Map CSS justify-content to horizontal alignment
                     String hAlign = switch (value.toLowerCase()) {
@@ -305,24 +313,6 @@ public interface TagHandler {
                     parsed.style.setAlignment(capitalize(value));
                     parsed.hasStyle = true;
                     break;
-                case "visibility":
-                    if (value.equalsIgnoreCase("hidden")) {
-                        builder.withVisible(false);
-                    } else if (value.equalsIgnoreCase("shown")) {
-                        builder.withVisible(true);
-                    }
-                    break;
-                case "display":
-                    if (value.equalsIgnoreCase("none")) {
-                        builder.withVisible(false);
-                    } else if (value.equalsIgnoreCase("block")) {
-                        builder.withVisible(true);
-                    }
-                    break;
-                case "flex-weight":
-                    ParseUtils.parseInt(value)
-                            .ifPresent(builder::withFlexWeight);
-                    break;
                 case "anchor-left":
                     ParseUtils.parseInt(value).ifPresent(v -> {
                         parsed.anchor.setLeft(v);
@@ -433,6 +423,68 @@ public interface TagHandler {
                         }
                     }
                     break;
+                case "hyui-style-reference":
+                    String[] styleParts = value.split("\\s+");
+                    if (styleParts.length == 1) {
+                        parsed.style.withStyleReference(styleParts[0].replace("\"", "").replace("'", ""));
+                        parsed.hasStyle = true;
+                    } else if (styleParts.length >= 2) {
+                        parsed.style.withStyleReference(
+                                styleParts[0].replace("\"", "").replace("'", ""),
+                                styleParts[1].replace("\"", "").replace("'", "")
+                        );
+                        parsed.hasStyle = true;
+                    }
+                    break;
+            }
+        }
+        return parsed;
+    }
+
+    private void applyElementStyles(Map<String, Object> styles, UIElementBuilder<?> builder) {
+        for (Map.Entry<String, Object> entry : styles.entrySet()) {
+            String key = entry.getKey();
+            String value = toStyleString(entry.getValue());
+
+            switch (key) {
+                case "layout-mode":
+                case "layout":
+                    if (builder instanceof LayoutModeSupported) {
+                        ((LayoutModeSupported<?>) builder).withLayoutMode(normalizeLayoutMode(value));
+                    }
+                    break;
+                case "flex-direction":
+                    // Map CSS flex-direction to Hytale LayoutMode
+                    // row = Left (horizontal), column = Top (vertical)
+                    if (builder instanceof LayoutModeSupported) {
+                        String layoutMode = switch (value.toLowerCase()) {
+                            case "row" -> "Left";
+                            case "row-reverse" -> "Right";
+                            case "column" -> "Top";
+                            case "column-reverse" -> "Bottom";
+                            default -> capitalize(value);
+                        };
+                        ((LayoutModeSupported<?>) builder).withLayoutMode(layoutMode);
+                    }
+                    break;
+                case "visibility":
+                    if (value.equalsIgnoreCase("hidden")) {
+                        builder.withVisible(false);
+                    } else if (value.equalsIgnoreCase("shown")) {
+                        builder.withVisible(true);
+                    }
+                    break;
+                case "display":
+                    if (value.equalsIgnoreCase("none")) {
+                        builder.withVisible(false);
+                    } else if (value.equalsIgnoreCase("block")) {
+                        builder.withVisible(true);
+                    }
+                    break;
+                case "flex-weight":
+                    ParseUtils.parseInt(value)
+                            .ifPresent(builder::withFlexWeight);
+                    break;
                 case "background-image":
                     if (builder instanceof BackgroundSupported) {
                         StyleUtils.BackgroundParts parts = StyleUtils.parseBackgroundParts(value, true);
@@ -463,19 +515,6 @@ public interface TagHandler {
                         }
                     }
                     break;
-                case "hyui-style-reference":
-                    String[] styleParts = value.split("\\s+");
-                    if (styleParts.length == 1) {
-                        parsed.style.withStyleReference(styleParts[0].replace("\"", "").replace("'", ""));
-                        parsed.hasStyle = true;
-                    } else if (styleParts.length >= 2) {
-                        parsed.style.withStyleReference(
-                                styleParts[0].replace("\"", "").replace("'", ""),
-                                styleParts[1].replace("\"", "").replace("'", "")
-                        );
-                        parsed.hasStyle = true;
-                    }
-                    break;
                 case "hyui-entry-label-style":
                     builder.withSecondaryStyle("EntryLabelStyle", parseStyleReference(value));
                     break;
@@ -496,7 +535,6 @@ public interface TagHandler {
                     break;
             }
         }
-        return parsed;
     }
 
     private Object parseStyleValue(String value) {
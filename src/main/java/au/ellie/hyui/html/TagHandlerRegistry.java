@@ -0,0 +1,144 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.html.handlers.*;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable set of {@link TagHandler}s with a dispatch table from tag name to the handlers
+ * that declare it (see {@link TagHandler#getTagNames()}), so finding the handler for an element
+ * only asks the few handlers for its tag.
+ * <p>
+ * Handlers are asked in priority order and the first whose {@link TagHandler#canHandle} accepts
+ * the element wins. Handlers added with {@link #withHandler} come before the defaults, so they can
+ * override how a tag is handled.
+ */
+public final class TagHandlerRegistry {
+
+    private static final TagHandler[] NONE = new TagHandler[0];
+
+    /**
+     * The built-in handlers, shared by every parser that doesn't register its own.
+     */
+    public static final TagHandlerRegistry DEFAULT = new TagHandlerRegistry(List.of(), List.of(
+            new ItemGridHandler(),
+            new TabContentHandler(),
+            new DivHandler(),
+            new LabelHandler(),
+            new InputHandler(),
+            new TextAreaHandler(),
+            new ButtonHandler(),
+            new ImgHandler(),
+            new HyvatarHandler(),
+            new ProgressBarHandler(),
+            new ItemIconHandler(),
+            new ItemSlotHandler(),
+            new SelectHandler(),
+            new SpriteHandler(),
+            new TimerHandler(),
+            new TabNavigationHandler()
+    ));
+
+    private final List<TagHandler> overrides;
+    private final List<TagHandler> defaults;
+    private final List<TagHandler> handlers;
+    // Candidates per tag name, in priority order, including handlers that accept any tag.
+    private final Map<String, TagHandler[]> byTag;
+    // Candidates for tags no handler declares.
+    private final TagHandler[] anyTag;
+
+    private TagHandlerRegistry(List<TagHandler> overrides, List<TagHandler> defaults) {
+        this.overrides = overrides;
+        this.defaults = defaults;
+        List<TagHandler> all = new ArrayList<>(overrides.size() + defaults.size());
+        all.addAll(overrides);
+        all.addAll(defaults);
+        this.handlers = List.copyOf(all);
+
+        List<Set<String>> tagNames = new ArrayList<>(handlers.size());
+        Set<String> declared = new LinkedHashSet<>();
+        List<TagHandler> untagged = new ArrayList<>();
+        for (TagHandler handler : handlers) {
+            Set<String> names = handler.getTagNames();
+            tagNames.add(names);
+            declared.addAll(names);
+            if (names.isEmpty()) {
+                untagged.add(handler);
+            }
+        }
+
+        Map<String, TagHandler[]> table = new HashMap<>();
+        for (String tag : declared) {
+            List<TagHandler> candidates = new ArrayList<>();
+            for (int i = 0; i < handlers.size(); i++) {
+                Set<String> names = tagNames.get(i);
+                if (names.isEmpty() || names.contains(tag)) {
+                    candidates.add(handlers.get(i));
+                }
+            }
+            table.put(tag, candidates.toArray(NONE));
+        }
+        this.byTag = Map.copyOf(table);
+        this.anyTag = untagged.toArray(NONE);
+    }
+
+    /**
+     * Creates a registry that asks the given handler after any handlers added earlier, but
+     * before the default handlers. This registry is left unchanged.
+     *
+     * @param handler The handler to add.
+     * @return The new registry.
+     */
+    public TagHandlerRegistry withHandler(TagHandler handler) {
+        List<TagHandler> added = new ArrayList<>(overrides);
+        added.add(handler);
+        return new TagHandlerRegistry(List.copyOf(added), defaults);
+    }
+
+    /**
+     * Finds the handler for an element.
+     *
+     * @param element The element to handle.
+     * @return The first handler that accepts the element, or null if none does.
+     */
+    public TagHandler find(Element element) {
+        TagHandler[] candidates = byTag.getOrDefault(element.normalName(), anyTag);
+        for (TagHandler handler : candidates) {
+            if (handler.canHandle(element)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Every handler, in the order they are asked.
+     */
+    public List<TagHandler> getHandlers() {
+        return handlers;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.html;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Build-time entry point that compiles every {@code .html} page under a directory into
+ * {@link CompiledTemplate#PRECOMPILED_EXTENSION} files, failing if any page has a malformed
+ * template block.
+ * <p>
+ * Run by the {@code precompileTemplates} Gradle task:
+ * {@code TemplatePrecompiler <source dir> <output dir>}.
+ */
+public final class TemplatePrecompiler {
+
+    private TemplatePrecompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: TemplatePrecompiler <source dir> <output dir>");
+        }
+        Path sourceDir = Path.of(args[0]);
+        Path outputDir = Path.of(args[1]);
+
+        List<Path> pages;
+        try (Stream<Path> files = Files.walk(sourceDir)) {
+            pages = files.filter(path -> path.toString().endsWith(".html")).sorted().toList();
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (Path page : pages) {
+            Path relative = sourceDir.relativize(page);
+            CompiledTemplate template = CompiledTemplate.compile(Files.readString(page, StandardCharsets.UTF_8));
+            for (String problem : template.findProblems()) {
+                problems.add(relative + ": " + problem);
+            }
+
+            Path target = outputDir.resolve(relative + CompiledTemplate.PRECOMPILED_EXTENSION);
+            Files.createDirectories(target.getParent());
+            try (OutputStream out = Files.newOutputStream(target)) {
+                template.writeTo(out);
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("HyUIML template errors:\n  " + String.join("\n  ", problems));
+        }
+        System.out.println("Precompiled " + pages.size() + " HyUIML page(s).");
+    }
+}
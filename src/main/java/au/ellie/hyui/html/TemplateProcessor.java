@@ -22,18 +22,24 @@ import au.ellie.hyui.HyUIPlugin;
 import au.ellie.hyui.events.UIContext;
 import au.ellie.hyui.builders.UIElementBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Preprocessor for HyUIML templates that supports variable interpolation and component inclusion.
@@ -64,27 +70,52 @@ import java.util.regex.Pattern;
  * {{$value|number}}   - Format as number
  * {{$value|percent}}  - Format as percentage
  * </pre>
+ *
+ * <h2>Fragment Caching</h2>
+ * Blocks that render the same thing for the same inputs can be memoised. Add {@code cache} to an
+ * {@code {{#each}}} to cache each iteration, or register a component with
+ * {@link #registerComponent(String, String, boolean)}:
+ * <pre>
+ * {{#each bounties cache}}...{{/each}}
+ * </pre>
+ * A cached fragment is reused while every variable it read has an equal value, so only cache
+ * fragments whose values have meaningful {@code equals} (strings, numbers, records, maps, lists).
+ *
+ * <h2>Parallel Loops</h2>
+ * Large {@code {{#each}}} blocks can render their items on a {@link ForkJoinPool}, joined back in
+ * order. Mark a block with {@code {{#each rows parallel}}}, or enable it for every block with
+ * {@link #setParallelEach(boolean)}. Only lists and arrays are split; those shorter than {@link #setParallelEachThreshold(int)} still
+ * render on the calling thread.
+ *
+ * <h2>Thread Safety</h2>
+ * A processor can be shared between threads. Variables, components and filters may be registered
+ * at any time, and per-render state (such as the runtime value resolver) is kept out of the processor,
+ * so concurrent renders do not interfere with each other. Registered filters and suppliers may be
+ * called from several threads at once, and with parallel loops so may value resolvers and the
+ * getters of list items, even within a single render.
  */
 public class TemplateProcessor {
 
-    // Pattern for {{$variable}} or {{$variable|default}} or {{$variable|filter}}
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile(
-            "\\{\\{\\$([a-zA-Z_][a-zA-Z0-9_]*(?:\\.[a-zA-Z_][a-zA-Z0-9_]*)*)(?:\\|([^}]*))?\\}\\}"
-    );
-
-    private static final String EACH_START = "{{#each";
-    private static final String EACH_END = "{{/each}}";
-    private static final String IF_START = "{{#if";
-    private static final String IF_END = "{{/if}}";
-    private static final String ELSE_TAG = "{{else}}";
     private static final int MAX_COMPONENT_DEPTH = 20;
-
-    private final Map<String, Object> variables = new HashMap<>();
-    private final Map<String, String> components = new HashMap<>();
-    private final Map<String, Function<String, String>> filters = new HashMap<>();
-    private ValueResolver valueResolver;
+    private static final int FRAGMENT_CACHE_SIZE = 1024;
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 1000;
+    // Smallest run of items worth handing to another thread.
+    private static final int MIN_PARALLEL_CHUNK = 64;
+
+    // Concurrent maps so one registered processor can be rendered from many threads at once.
+    // Null variable values are stored as Scope.NULL.
+    private final Map<String, Object> variables = new ConcurrentHashMap<>();
+    private final Map<String, ComponentDefinition> components = new ConcurrentHashMap<>();
+    private final Map<String, Function<String, String>> filters = new ConcurrentHashMap<>();
     private static final Object NULL_SENTINEL = new Object();
-    private boolean preferDynamicValues;
+    private final RenderContext defaultContext = new RenderContext(null, false, null);
+    // Bumped whenever variables, components or filters change, so tracked renders know to start over.
+    private final AtomicLong version = new AtomicLong();
+    private final FragmentCache fragmentCache = new FragmentCache(FRAGMENT_CACHE_SIZE);
+    private volatile boolean parallelEach;
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private volatile ForkJoinPool parallelPool = ForkJoinPool.commonPool();
+    private volatile boolean directUpdates;
 
     @FunctionalInterface
     public interface ValueResolver {
@@ -109,7 +140,8 @@ public class TemplateProcessor {
      * @return This processor for chaining
      */
     public TemplateProcessor setVariable(String name, Object value) {
-        variables.put(name, value);
+        variables.put(name, value != null ? value : Scope.NULL);
+        version.incrementAndGet();
         return this;
     }
 
@@ -121,7 +153,8 @@ public class TemplateProcessor {
      * @return This processor for chaining
      */
     public TemplateProcessor setVariable(String name, Supplier<?> value) {
-        variables.put(name, value);
+        variables.put(name, value != null ? value : Scope.NULL);
+        version.incrementAndGet();
         return this;
     }
 
@@ -147,7 +180,23 @@ public class TemplateProcessor {
      * @return This processor for chaining
      */
     public TemplateProcessor registerComponent(String name, String template) {
-        components.put(name, template);
+        return registerComponent(name, template, false);
+    }
+
+    /**
+     * Registers a reusable component template, optionally memoising its output.
+     * A cached component is rendered once per distinct set of values it reads (including its
+     * parameters) and reused after that.
+     *
+     * @param name     Component name (e.g., "button", "card")
+     * @param template Component HTML template
+     * @param cached   Whether to cache the component's output
+     * @return This processor for chaining
+     */
+    public TemplateProcessor registerComponent(String name, String template, boolean cached) {
+        components.put(name, new ComponentDefinition(CompiledTemplate.of(template), cached));
+        fragmentCache.clear();
+        version.incrementAndGet();
         return this;
     }
 
@@ -160,544 +209,769 @@ public class TemplateProcessor {
      */
     public TemplateProcessor registerFilter(String name, Function<String, String> filter) {
         filters.put(name, filter);
+        fragmentCache.clear();
+        version.incrementAndGet();
         return this;
     }
 
     /**
-     * Processes the template, substituting variables and including components.
+     * Renders the items of every large {@code {{#each}}} block in parallel, not just blocks marked
+     * {@code parallel}. Filters, suppliers, value resolvers and item getters must then be thread-safe.
      *
-     * @param template The template string
-     * @return Processed HTML string
+     * @param enabled Whether all blocks may render in parallel
+     * @return This processor for chaining
      */
-    public String process(String template) {
-        return processTemplate(template, new HashMap<>(variables), 0);
+    public TemplateProcessor setParallelEach(boolean enabled) {
+        this.parallelEach = enabled;
+        return this;
     }
 
     /**
-     * Processes the template using the provided UI context to resolve element IDs.
+     * Sets how many items a parallel {@code {{#each}}} block needs before it is split across threads.
      *
-     * @param template The template string
-     * @param context The UI context for runtime values
-     * @return Processed HTML string
+     * @param threshold Minimum item count, defaults to 1000
+     * @return This processor for chaining
      */
-    public String process(String template, UIContext context) {
-        ValueResolver previousResolver = this.valueResolver;
-        boolean previousPreferDynamic = this.preferDynamicValues;
-        this.valueResolver = name -> {
-            if (context == null) {
-                return Optional.empty();
-            }
-            Optional<Object> value = context.getValue(name);
-            if (value.isPresent()) {
-                return value;
-            }
-            return hasElement(context, name) ? Optional.of(NULL_SENTINEL) : Optional.empty();
-        };
-            this.preferDynamicValues = true;
-        try {
-            return processTemplate(template, new HashMap<>(variables), 0);
-        } finally {
-            this.valueResolver = previousResolver;
-            this.preferDynamicValues = previousPreferDynamic;
+    public TemplateProcessor setParallelEachThreshold(int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be positive.");
         }
+        this.parallelThreshold = threshold;
+        return this;
     }
 
-    private String processTemplate(String template, Map<String, Object> scope, int componentDepth) {
-        String result = template;
+    /**
+     * Sets the pool parallel {@code {{#each}}} blocks render on.
+     *
+     * @param pool The pool to use, defaults to {@link ForkJoinPool#commonPool()}
+     * @return This processor for chaining
+     */
+    public TemplateProcessor setParallelPool(ForkJoinPool pool) {
+        this.parallelPool = pool != null ? pool : ForkJoinPool.commonPool();
+        return this;
+    }
 
-        // Process control structures first so false branches aren't expanded.
-        result = processEachBlocks(result, scope, componentDepth);
-        result = processIfBlocks(result, scope, componentDepth);
+    /**
+     * Applies runtime template updates straight to the parsed page instead of rendering the
+     * template to HTML and parsing it again. Only templates whose {@code {{$variable}}}
+     * placeholders all sit in attribute values or text use this (see {@link ElementTemplate});
+     * their values are inserted as plain text, not parsed as markup. Other templates are still
+     * updated by rendering them.
+     *
+     * @param enabled Whether to update supported templates directly
+     * @return This processor for chaining
+     */
+    public TemplateProcessor setDirectUpdates(boolean enabled) {
+        this.directUpdates = enabled;
+        return this;
+    }
 
-        // Expand components with the current scope.
-        result = processComponents(result, scope, componentDepth);
+    /**
+     * @return Whether runtime updates of supported templates skip rendering to HTML.
+     */
+    public boolean isDirectUpdates() {
+        return directUpdates;
+    }
 
-        // Process control structures again for blocks inside component templates.
-        result = processEachBlocks(result, scope, componentDepth);
-        result = processIfBlocks(result, scope, componentDepth);
+    /**
+     * @return How many cached fragments were reused instead of rendered.
+     */
+    public long getFragmentCacheHits() {
+        return fragmentCache.getHits();
+    }
 
-        // Then process variables.
-        result = processVariables(result, scope);
+    /**
+     * @return How many cached fragments had to be rendered.
+     */
+    public long getFragmentCacheMisses() {
+        return fragmentCache.getMisses();
+    }
 
-        return result;
+    /**
+     * Drops every memoised fragment. Only needed when a value a fragment reads was changed in place
+     * without changing its {@code equals}.
+     */
+    public void clearFragmentCache() {
+        fragmentCache.clear();
     }
 
-    private String processVariables(String template, Map<String, Object> scope) {
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-        StringBuilder result = new StringBuilder();
+    /**
+     * Processes the template, substituting variables and including components.
+     *
+     * @param template The template string
+     * @return Processed HTML string
+     */
+    public String process(String template) {
+        return process(CompiledTemplate.of(template));
+    }
 
-        while (matcher.find()) {
-            String varName = matcher.group(1);
-            String filterOrDefault = matcher.group(2);
+    /**
+     * Renders an already compiled template, substituting variables and including components.
+     *
+     * @param template The compiled template
+     * @return Processed HTML string
+     */
+    public String process(CompiledTemplate template) {
+        StringBuilder out = new StringBuilder(template.getSource().length());
+        renderUnchecked(template, Map.of(), out);
+        return out.toString();
+    }
 
-            Object rawValue = resolveVariable(scope, varName);
-            String value = rawValue != null ? String.valueOf(rawValue) : "";
+    /**
+     * Processes the template, preferring values from the resolver over variables of the same name.
+     * The resolver only applies to this call, so concurrent renders with different resolvers are safe.
+     *
+     * @param template The template string
+     * @param resolver Resolver for runtime values
+     * @return Processed HTML string
+     */
+    public String process(String template, ValueResolver resolver) {
+        CompiledTemplate compiled = CompiledTemplate.of(template);
+        StringBuilder out = new StringBuilder(compiled.getSource().length());
+        try {
+            render(compiled, Scope.of(variables), new RenderContext(resolver, true, null), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
 
-            // Apply filter or use default value
-            if (filterOrDefault != null && !filterOrDefault.isEmpty()) {
-                if (filters.containsKey(filterOrDefault)) {
-                    // It's a filter
-                    value = filters.get(filterOrDefault).apply(value);
-                } else if (value.isEmpty()) {
-                    // It's a default value
-                    value = filterOrDefault;
-                }
-            }
+    /**
+     * Processes the template using the provided UI context to resolve element IDs.
+     *
+     * @param template The template string
+     * @param context The UI context for runtime values
+     * @return Processed HTML string
+     */
+    public String process(String template, UIContext context) {
+        return process(template, resolverFor(context));
+    }
 
-            HyUIPlugin.getLog().logFinest("Template variable: $" + varName + " = " + value);
-            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
-        }
-        matcher.appendTail(result);
+    /**
+     * Renders the template block by block, recording what each top-level block reads,
+     * so that {@link #refresh} can later re-render only the blocks whose inputs changed.
+     *
+     * @param template The template string
+     * @param context  The UI context for runtime values
+     * @return The tracked render
+     */
+    public RenderedTemplate renderTracked(String template, UIContext context) {
+        return renderTracked(template, resolverFor(context));
+    }
 
-        return result.toString();
+    /**
+     * Renders the template block by block, recording what each top-level block reads.
+     *
+     * @param template The template string
+     * @param resolver Resolver for runtime values, preferred over variables of the same name
+     * @return The tracked render
+     */
+    public RenderedTemplate renderTracked(String template, ValueResolver resolver) {
+        RenderedTemplate rendered = new RenderedTemplate(CompiledTemplate.of(template), this, version.get());
+        List<CompiledTemplate.Node> nodes = rendered.template.getNodes();
+        for (int i = 0; i < nodes.size(); i++) {
+            renderRegion(rendered, i, resolver);
+        }
+        return rendered;
     }
 
-    private String processEachBlocks(String template, Map<String, Object> scope, int componentDepth) {
-        StringBuilder result = new StringBuilder();
-        int index = 0;
+    /**
+     * Brings a tracked render up to date with the UI context.
+     *
+     * @param rendered     A render previously returned by {@link #renderTracked}
+     * @param context      The UI context for runtime values
+     * @param changedNames Names known to have changed (e.g. dirty element IDs), may be null
+     * @return Whether the output changed
+     */
+    public boolean refresh(RenderedTemplate rendered, UIContext context, Set<String> changedNames) {
+        return refresh(rendered, resolverFor(context), changedNames);
+    }
 
-        while (true) {
-            int start = template.indexOf(EACH_START, index);
-            if (start < 0) {
-                result.append(template.substring(index));
-                break;
-            }
+    /**
+     * Brings a tracked render up to date. Only top-level blocks that read a name in {@code changedNames},
+     * saw a different runtime value, or read a supplier are re-rendered. If this processor's variables,
+     * components or filters changed since the render, everything is re-rendered.
+     * <p>
+     * Variables are compared by {@link #setVariable} calls, not by content; call it again after
+     * changing a collection in place.
+     *
+     * @param rendered     A render previously returned by {@link #renderTracked}
+     * @param resolver     Resolver for runtime values
+     * @param changedNames Names known to have changed (e.g. dirty element IDs), may be null
+     * @return Whether the output changed
+     */
+    public boolean refresh(RenderedTemplate rendered, ValueResolver resolver, Set<String> changedNames) {
+        if (rendered.processor != this) {
+            throw new IllegalArgumentException("Rendered template belongs to another processor.");
+        }
 
-            result.append(template, index, start);
+        long currentVersion = version.get();
+        boolean full = rendered.processorVersion != currentVersion;
+        rendered.processorVersion = currentVersion;
 
-            int startClose = template.indexOf("}}", start);
-            if (startClose < 0) {
-                result.append(template.substring(start));
-                break;
+        boolean changed = false;
+        for (int i = 0; i < rendered.chunks.length; i++) {
+            RenderedTemplate.Region region = rendered.regions[i];
+            if (region == null || (!full && !region.isAffected(resolver, changedNames))) {
+                continue;
             }
-
-            String listName = template.substring(start + EACH_START.length(), startClose).trim();
-            int end = findMatchingEnd(template, startClose + 2, EACH_START, EACH_END);
-            if (end < 0) {
-                result.append(template.substring(start));
-                break;
+            String previous = rendered.chunks[i];
+            renderRegion(rendered, i, resolver);
+            if (!previous.equals(rendered.chunks[i])) {
+                changed = true;
             }
+        }
 
-            String inner = template.substring(startClose + 2, end);
-            Object listObj = resolveVariable(scope, listName);
-            Iterable<?> items = toIterable(listObj);
-
-            for (Object item : items) {
-                Map<String, Object> childScope = new HashMap<>(scope);
-
-                // Ignore primitive types for model variable extraction
-                if (!item.getClass().isPrimitive()) {
-                    childScope.putAll(extractModelVariables(item));
-                }
-
-                childScope.put("item", item);
-                result.append(processTemplate(inner, childScope, componentDepth));
-            }
+        if (changed) {
+            rendered.invalidateOutput();
+        }
+        HyUIPlugin.getLog().logFinest("Template refresh: full=" + full + ", changed=" + changed);
+        return changed;
+    }
 
-            index = end + EACH_END.length();
+    private void renderRegion(RenderedTemplate rendered, int index, ValueResolver resolver) {
+        CompiledTemplate.Node node = rendered.template.getNodes().get(index);
+        if (node instanceof CompiledTemplate.Text text) {
+            rendered.chunks[index] = text.text();
+            return;
         }
 
-        return result.toString();
+        RenderedTemplate.Tracker tracker = new RenderedTemplate.Tracker();
+        StringBuilder out = new StringBuilder();
+        try {
+            renderNodes(List.of(node), Scope.of(variables), new RenderContext(resolver, true, tracker), 0, null, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rendered.chunks[index] = out.toString();
+        rendered.regions[index] = tracker.toRegion();
     }
 
-    private String processIfBlocks(String template, Map<String, Object> scope, int componentDepth) {
-        StringBuilder result = new StringBuilder();
-        int index = 0;
-
-        while (true) {
-            int start = template.indexOf(IF_START, index);
-            if (start < 0) {
-                result.append(template.substring(index));
-                break;
+    /**
+     * Renders each placeholder on its own, exactly as it would be rendered in the template.
+     *
+     * @param placeholders The placeholders to render
+     * @param resolver     Resolver for runtime values, preferred over variables of the same name
+     * @return The rendered value of each placeholder
+     */
+    String[] renderVariables(List<CompiledTemplate.Variable> placeholders, ValueResolver resolver) {
+        RenderContext context = new RenderContext(resolver, true, null);
+        Scope scope = Scope.of(variables);
+        String[] values = new String[placeholders.size()];
+        StringBuilder out = new StringBuilder();
+        try {
+            for (int i = 0; i < values.length; i++) {
+                out.setLength(0);
+                renderVariable(placeholders.get(i), scope, context, null, out);
+                values[i] = out.toString();
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return values;
+    }
 
-            result.append(template, index, start);
-
-            int startClose = template.indexOf("}}", start);
-            if (startClose < 0) {
-                result.append(template.substring(start));
-                break;
+    ValueResolver resolverFor(UIContext context) {
+        return name -> {
+            if (context == null) {
+                return Optional.empty();
             }
-
-            String conditionName = template.substring(start + IF_START.length(), startClose).trim();
-            int end = findMatchingEnd(template, startClose + 2, IF_START, IF_END);
-            if (end < 0) {
-                result.append(template.substring(start));
-                break;
+            Optional<Object> value = context.getValue(name);
+            if (value.isPresent()) {
+                return value;
             }
+            return hasElement(context, name) ? Optional.of(NULL_SENTINEL) : Optional.empty();
+        };
+    }
 
-            int elseIndex = findElseIndex(template, startClose + 2, end);
-            String trueBlock;
-            String falseBlock = "";
+    /**
+     * Renders the template straight into {@code out}, without building intermediate strings.
+     *
+     * @param template The template string
+     * @param scope    Extra variables for this render only, taking precedence over {@link #setVariable}
+     * @param out      Destination for the rendered HTML
+     * @throws IOException If {@code out} fails to append
+     */
+    public void render(String template, Map<String, ?> scope, Appendable out) throws IOException {
+        render(CompiledTemplate.of(template), scope, out);
+    }
 
-            if (elseIndex >= 0) {
-                trueBlock = template.substring(startClose + 2, elseIndex);
-                falseBlock = template.substring(elseIndex + ELSE_TAG.length(), end);
-            } else {
-                trueBlock = template.substring(startClose + 2, end);
-            }
+    /**
+     * Renders the compiled template straight into {@code out}, without building intermediate strings.
+     *
+     * @param template The compiled template
+     * @param scope    Extra variables for this render only, taking precedence over {@link #setVariable}
+     * @param out      Destination for the rendered HTML
+     * @throws IOException If {@code out} fails to append
+     */
+    public void render(CompiledTemplate template, Map<String, ?> scope, Appendable out) throws IOException {
+        render(template, Scope.of(variables).withValues(scope), defaultContext, out);
+    }
 
-            boolean conditionResult = evaluateCondition(conditionName, scope);
-            String chosen = conditionResult ? trueBlock : falseBlock;
-            result.append(processTemplate(chosen, scope, componentDepth));
+    private void render(CompiledTemplate template, Scope scope, RenderContext context, Appendable out) throws IOException {
+        renderNodes(template.getNodes(), scope, context, 0, null, out);
+    }
 
-            index = end + IF_END.length();
+    /**
+     * Renders into a {@link StringBuilder}, which never throws {@link IOException}.
+     */
+    void renderUnchecked(CompiledTemplate template, Map<String, ?> scope, StringBuilder out) {
+        try {
+            render(template, scope, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        return result.toString();
     }
 
-    private String processComponents(String template, Map<String, Object> scope, int componentDepth) {
-        StringBuilder result = new StringBuilder();
-        int index = 0;
-
-        while (true) {
-            int start = template.indexOf("{{@", index);
-            if (start < 0) {
-                result.append(template.substring(index));
-                break;
-            }
-
-            result.append(template, index, start);
-            int cursor = start + 3;
-            int depth = 1;
-
-            while (cursor < template.length()) {
-                if (template.startsWith("{{", cursor)) {
-                    depth++;
-                    cursor += 2;
-                    continue;
-                }
-                if (template.startsWith("}}", cursor)) {
-                    depth--;
-                    if (depth == 0) {
-                        break;
-                    }
-                    cursor += 2;
-                    continue;
-                }
-                cursor++;
-            }
-
-            if (depth != 0) {
-                result.append(template.substring(start));
-                break;
-            }
-
-            String content = template.substring(start + 3, cursor).trim();
-            String componentName;
-            String paramsStr = null;
-            int colonIndex = content.indexOf(':');
-            if (colonIndex >= 0) {
-                componentName = content.substring(0, colonIndex).trim();
-                paramsStr = content.substring(colonIndex + 1).trim();
-            } else {
-                componentName = content.trim();
-            }
-
-            String componentHtml = components.get(componentName);
-            if (componentHtml == null) {
-                HyUIPlugin.getLog().logFinest("Unknown component: @" + componentName);
-                result.append("<!-- Unknown component: ").append(componentName).append(" -->");
-                index = cursor + 2;
-                continue;
-            }
+    /**
+     * Per-render state. Passed down the render instead of being stored on the processor,
+     * so renders never observe each other's resolver.
+     */
+    private final class RenderContext implements ConditionExpression.Lookup<Scope> {
+        private final ValueResolver valueResolver;
+        private final boolean preferDynamicValues;
+        private final RenderedTemplate.Tracker tracker;
 
-            if (paramsStr != null && !paramsStr.isEmpty()) {
-                Map<String, String> params = parseParams(paramsStr);
-                for (Map.Entry<String, String> param : params.entrySet()) {
-                    String rawValue = param.getValue();
-                    String value = processVariables(rawValue, scope);
-                    HyUIPlugin.getLog().logFinest("Component param @" + componentName + " " + param.getKey()
-                            + " raw=" + rawValue + " -> " + value + " scope=" + scope.keySet());
-                    componentHtml = componentHtml.replace("{{$" + param.getKey() + "}}", value);
-                }
-            }
+        private RenderContext(ValueResolver valueResolver, boolean preferDynamicValues, RenderedTemplate.Tracker tracker) {
+            this.valueResolver = valueResolver;
+            this.preferDynamicValues = preferDynamicValues;
+            this.tracker = tracker;
+        }
 
-            HyUIPlugin.getLog().logFinest("Including component: @" + componentName);
-            if (componentDepth >= MAX_COMPONENT_DEPTH) {
-                HyUIPlugin.getLog().logFinest("Component recursion limit hit for @" + componentName);
-                result.append("<!-- Component recursion limit hit for: ").append(componentName).append(" -->");
-            } else {
-                result.append(processTemplate(componentHtml, scope, componentDepth + 1));
-            }
-            index = cursor + 2;
+        private RenderContext withTracker(RenderedTemplate.Tracker tracker) {
+            return new RenderContext(valueResolver, preferDynamicValues, tracker);
         }
 
-        return result.toString();
-    }
+        @Override
+        public boolean has(Scope scope, String name) {
+            return hasVariable(this, scope, name);
+        }
 
-    private Map<String, String> parseParams(String paramsStr) {
-        Map<String, String> params = new HashMap<>();
-        for (String param : paramsStr.split(",")) {
-            String[] parts = param.trim().split("=", 2);
-            if (parts.length == 2) {
-                params.put(parts[0].trim(), parts[1].trim());
-            }
+        @Override
+        public Object resolve(Scope scope, String name) {
+            return resolveVariable(this, scope, name);
         }
-        return params;
     }
 
-    private boolean evaluateCondition(String rawCondition, Map<String, Object> scope) {
-        String condition = rawCondition != null ? rawCondition.trim() : "";
-        if (condition.isEmpty()) {
-            return false;
-        }
+    /**
+     * Parameters passed to a component. They are rendered lazily, in the caller's scope,
+     * each time the component template uses the matching {@code {{$param}}} placeholder.
+     */
+    private record ComponentDefinition(CompiledTemplate template, boolean cached) {}
 
-        return evaluateLogical(condition, scope);
-    }
+    private record ComponentArguments(List<CompiledTemplate.Param> params,
+                                      Scope scope,
+                                      int componentDepth,
+                                      ComponentArguments outer) {
 
-    private boolean evaluateLogical(String condition, Map<String, Object> scope) {
-        for (String orPart : splitByOperator(condition, "||")) {
-            if (evaluateAnd(orPart, scope)) {
-                return true;
+        CompiledTemplate.Param find(String name) {
+            for (CompiledTemplate.Param param : params) {
+                if (param.name().equals(name)) {
+                    return param;
+                }
             }
+            return null;
         }
-        return false;
     }
 
-    private boolean evaluateAnd(String condition, Map<String, Object> scope) {
-        for (String andPart : splitByOperator(condition, "&&")) {
-            if (!evaluateUnary(andPart, scope)) {
-                return false;
+    private void renderNodes(List<CompiledTemplate.Node> nodes,
+                             Scope scope,
+                             RenderContext context,
+                             int componentDepth,
+                             ComponentArguments arguments,
+                             Appendable out) throws IOException {
+        for (CompiledTemplate.Node node : nodes) {
+            switch (node) {
+                case CompiledTemplate.Text text -> out.append(text.text());
+                case CompiledTemplate.Variable variable -> renderVariable(variable, scope, context, arguments, out);
+                case CompiledTemplate.Each each -> renderEach(each, scope, context, componentDepth, arguments, out);
+                case CompiledTemplate.If block -> {
+                    boolean conditionResult = block.condition().test(scope, context);
+                    renderNodes(conditionResult ? block.whenTrue() : block.whenFalse(),
+                            scope, context, componentDepth, arguments, out);
+                }
+                case CompiledTemplate.Component component -> renderComponent(component, scope, context, componentDepth, arguments, out);
             }
         }
-        return true;
     }
 
-    private boolean evaluateUnary(String condition, Map<String, Object> scope) {
-        String trimmed = condition.trim();
-        if (trimmed.startsWith("!")) {
-            return !evaluateUnary(trimmed.substring(1), scope);
+    private void renderVariable(CompiledTemplate.Variable variable,
+                                Scope scope,
+                                RenderContext context,
+                                ComponentArguments arguments,
+                                Appendable out) throws IOException {
+        String varName = variable.name();
+        String filterOrDefault = variable.filterOrDefault();
+
+        // Component parameters replace plain {{$param}} placeholders inside the component template.
+        if (filterOrDefault == null && arguments != null) {
+            CompiledTemplate.Param argument = arguments.find(varName);
+            if (argument != null) {
+                renderNodes(argument.value(), arguments.scope(), context, arguments.componentDepth(), arguments.outer(), out);
+                return;
+            }
         }
 
-        return evaluateComparison(trimmed, scope);
-    }
+        Object rawValue = resolveVariable(context, scope, varName);
 
-    private boolean evaluateComparison(String condition, Map<String, Object> scope) {
-        Matcher containsMatcher = Pattern.compile("(.+?)\\s+contains\\s+(.+)").matcher(condition);
-        if (containsMatcher.matches()) {
-            Object left = resolveOperand(containsMatcher.group(1).trim(), scope);
-            Object right = resolveOperand(containsMatcher.group(2).trim(), scope);
-            return containsValue(left, right);
+        // Apply filter or use default value
+        if (filterOrDefault != null && !filterOrDefault.isEmpty()) {
+            String value = rawValue != null ? String.valueOf(rawValue) : "";
+            Function<String, String> filter = filters.get(filterOrDefault);
+            if (filter != null) {
+                // It's a filter
+                value = filter.apply(value);
+            } else if (value.isEmpty()) {
+                // It's a default value
+                value = filterOrDefault;
+            }
+            HyUIPlugin.getLog().logFinest("Template variable: $" + varName + " = " + value);
+            out.append(value);
+            return;
         }
 
-        Matcher matcher = Pattern.compile("(.+?)(==|!=|>=|<=|>|<)(.+)").matcher(condition);
-        if (matcher.matches()) {
-            Object left = resolveOperand(matcher.group(1).trim(), scope);
-            Object right = resolveOperand(matcher.group(3).trim(), scope);
-            String operator = matcher.group(2);
-            return compareValues(left, right, operator);
+        HyUIPlugin.getLog().logFinest("Template variable: $" + varName + " = " + rawValue);
+        if (rawValue instanceof CharSequence sequence) {
+            out.append(sequence);
+        } else if (rawValue != null) {
+            out.append(String.valueOf(rawValue));
         }
-
-        Object value = resolveOperand(condition, scope);
-        return isTruthy(value);
     }
 
-    private Object resolveOperand(String token, Map<String, Object> scope) {
-        if (token == null) {
-            return null;
-        }
-        String trimmed = token.trim();
-        if (trimmed.isEmpty()) {
-            return "";
-        }
-
-        if ((trimmed.startsWith("\"") && trimmed.endsWith("\""))
-                || (trimmed.startsWith("'") && trimmed.endsWith("'"))) {
-            return trimmed.substring(1, trimmed.length() - 1);
-        }
-
-        if ("null".equalsIgnoreCase(trimmed)) {
-            return null;
+    private void renderEach(CompiledTemplate.Each each,
+                            Scope scope,
+                            RenderContext context,
+                            int componentDepth,
+                            ComponentArguments arguments,
+                            Appendable out) throws IOException {
+        Object listObj = resolveVariable(context, scope, each.listName());
+        Iterable<?> items = toIterable(listObj);
+        if (each.options().windowed()) {
+            items = selectItems(each.options(), items, scope, context);
+        }
+
+        if ((each.options().parallel() || parallelEach) && items instanceof List<?> list && list.size() >= parallelThreshold) {
+            renderEachParallel(each, list instanceof RandomAccess ? list : new ArrayList<>(list),
+                    scope, context, componentDepth, arguments, out);
+            return;
         }
 
-        if ("true".equalsIgnoreCase(trimmed) || "false".equalsIgnoreCase(trimmed)) {
-            return Boolean.parseBoolean(trimmed);
-        }
-
-        try {
-            if (trimmed.contains(".")) {
-                return Double.parseDouble(trimmed);
-            }
-            return Long.parseLong(trimmed);
-        } catch (NumberFormatException ignored) {
-            // Not a number literal.
+        for (Object item : items) {
+            renderItem(each, item, scope, context, componentDepth, arguments, out);
         }
+    }
 
-        if (hasVariable(scope, trimmed)) {
-            return resolveVariable(scope, trimmed);
+    private void renderItem(CompiledTemplate.Each each,
+                            Object item,
+                            Scope scope,
+                            RenderContext context,
+                            int componentDepth,
+                            ComponentArguments arguments,
+                            Appendable out) throws IOException {
+        if (each.options().cached()) {
+            renderFragment(each, each.body(), scope.withItem(item), context, componentDepth, arguments, out);
+        } else {
+            renderNodes(each.body(), scope.withItem(item), context, componentDepth, arguments, out);
         }
+    }
 
-        return trimmed;
+    /**
+     * Applies {@code where=}, {@code sort=}, {@code offset=} and {@code limit=} without copying or
+     * sorting the whole source.
+     */
+    private List<?> selectItems(CompiledTemplate.EachOptions options,
+                                Iterable<?> items,
+                                Scope scope,
+                                RenderContext context) {
+        int offset = resolveCount(options.offset(), scope, context, 0);
+        int limit = resolveCount(options.limit(), scope, context, Integer.MAX_VALUE);
+        ConditionExpression where = options.where();
+        String sortBy = options.sortBy();
+        return ItemWindow.select(items,
+                where != null ? item -> where.test(scope.withItem(item), context) : null,
+                sortBy != null ? new SortKeyReader(sortBy, scope, context) : null,
+                options.descending(),
+                offset,
+                limit);
     }
 
-    private boolean compareValues(Object left, Object right, String operator) {
-        if (left == null || right == null) {
-            if ("==".equals(operator)) {
-                return left == right;
-            }
-            if ("!=".equals(operator)) {
-                return left != right;
+    /**
+     * Reads the {@code sort=} value of each item. Plain item properties are read directly, with the
+     * accessor looked up once per item class; anything else resolves like {@code {{$sortBy}}}
+     * inside the loop.
+     */
+    private final class SortKeyReader implements Function<Object, Object> {
+        private final String sortBy;
+        private final Scope scope;
+        private final RenderContext context;
+        private Class<?> lastType;
+        private ModelAccessors.Property lastProperty;
+
+        private SortKeyReader(String sortBy, Scope scope, RenderContext context) {
+            this.sortBy = sortBy;
+            this.scope = scope;
+            this.context = context;
+        }
+
+        @Override
+        public Object apply(Object item) {
+            if (item instanceof Map<?, ?> map) {
+                Object value = Scope.lookup(map, sortBy);
+                if (value != Scope.MISSING) {
+                    return value;
+                }
+            } else if (item != null) {
+                if (item.getClass() != lastType) {
+                    lastType = item.getClass();
+                    lastProperty = ModelAccessors.forClass(lastType).find(sortBy);
+                }
+                if (lastProperty != null) {
+                    return lastProperty.read(item, null);
+                }
             }
-            return false;
+            return resolveVariable(context, scope.withItem(item), sortBy);
         }
-
-        Double leftNum = toNumber(left);
-        Double rightNum = toNumber(right);
-        if (leftNum != null && rightNum != null) {
-            return switch (operator) {
-                case "==" -> Double.compare(leftNum, rightNum) == 0;
-                case "!=" -> Double.compare(leftNum, rightNum) != 0;
-                case ">" -> leftNum > rightNum;
-                case "<" -> leftNum < rightNum;
-                case ">=" -> leftNum >= rightNum;
-                case "<=" -> leftNum <= rightNum;
-                default -> false;
-            };
-        }
-
-        if (left instanceof Boolean || right instanceof Boolean) {
-            boolean leftVal = left instanceof Boolean ? (Boolean) left : Boolean.parseBoolean(left.toString());
-            boolean rightVal = right instanceof Boolean ? (Boolean) right : Boolean.parseBoolean(right.toString());
-            return switch (operator) {
-                case "==" -> leftVal == rightVal;
-                case "!=" -> leftVal != rightVal;
-                default -> false;
-            };
-        }
-
-        String leftStr = String.valueOf(left);
-        String rightStr = String.valueOf(right);
-        return switch (operator) {
-            case "==" -> leftStr.equals(rightStr);
-            case "!=" -> !leftStr.equals(rightStr);
-            default -> false;
-        };
     }
 
-    private Double toNumber(Object value) {
-        if (value instanceof Number number) {
-            return number.doubleValue();
+    /**
+     * Reads a {@code limit=}/{@code offset=} value, either a number or a {@code $variable}.
+     * Missing, negative or non-numeric values fall back to {@code fallback} (or 0 if negative).
+     */
+    private int resolveCount(String count, Scope scope, RenderContext context, int fallback) {
+        if (count == null) {
+            return fallback;
         }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException e) {
-            return null;
+        Object value = count.startsWith("$") ? resolveVariable(context, scope, count.substring(1)) : count;
+        Double number = value != null ? ConditionExpression.toNumber(value) : null;
+        if (number == null || number.isNaN()) {
+            return fallback;
         }
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, number));
     }
 
-    private boolean containsValue(Object left, Object right) {
-        if (left == null || right == null) {
-            return false;
+    /**
+     * Splits the items into runs rendered on the parallel pool, then appends the results in order.
+     * Each run records its reads in its own tracker, merged afterwards, since trackers aren't thread-safe.
+     */
+    private void renderEachParallel(CompiledTemplate.Each each,
+                                    List<?> items,
+                                    Scope scope,
+                                    RenderContext context,
+                                    int componentDepth,
+                                    ComponentArguments arguments,
+                                    Appendable out) throws IOException {
+        ForkJoinPool pool = parallelPool;
+        int chunkSize = Math.max(MIN_PARALLEL_CHUNK, items.size() / (pool.getParallelism() * 4));
+        int chunkCount = (items.size() + chunkSize - 1) / chunkSize;
+        String[] parts = new String[chunkCount];
+        RenderedTemplate.Tracker[] trackers = context.tracker != null ? new RenderedTemplate.Tracker[chunkCount] : null;
+
+        EachJob job = new EachJob(each, items, scope, context, componentDepth, arguments, chunkSize, parts, trackers);
+        EachChunks task = new EachChunks(job, 0, chunkCount);
+
+        // Nested parallel blocks already run inside the pool and can fork from there.
+        if (ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+
+        for (int i = 0; i < chunkCount; i++) {
+            out.append(parts[i]);
+            if (trackers != null) {
+                context.tracker.addAll(trackers[i]);
+            }
         }
+    }
 
-        if (left instanceof CharSequence seq) {
-            return seq.toString().contains(String.valueOf(right));
+    private void renderComponent(CompiledTemplate.Component component,
+                                 Scope scope,
+                                 RenderContext context,
+                                 int componentDepth,
+                                 ComponentArguments arguments,
+                                 Appendable out) throws IOException {
+        String componentName = component.name();
+        ComponentDefinition definition = components.get(componentName);
+        if (definition == null) {
+            HyUIPlugin.getLog().logFinest("Unknown component: @" + componentName);
+            out.append("<!-- Unknown component: ").append(componentName).append(" -->");
+            return;
         }
 
-        if (left instanceof Map<?, ?> map) {
-            return map.containsKey(right);
+        ComponentArguments componentArguments = component.params().isEmpty()
+                ? null
+                : new ComponentArguments(component.params(), scope, componentDepth, arguments);
+
+        HyUIPlugin.getLog().logFinest("Including component: @" + componentName);
+        if (componentDepth >= MAX_COMPONENT_DEPTH) {
+            HyUIPlugin.getLog().logFinest("Component recursion limit hit for @" + componentName);
+            out.append("<!-- Component recursion limit hit for: ").append(componentName).append(" -->");
+        } else if (definition.cached()) {
+            renderFragment(definition, definition.template().getNodes(), scope, context, componentDepth + 1, componentArguments, out);
+        } else {
+            renderNodes(definition.template().getNodes(), scope, context, componentDepth + 1, componentArguments, out);
         }
+    }
 
-        if (left instanceof Iterable<?> iterable) {
-            for (Object item : iterable) {
-                if (item == null && right == null) {
-                    return true;
-                }
-                if (item != null && item.equals(right)) {
-                    return true;
-                }
+    /**
+     * Renders a cacheable fragment, reusing earlier output when every variable it read last time
+     * still has an equal value.
+     */
+    private void renderFragment(Object fragment,
+                                List<CompiledTemplate.Node> nodes,
+                                Scope scope,
+                                RenderContext context,
+                                int componentDepth,
+                                ComponentArguments arguments,
+                                Appendable out) throws IOException {
+        // Arguments render in the caller's scope, so they become part of the key as plain text.
+        List<String> argumentValues = List.of();
+        if (arguments != null) {
+            List<CompiledTemplate.Param> rendered = new ArrayList<>(arguments.params().size());
+            List<String> values = new ArrayList<>(arguments.params().size() * 2);
+            for (CompiledTemplate.Param param : arguments.params()) {
+                StringBuilder value = new StringBuilder();
+                renderNodes(param.value(), arguments.scope(), context, arguments.componentDepth(), arguments.outer(), value);
+                rendered.add(new CompiledTemplate.Param(param.name(), List.of(new CompiledTemplate.Text(value.toString()))));
+                values.add(param.name());
+                values.add(value.toString());
             }
-            return false;
+            argumentValues = values;
+            arguments = new ComponentArguments(rendered, scope, componentDepth, null);
         }
 
-        if (left.getClass().isArray()) {
-            int length = Array.getLength(left);
-            for (int i = 0; i < length; i++) {
-                Object item = Array.get(left, i);
-                if (item == null && right == null) {
-                    return true;
-                }
-                if (item != null && item.equals(right)) {
-                    return true;
-                }
-            }
-            return false;
+        List<String> keyArguments = argumentValues;
+        Function<FragmentCache.Reads, FragmentCache.Key> keys =
+                reads -> fragmentKey(fragment, componentDepth, keyArguments, reads, scope, context);
+        String cached = fragmentCache.get(fragment, keys);
+        if (cached != null) {
+            out.append(cached);
+            return;
         }
 
-        return left.toString().contains(String.valueOf(right));
+        RenderedTemplate.Tracker tracker = new RenderedTemplate.Tracker(context.tracker);
+        StringBuilder output = new StringBuilder();
+        renderNodes(nodes, scope, context.withTracker(tracker), componentDepth, arguments, output);
+
+        FragmentCache.Reads seen = new FragmentCache.Reads(List.copyOf(tracker.resolved), List.copyOf(tracker.checked));
+        fragmentCache.put(fragment, seen, keys, output.toString());
+        out.append(output);
     }
 
-    private List<String> splitByOperator(String input, String operator) {
-        List<String> parts = new java.util.ArrayList<>();
-        boolean inSingle = false;
-        boolean inDouble = false;
-        int start = 0;
+    /**
+     * Builds a fragment cache key from the current value of each name in {@code reads}, resolved in
+     * the fragment's own scope (names shadowed by nested {@code {{#each}}} blocks included, so the
+     * key is the same on every lookup).
+     */
+    private FragmentCache.Key fragmentKey(Object fragment,
+                                          int componentDepth,
+                                          List<String> argumentValues,
+                                          FragmentCache.Reads reads,
+                                          Scope scope,
+                                          RenderContext context) {
+        Object[] values = new Object[reads.resolved().size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resolveVariable(context, scope, reads.resolved().get(i));
+        }
+        Boolean[] presence = new Boolean[reads.checked().size()];
+        for (int i = 0; i < presence.length; i++) {
+            presence[i] = hasVariable(context, scope, reads.checked().get(i));
+        }
+        return new FragmentCache.Key(fragment, componentDepth, argumentValues, reads,
+                Arrays.asList(values), List.of(presence));
+    }
 
-        for (int i = 0; i < input.length(); i++) {
-            char c = input.charAt(i);
-            if (c == '"' && !inSingle) {
-                inDouble = !inDouble;
-                continue;
-            }
-            if (c == '\'' && !inDouble) {
-                inSingle = !inSingle;
-                continue;
+    /**
+     * Everything the runs of one parallel {@code {{#each}}} share. Run {@code i} covers items
+     * {@code [i * chunkSize, (i + 1) * chunkSize)} and writes its output to {@code parts[i]}.
+     */
+    private record EachJob(CompiledTemplate.Each each,
+                           List<?> items,
+                           Scope scope,
+                           RenderContext context,
+                           int componentDepth,
+                           ComponentArguments arguments,
+                           int chunkSize,
+                           String[] parts,
+                           RenderedTemplate.Tracker[] trackers) {}
+
+    private final class EachChunks extends RecursiveAction {
+        private final EachJob job;
+        private final int from;
+        private final int to;
+
+        private EachChunks(EachJob job, int from, int to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EachChunks(job, from, middle), new EachChunks(job, middle, to));
+                return;
             }
 
-            if (!inSingle && !inDouble && input.startsWith(operator, i)) {
-                parts.add(input.substring(start, i));
-                start = i + operator.length();
-                i += operator.length() - 1;
+            RenderContext context = job.context();
+            if (job.trackers() != null) {
+                job.trackers()[from] = new RenderedTemplate.Tracker();
+                context = context.withTracker(job.trackers()[from]);
             }
+            StringBuilder out = new StringBuilder();
+            int end = Math.min(job.items().size(), (from + 1) * job.chunkSize());
+            try {
+                for (int i = from * job.chunkSize(); i < end; i++) {
+                    renderItem(job.each(), job.items().get(i), job.scope(), context, job.componentDepth(), job.arguments(), out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            job.parts()[from] = out.toString();
         }
-
-        parts.add(input.substring(start));
-        return parts;
     }
 
-    private boolean hasVariable(Map<String, Object> scope, String name) {
+    private boolean hasVariable(RenderContext context, Scope scope, String name) {
         if (name == null || name.isBlank()) {
             return false;
         }
-
-        if (scope.containsKey(name)) {
-            return true;
-        }
-
-        Optional<Object> resolved = resolveDynamicValue(name);
-        if (resolved.isPresent()) {
-            return true;
+        boolean present = scope.contains(name) || resolveDynamicValue(context, name).isPresent();
+        if (!present) {
+            int dotIndex = name.indexOf('.');
+            present = dotIndex > 0 && scope.contains(name.substring(0, dotIndex));
         }
-
-        int dotIndex = name.indexOf('.');
-        if (dotIndex > 0) {
-            String root = name.substring(0, dotIndex);
-            return scope.containsKey(root);
+        if (context.tracker != null) {
+            context.tracker.checked(name);
         }
-
-        return false;
+        return present;
     }
 
-    private Object resolveVariable(Map<String, Object> scope, String name) {
+    private Object resolveVariable(RenderContext context, Scope scope, String name) {
         if (name == null || name.isBlank()) {
             return null;
         }
+        Object value = lookupVariable(context, scope, name);
+        if (context.tracker != null) {
+            context.tracker.resolved(name);
+        }
+        return value;
+    }
 
-        if (preferDynamicValues) {
-            Optional<Object> resolved = resolveDynamicValue(name);
+    private Object lookupVariable(RenderContext context, Scope scope, String name) {
+        if (context.preferDynamicValues) {
+            Optional<Object> resolved = resolveDynamicValue(context, name);
             if (resolved.isPresent() && resolved.get() != NULL_SENTINEL) {
                 return resolved.get();
             }
         }
 
-        if (scope.containsKey(name)) {
-            var value = scope.get(name);
-            return value instanceof Supplier<?> supplier ? supplier.get() : value;
+        Object scoped = scope.find(name);
+        if (scoped != Scope.MISSING) {
+            return scoped instanceof Supplier<?> supplier ? readSupplier(context, supplier) : scoped;
         }
 
-        Optional<Object> resolved = resolveDynamicValue(name);
+        Optional<Object> resolved = resolveDynamicValue(context, name);
         if (resolved.isPresent()) {
             Object value = resolved.get();
             return value == NULL_SENTINEL ? null : value;
@@ -708,14 +982,12 @@ public class TemplateProcessor {
             return null;
         }
 
-        String first = path[0];
-        if (!scope.containsKey(first)) {
+        Object current = scope.find(path[0]);
+        if (current == Scope.MISSING) {
             return null;
         }
-
-        Object current = scope.get(first);
         if (current instanceof Supplier<?> supplier)
-            current = supplier.get();
+            current = readSupplier(context, supplier);
 
         for (int i = 1; i < path.length; i++) {
             if (current == null) {
@@ -727,11 +999,23 @@ public class TemplateProcessor {
         return current;
     }
 
-    private Optional<Object> resolveDynamicValue(String name) {
-        if (valueResolver == null) {
+    private Object readSupplier(RenderContext context, Supplier<?> supplier) {
+        if (context.tracker != null) {
+            // Suppliers can change without us knowing, so the block always re-renders.
+            context.tracker.markLive();
+        }
+        return supplier.get();
+    }
+
+    private Optional<Object> resolveDynamicValue(RenderContext context, String name) {
+        if (context.valueResolver == null) {
             return Optional.empty();
         }
-        return valueResolver.resolve(name);
+        Optional<Object> resolved = context.valueResolver.resolve(name);
+        if (context.tracker != null) {
+            context.tracker.observed(name, resolved);
+        }
+        return resolved;
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -746,176 +1030,33 @@ public class TemplateProcessor {
         if (value instanceof Iterable<?> iterable) {
             return iterable;
         }
+        // Arrays are wrapped, not copied.
+        if (value instanceof Object[] array) {
+            return Arrays.asList(array);
+        }
         if (value.getClass().isArray()) {
-            int length = Array.getLength(value);
-            List<Object> list = new java.util.ArrayList<>(length);
-            for (int i = 0; i < length; i++) {
-                list.add(Array.get(value, i));
-            }
-            return list;
+            return new PrimitiveArrayView(value);
         }
         return List.of();
     }
 
-    private int findMatchingEnd(String template, int searchFrom, String startTag, String endTag) {
-        int depth = 1;
-        int index = searchFrom;
-
-        while (index < template.length()) {
-            int nextStart = template.indexOf(startTag, index);
-            int nextEnd = template.indexOf(endTag, index);
+    private static final class PrimitiveArrayView extends AbstractList<Object> implements RandomAccess {
+        private final Object array;
+        private final int length;
 
-            if (nextEnd < 0) {
-                return -1;
-            }
-
-            if (nextStart != -1 && nextStart < nextEnd) {
-                depth++;
-                index = nextStart + startTag.length();
-            } else {
-                depth--;
-                if (depth == 0) {
-                    return nextEnd;
-                }
-                index = nextEnd + endTag.length();
-            }
+        private PrimitiveArrayView(Object array) {
+            this.array = array;
+            this.length = Array.getLength(array);
         }
 
-        return -1;
-    }
-
-    private int findElseIndex(String template, int searchFrom, int endIndex) {
-        int depth = 1;
-        int index = searchFrom;
-
-        while (index < endIndex) {
-            int nextStart = template.indexOf(IF_START, index);
-            int nextEnd = template.indexOf(IF_END, index);
-            int nextElse = template.indexOf(ELSE_TAG, index);
-
-            int next = minPositive(nextStart, nextEnd, nextElse);
-            if (next < 0 || next >= endIndex) {
-                return -1;
-            }
-
-            if (next == nextStart) {
-                depth++;
-                index = nextStart + IF_START.length();
-            } else if (next == nextEnd) {
-                depth--;
-                if (depth == 0) {
-                    return -1;
-                }
-                index = nextEnd + IF_END.length();
-            } else {
-                if (depth == 1) {
-                    return nextElse;
-                }
-                index = nextElse + ELSE_TAG.length();
-            }
+        @Override
+        public Object get(int index) {
+            return Array.get(array, index);
         }
 
-        return -1;
-    }
-
-    private int minPositive(int... values) {
-        int min = Integer.MAX_VALUE;
-        for (int value : values) {
-            if (value >= 0 && value < min) {
-                min = value;
-            }
-        }
-        return min == Integer.MAX_VALUE ? -1 : min;
-    }
-
-    private Map<String, Object> extractModelVariables(Object item) {
-        Map<String, Object> values = new HashMap<>();
-        if (item == null) {
-            return values;
-        }
-
-        if (item instanceof Map<?, ?> map) {
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                if (entry.getKey() instanceof String key) {
-                    values.put(key, entry.getValue());
-                }
-            }
-            return values;
-        }
-
-        for (Field field : item.getClass().getFields()) {
-            if (values.containsKey(field.getName())) {
-                continue;
-            }
-            extractVarsFromField(item, values, field);
-        }
-
-        for (Method method : item.getClass().getMethods()) {
-            extractVarsFromMethod(item, values, method);
-        }
-
-        for (Field field : item.getClass().getDeclaredFields()) {
-            if (field.isSynthetic() || values.containsKey(field.getName())) {
-                continue;
-            }
-            extractVarsFromField(item, values, field);
-        }
-
-        for (Method method : item.getClass().getDeclaredMethods()) {
-            extractVarsFromMethod(item, values, method);
-        }
-
-        return values;
-    }
-
-    private void extractVarsFromField(Object item, Map<String, Object> values, Field field) {
-        try {
-            field.setAccessible(true);
-        } catch (Exception ignored) {
-            // For whatever reason we can't access it, ignore the field.
-            return;
-        }
-
-        values.put(field.getName(), (Supplier<Object>)() -> {
-            try {
-                return field.get(Modifier.isStatic(field.getModifiers()) ? null : item);
-            } catch (IllegalAccessException | IllegalArgumentException ignored) {
-                return "";
-            }
-        });
-    }
-
-    private void extractVarsFromMethod(Object item, Map<String, Object> values, Method method) {
-        if (method.getParameterCount() != 0) {
-            return;
-        }
-        String name = method.getName();
-        if (name.equals("getClass")) {
-            return;
-        }
-
-        String propName = null;
-        if (name.startsWith("get") && name.length() > 3) {
-            propName = decapitalize(name.substring(3));
-        } else if (name.startsWith("is") && name.length() > 2) {
-            propName = decapitalize(name.substring(2));
-        }
-
-        if (propName != null && !values.containsKey(propName)) {
-            try {
-                method.setAccessible(true);
-            } catch (Exception ignored) {
-                // For whatever reason we can't access it, ignore the method.
-                return;
-            }
-
-            values.put(propName, (Supplier<Object>)() -> {
-                try {
-                    return method.invoke(Modifier.isStatic(method.getModifiers()) ? null : item);
-                } catch (Exception ignored) {
-                    return "";
-                }
-            });
+        @Override
+        public int size() {
+            return length;
         }
     }
 
@@ -944,56 +1085,8 @@ public class TemplateProcessor {
             return null;
         }
 
-        try {
-            Field field = target.getClass().getField(name);
-            if (!field.canAccess(target)) {
-                field.setAccessible(true);
-            }
-            return field.get(target);
-        } catch (NoSuchFieldException | IllegalAccessException ignored) {
-            // Fall back to getters.
-        }
-
-        String suffix = name.substring(0, 1).toUpperCase() + name.substring(1);
-        for (String prefix : new String[] {"get", "is"}) {
-            try {
-                Method method = target.getClass().getMethod(prefix + suffix);
-                if (method.getParameterCount() == 0) {
-                    if (!method.canAccess(target)) {
-                        method.setAccessible(true);
-                    }
-                    return method.invoke(target);
-                }
-            } catch (Exception ignored) {
-                // Try next getter.
-            }
-        }
-
-        try {
-            Field field = target.getClass().getDeclaredField(name);
-            if (!field.canAccess(target)) {
-                field.setAccessible(true);
-            }
-            return field.get(target);
-        } catch (NoSuchFieldException | IllegalAccessException ignored) {
-            // Ignore.
-        }
-
-        for (String prefix : new String[] {"get", "is"}) {
-            try {
-                Method method = target.getClass().getDeclaredMethod(prefix + suffix);
-                if (method.getParameterCount() == 0) {
-                    if (!method.canAccess(target)) {
-                        method.setAccessible(true);
-                    }
-                    return method.invoke(target);
-                }
-            } catch (Exception ignored) {
-                // Ignore.
-            }
-        }
-
-        return null;
+        ModelAccessors.Property property = ModelAccessors.forClass(target.getClass()).find(name);
+        return property != null ? property.read(target, null) : null;
     }
 
     private Integer parseIndex(String value) {
@@ -1012,39 +1105,6 @@ public class TemplateProcessor {
         }
     }
 
-    private String decapitalize(String value) {
-        if (value == null || value.isEmpty()) {
-            return value;
-        }
-        if (value.length() > 1 && Character.isUpperCase(value.charAt(0)) && Character.isUpperCase(value.charAt(1))) {
-            return value;
-        }
-        return Character.toLowerCase(value.charAt(0)) + value.substring(1);
-    }
-
-    private boolean isTruthy(Object value) {
-        if (value == null) {
-            return false;
-        }
-        if (value instanceof Boolean bool) {
-            return bool;
-        }
-        if (value instanceof Number number) {
-            return number.doubleValue() != 0;
-        }
-        if (value instanceof CharSequence seq) {
-            String text = seq.toString().trim();
-            return !text.isEmpty() && !"false".equalsIgnoreCase(text);
-        }
-        if (value instanceof Iterable<?> iterable) {
-            return iterable.iterator().hasNext();
-        }
-        if (value.getClass().isArray()) {
-            return Array.getLength(value) > 0;
-        }
-        return true;
-    }
-
     // Default filters
     private String capitalize(String value) {
         if (value == null || value.isEmpty()) return value;
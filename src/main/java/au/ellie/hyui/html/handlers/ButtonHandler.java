@@ -33,6 +33,7 @@ import org.jsoup.nodes.Element;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class ButtonHandler implements TagHandler {
     @Override
@@ -46,6 +47,11 @@ public class ButtonHandler implements TagHandler {
         return false;
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("button", "input");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         String tag = element.tagName().toLowerCase();
@@ -28,6 +28,7 @@ import org.jsoup.nodes.TextNode;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class DivHandler implements TagHandler {
     @Override
@@ -35,6 +36,11 @@ public class DivHandler implements TagHandler {
         return element.tagName().equalsIgnoreCase("div");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("div");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         if (element.hasClass("container-title") || element.hasClass("container-contents")) {
@@ -26,12 +26,19 @@ import au.ellie.hyui.utils.HyvatarUtils;
 import au.ellie.hyui.utils.ParseUtils;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class HyvatarHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
         return element.tagName().equalsIgnoreCase("hyvatar");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("hyvatar");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         HyvatarImageBuilder builder = HyvatarImageBuilder.hyvatar();
@@ -25,12 +25,19 @@ import au.ellie.hyui.html.HtmlParser;
 import au.ellie.hyui.html.TagHandler;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class ImgHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
         return element.tagName().equalsIgnoreCase("img");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("img");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         UIElementBuilder<?> builder;
@@ -24,12 +24,19 @@ import au.ellie.hyui.html.TagHandler;
 import au.ellie.hyui.utils.ParseUtils;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class InputHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
         return element.tagName().equalsIgnoreCase("input");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("input");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         String type = element.attr("type").toLowerCase();
@@ -28,12 +28,19 @@ import com.hypixel.hytale.server.core.ui.PatchStyle;
 import com.hypixel.hytale.server.core.ui.Value;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class ItemGridHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
         return element.tagName().equalsIgnoreCase("div") && element.hasClass("item-grid");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("div");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         ItemGridBuilder builder = ItemGridBuilder.itemGrid();
@@ -24,12 +24,19 @@ import au.ellie.hyui.html.HtmlParser;
 import au.ellie.hyui.html.TagHandler;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class ItemIconHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
         return element.tagName().equalsIgnoreCase("span") && element.hasClass("item-icon");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("span");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         ItemIconBuilder builder = ItemIconBuilder.itemIcon();
@@ -24,6 +24,8 @@ import au.ellie.hyui.html.HtmlParser;
 import au.ellie.hyui.html.TagHandler;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class LabelHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
@@ -31,6 +33,11 @@ public class LabelHandler implements TagHandler {
         return tag.equals("label") || tag.equals("p");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("label", "p");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         LabelBuilder builder = LabelBuilder.label().withText(element.text());
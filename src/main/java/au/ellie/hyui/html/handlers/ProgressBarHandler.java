@@ -25,12 +25,19 @@ import au.ellie.hyui.html.TagHandler;
 import au.ellie.hyui.utils.ParseUtils;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class ProgressBarHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
         return element.tagName().equalsIgnoreCase("progress");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("progress");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         boolean isCircular = element.hasClass("circular-progress") || element.hasClass("circular");
@@ -25,12 +25,19 @@ import au.ellie.hyui.html.TagHandler;
 import au.ellie.hyui.utils.ParseUtils;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 public class SpriteHandler implements TagHandler {
     @Override
     public boolean canHandle(Element element) {
         return element.tagName().equalsIgnoreCase("sprite");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("sprite");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         SpriteBuilder builder = SpriteBuilder.sprite();
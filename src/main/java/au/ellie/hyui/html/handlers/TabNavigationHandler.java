@@ -27,6 +27,7 @@ import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * Handler for tab navigation elements in HYUIML.
@@ -64,6 +65,11 @@ public class TabNavigationHandler implements TagHandler {
                (element.hasClass("tabs") || element.hasClass("tab-navigation"));
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("nav", "div");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         TabNavigationBuilder builder = TabNavigationBuilder.tabNavigation();
@@ -28,6 +28,7 @@ import au.ellie.hyui.utils.ParseUtils;
 import org.jsoup.nodes.Element;
 
 import java.util.Optional;
+import java.util.Set;
 
 public class TextAreaHandler implements TagHandler {
     @Override
@@ -35,6 +36,11 @@ public class TextAreaHandler implements TagHandler {
         return element.tagName().equalsIgnoreCase("textarea");
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("textarea");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         TextFieldBuilder builder = TextFieldBuilder.multilineTextField();
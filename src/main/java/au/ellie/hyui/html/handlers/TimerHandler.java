@@ -25,6 +25,8 @@ import au.ellie.hyui.html.TagHandler;
 import au.ellie.hyui.utils.ParseUtils;
 import org.jsoup.nodes.Element;
 
+import java.util.Set;
+
 /**
  * Handler for timer elements in HYUIML.
  *
@@ -47,6 +49,11 @@ public class TimerHandler implements TagHandler {
                 (element.tagName().equalsIgnoreCase("span") && element.hasClass("timer"));
     }
 
+    @Override
+    public Set<String> getTagNames() {
+        return Set.of("timer", "span");
+    }
+
     @Override
     public UIElementBuilder<?> handle(Element element, HtmlParser parser) {
         TimerLabelBuilder builder = TimerLabelBuilder.timerLabel();
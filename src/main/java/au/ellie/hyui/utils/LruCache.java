@@ -0,0 +1,102 @@
+/*
+ *     Copyright (C) 2026 EllieAU
+ *
+ *     This program is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU Lesser General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     This program is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU Lesser General Public License for more details.
+ *
+ *     You should have received a copy of the GNU Lesser General Public License
+ *     along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package au.ellie.hyui.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small, thread-safe, size-bounded cache that evicts the least recently used entry.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public final class LruCache<K, V> {
+    private final int maxSize;
+    private final LinkedHashMap<K, V> entries;
+
+    /**
+     * @param maxSize The maximum number of entries to keep before evicting.
+     */
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    public V get(K key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the cached value for the key, computing and caching it if absent.
+     * The loader runs outside the lock, so two threads may compute the same value once each.
+     *
+     * @param key    The cache key.
+     * @param loader Function used to create the value on a miss.
+     * @return The cached or newly computed value.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        V created = loader.apply(key);
+        synchronized (entries) {
+            V raced = entries.get(key);
+            if (raced != null) {
+                return raced;
+            }
+            entries.put(key, created);
+        }
+        return created;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+}
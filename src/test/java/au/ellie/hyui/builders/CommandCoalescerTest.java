@@ -0,0 +1,113 @@
+package au.ellie.hyui.builders;
+
+import au.ellie.hyui.utils.PropertyBatcher;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommand;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommandType;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CommandCoalescerTest {
+
+    @Test
+    void lastSetOfAPropertyWins() {
+        UICommandBuilder commands = new UICommandBuilder();
+        commands.set("#a.Text", "before the build");
+        int start = CommandDiff.mark(commands);
+        commands.set("#a.Text", "x");
+        commands.set("#b.Text", "1");
+        commands.set("#a.Text", "y");
+
+        CommandCoalescer coalescer = new CommandCoalescer();
+        coalescer.coalesce(commands, start);
+
+        List<CustomUICommand> result = CommandDiff.commandsOf(commands);
+        assertEquals(List.of("#a.Text", "#b.Text", "#a.Text"), selectorsOf(result));
+        assertEquals(new BsonString("before the build"), valueOf(result.get(0)));
+        assertEquals(new BsonString("1"), valueOf(result.get(1)));
+        assertEquals(new BsonString("y"), valueOf(result.get(2)));
+        assertEquals(1, coalescer.getCoalescedCommands());
+    }
+
+    @Test
+    void setsBeforeTheRemoveOfAnAncestorAreDropped() {
+        UICommandBuilder commands = new UICommandBuilder();
+        commands.set("#panel.Visible", "true");
+        commands.set("#panel #row.Text", "A");
+        commands.set("#panelOther.Text", "B");
+        commands.remove("#panel");
+
+        new CommandCoalescer().coalesce(commands, 0);
+
+        List<CustomUICommand> result = CommandDiff.commandsOf(commands);
+        assertEquals(List.of("#panelOther.Text", "#panel"), selectorsOf(result));
+        assertEquals(CustomUICommandType.Remove, result.get(1).type);
+    }
+
+    @Test
+    void setsAfterTheElementIsAppendedAgainAreKept() {
+        UICommandBuilder commands = new UICommandBuilder();
+        commands.set("#row.Text", "A");
+        commands.remove("#row");
+        commands.appendInline("#list", "Label #row {}");
+        commands.set("#row.Text", "B");
+
+        new CommandCoalescer().coalesce(commands, 0);
+
+        List<CustomUICommand> result = CommandDiff.commandsOf(commands);
+        assertEquals(List.of("#row", "#list", "#row.Text"), selectorsOf(result));
+        assertEquals(new BsonString("B"), valueOf(result.get(2)));
+    }
+
+    @Test
+    void styleSetsFollowingTheStyleDocumentFoldIntoIt() {
+        UICommandBuilder commands = new UICommandBuilder();
+        PropertyBatcher.endSet("#a.Style", PropertyBatcher.beginSet().set("TextColor", "#ffcc00"), commands);
+        commands.set("#a.Style.FontSize", "14");
+        commands.set("#a.Style.RenderBold", "true");
+        commands.set("#a.Visible", "true");
+
+        CommandCoalescer coalescer = new CommandCoalescer();
+        coalescer.coalesce(commands, 0);
+
+        List<CustomUICommand> result = CommandDiff.commandsOf(commands);
+        assertEquals(List.of("#a.Style", "#a.Visible"), selectorsOf(result));
+        BsonDocument style = valueOf(result.get(0)).asDocument();
+        assertEquals(Set.of("TextColor", "FontSize", "RenderBold"), style.keySet());
+        assertEquals(new BsonString("14"), style.get("FontSize"));
+        assertEquals(2, coalescer.getCoalescedCommands());
+    }
+
+    @Test
+    void styleSetsOfPropertiesTheDocumentHoldsAreNotFolded() {
+        UICommandBuilder commands = new UICommandBuilder();
+        PropertyBatcher.endSet("#a.Style", PropertyBatcher.beginSet().set("TextColor", "#ffcc00"), commands);
+        commands.set("#a.Style.TextColor", "#ffffff");
+
+        CommandCoalescer coalescer = new CommandCoalescer();
+        coalescer.coalesce(commands, 0);
+
+        List<CustomUICommand> result = CommandDiff.commandsOf(commands);
+        assertEquals(List.of("#a.Style", "#a.Style.TextColor"), selectorsOf(result));
+        assertEquals(Set.of("TextColor"), valueOf(result.get(0)).asDocument().keySet());
+        assertEquals(0, coalescer.getCoalescedCommands());
+    }
+
+    private static List<String> selectorsOf(List<CustomUICommand> commands) {
+        return commands.stream().map(command -> command.selector).toList();
+    }
+
+    /**
+     * @return The value a set command sends, the only entry of its document.
+     */
+    private static BsonValue valueOf(CustomUICommand command) {
+        return BsonDocument.parse(command.data).values().iterator().next();
+    }
+}
@@ -0,0 +1,69 @@
+package au.ellie.hyui.builders;
+
+import au.ellie.hyui.utils.PropertyBatcher;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommand;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandDiffTest {
+
+    @Test
+    void patch_dropsSetsTheClientAlreadyHas() {
+        CommandDiff diff = new CommandDiff();
+        UICommandBuilder first = new UICommandBuilder();
+        first.set("#a.Text", "A");
+        first.set("#b.Text", "B");
+        diff.record(first, 0);
+
+        UICommandBuilder second = new UICommandBuilder();
+        second.set("#a.Text", "A");
+        second.set("#b.Text", "changed");
+
+        assertTrue(diff.patch(second, 0));
+        assertEquals(List.of("#b.Text"), selectorsOf(second));
+    }
+
+    @Test
+    void patch_resendsPropertiesInsideAChangedValue() {
+        CommandDiff diff = new CommandDiff();
+        UICommandBuilder first = new UICommandBuilder();
+        PropertyBatcher.endSet("#x.Style", PropertyBatcher.beginSet().set("TextColor", "#ffcc00"), first);
+        first.set("#x.Style.TextColor", "#ffffff");
+        diff.record(first, 0);
+
+        // The new style document may reset the text color on the client, so it is sent again.
+        UICommandBuilder second = new UICommandBuilder();
+        PropertyBatcher.endSet("#x.Style", PropertyBatcher.beginSet().set("TextColor", "#00ff00"), second);
+        second.set("#x.Style.TextColor", "#ffffff");
+
+        assertTrue(diff.patch(second, 0));
+        assertEquals(List.of("#x.Style", "#x.Style.TextColor"), selectorsOf(second));
+    }
+
+    @Test
+    void patch_keepsDroppingPropertiesOfOtherElements() {
+        CommandDiff diff = new CommandDiff();
+        UICommandBuilder first = new UICommandBuilder();
+        PropertyBatcher.endSet("#x.Style", PropertyBatcher.beginSet().set("TextColor", "#ffcc00"), first);
+        first.set("#x.StyleExtra", "A");
+        first.set("#xy.Style.TextColor", "#ffffff");
+        diff.record(first, 0);
+
+        UICommandBuilder second = new UICommandBuilder();
+        PropertyBatcher.endSet("#x.Style", PropertyBatcher.beginSet().set("TextColor", "#00ff00"), second);
+        second.set("#x.StyleExtra", "A");
+        second.set("#xy.Style.TextColor", "#ffffff");
+
+        assertTrue(diff.patch(second, 0));
+        assertEquals(List.of("#x.Style"), selectorsOf(second));
+    }
+
+    private static List<String> selectorsOf(UICommandBuilder builder) {
+        return CommandDiff.commandsOf(builder).stream().map((CustomUICommand command) -> command.selector).toList();
+    }
+}
@@ -0,0 +1,288 @@
+package au.ellie.hyui.builders;
+
+import au.ellie.hyui.events.UIContext;
+import au.ellie.hyui.html.HtmlParser;
+import au.ellie.hyui.html.RenderedTemplate;
+import au.ellie.hyui.html.TemplateProcessor;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommand;
+import com.hypixel.hytale.protocol.packets.interface_.CustomUICommandType;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyUInterfaceTest {
+
+    private static final String KEYED_LIST = "<div id=\"list\">"
+            + "{{#each rows}}<p data-hyui-key=\"{{$item}}\">{{$item}}</p>{{/each}}</div>";
+
+    @Test
+    void fullBuild_setsEachPropertyOnce() {
+        String html = "<div class=\"container\">"
+                + "<div id=\"panel\" style=\"anchor-height: 40; layout-mode: Top\">"
+                + "<p id=\"title\" style=\"color: #ffcc00\">Score: {{$score}}</p>"
+                + "<progress id=\"bar\" value=\"{{$score}}\" max=\"100\"></progress>"
+                + "<input type=\"number\" id=\"amount\" value=\"5\">"
+                + "<button id=\"claim\">Claim</button>"
+                + "</div></div>";
+        HyUInterface ui = createInterface(html, new TemplateProcessor().setVariable("score", 42));
+        // Neither the coalescer nor the diff may hide a repeated set.
+        ui.setShrinkCommands(false);
+        UICommandBuilder commands = new UICommandBuilder();
+        ui.buildFromCommandBuilder(commands);
+
+        Map<String, Integer> sets = new HashMap<>();
+        for (String selector : selectorsOf(CommandDiff.commandsOf(commands), CustomUICommandType.Set)) {
+            sets.merge(selector, 1, Integer::sum);
+        }
+
+        assertFalse(sets.isEmpty());
+        sets.forEach((selector, count) -> assertEquals(1, count, selector + " was set " + count + " times"));
+    }
+
+    @Test
+    void fullBuild_rendersTheTemplateOnce() {
+        CountingProcessor processor = new CountingProcessor();
+        processor.setVariable("score", 42);
+        HyUInterface ui = createInterface("<p id=\"title\">Score: {{$score}}</p>", processor);
+
+        ui.buildFromCommandBuilder(new UICommandBuilder());
+
+        assertEquals(1, processor.renders);
+        assertEquals(0, processor.refreshes);
+    }
+
+    @Test
+    void fullBuild_buildsEachElementOnceAndNeverAsAnUpdate() {
+        CountingLabel label = new CountingLabel();
+        label.withText("Score");
+        HyUInterface ui = new HyUInterface(null, new ArrayList<>(List.of(label)), null, null, null, false) {};
+
+        ui.buildFromCommandBuilder(new UICommandBuilder());
+        assertEquals(1, label.builds);
+        assertEquals(0, label.updates);
+
+        ui.buildFromCommandBuilder(new UICommandBuilder(), true);
+        assertEquals(1, label.builds);
+        assertEquals(1, label.updates);
+    }
+
+    @Test
+    void buildPatch_sendsOnlyChangedPropertiesWhileTheStructureIsTheSame() {
+        TemplateProcessor processor = new TemplateProcessor()
+                .setVariable("score", 1)
+                .setVariable("rows", List.of("A"));
+        String html = "<div id=\"panel\"><p id=\"score\">Score {{$score}}</p>"
+                + "{{#each rows}}<p>{{$item}}</p>{{/each}}</div>";
+        HyUInterface ui = createInterface(html, processor);
+
+        UICommandBuilder first = new UICommandBuilder();
+        assertFalse(ui.buildPatch(null, first, new UIEventBuilder(), null), "the first build must clear the page");
+        assertTrue(CommandDiff.commandsOf(first).stream().anyMatch(command -> command.type != CustomUICommandType.Set));
+
+        processor.setVariable("score", 2);
+        UICommandBuilder second = new UICommandBuilder();
+        assertTrue(ui.buildPatch(null, second, new UIEventBuilder(), null), "a changed property is a patch");
+        List<CustomUICommand> patch = CommandDiff.commandsOf(second);
+        String label = "#" + ui.getById("score").orElseThrow().getEffectiveId();
+        assertFalse(patch.isEmpty());
+        for (CustomUICommand command : patch) {
+            assertEquals(CustomUICommandType.Set, command.type);
+            assertTrue(command.selector.startsWith(label), command.selector);
+        }
+
+        UICommandBuilder unchanged = new UICommandBuilder();
+        assertTrue(ui.buildPatch(null, unchanged, new UIEventBuilder(), null));
+        assertTrue(CommandDiff.commandsOf(unchanged).isEmpty());
+
+        processor.setVariable("rows", List.of("A", "B"));
+        UICommandBuilder third = new UICommandBuilder();
+        assertFalse(ui.buildPatch(null, third, new UIEventBuilder(), null), "a new element needs the page cleared");
+        assertTrue(CommandDiff.commandsOf(third).stream().anyMatch(command -> command.type != CustomUICommandType.Set));
+
+        // The fallback was recorded, so the next build patches against the page with two rows.
+        processor.setVariable("score", 3);
+        UICommandBuilder fourth = new UICommandBuilder();
+        assertTrue(ui.buildPatch(null, fourth, new UIEventBuilder(), null));
+        assertFalse(CommandDiff.commandsOf(fourth).isEmpty());
+    }
+
+    @Test
+    void updateBuild_movesOnlyElementsOffTheLongestKeptRun() {
+        TemplateProcessor processor = new TemplateProcessor().setVariable("rows", List.of("A", "B", "C"));
+        HyUInterface ui = createInterface(KEYED_LIST, processor);
+        ui.buildFromCommandBuilder(new UICommandBuilder());
+        Map<String, String> rows = outerSelectorsByKey(ui);
+
+        processor.setVariable("rows", List.of("C", "A", "B"));
+        List<CustomUICommand> commands = update(ui);
+
+        // A and B keep their order, so only C is removed and built again in front of A.
+        assertEquals(List.of(rows.get("C")), selectorsOf(commands, CustomUICommandType.Remove));
+        assertEquals(List.of(rows.get("A")), insertSelectorsOf(commands));
+        assertEquals(List.of("C", "A", "B"), keysOf(ui));
+    }
+
+    @Test
+    void updateBuild_insertsNewElementsBeforeTheirNextSibling() {
+        TemplateProcessor processor = new TemplateProcessor().setVariable("rows", List.of("A", "C"));
+        HyUInterface ui = createInterface(KEYED_LIST, processor);
+        ui.buildFromCommandBuilder(new UICommandBuilder());
+        Map<String, String> rows = outerSelectorsByKey(ui);
+
+        processor.setVariable("rows", List.of("A", "B", "C"));
+        List<CustomUICommand> commands = update(ui);
+
+        assertTrue(selectorsOf(commands, CustomUICommandType.Remove).isEmpty());
+        assertEquals(List.of(rows.get("C")), insertSelectorsOf(commands));
+        assertEquals(rows.get("A"), outerSelectorsByKey(ui).get("A"));
+        assertEquals(List.of("A", "B", "C"), keysOf(ui));
+    }
+
+    @Test
+    void updateBuild_removesOnlyElementsThatAreGone() {
+        TemplateProcessor processor = new TemplateProcessor().setVariable("rows", List.of("A", "B", "C"));
+        HyUInterface ui = createInterface(KEYED_LIST, processor);
+        ui.buildFromCommandBuilder(new UICommandBuilder());
+        Map<String, String> rows = outerSelectorsByKey(ui);
+
+        processor.setVariable("rows", List.of("A", "C"));
+        List<CustomUICommand> commands = update(ui);
+
+        assertEquals(List.of(rows.get("B")), selectorsOf(commands, CustomUICommandType.Remove));
+        assertTrue(insertSelectorsOf(commands).isEmpty());
+        assertEquals(List.of("A", "C"), keysOf(ui));
+    }
+
+    @Test
+    void updateBuild_matchesDuplicateKeysToTheFirstElementOnly() {
+        TemplateProcessor processor = new TemplateProcessor().setVariable("rows", List.of("A", "A", "B"));
+        HyUInterface ui = createInterface(KEYED_LIST, processor);
+        ui.buildFromCommandBuilder(new UICommandBuilder());
+        List<UIElementBuilder<?>> before = List.copyOf(list(ui).children);
+
+        processor.setVariable("rows", List.of("B", "A", "A"));
+        List<CustomUICommand> commands = update(ui);
+
+        // The second A has no element to match, so it is removed and a new one is appended.
+        List<UIElementBuilder<?>> after = list(ui).children;
+        assertSame(before.get(2), after.get(0));
+        assertSame(before.get(0), after.get(1));
+        assertFalse(before.contains(after.get(2)));
+        assertEquals(List.of(before.get(1).getOuterSelector(), before.get(2).getOuterSelector()),
+                selectorsOf(commands, CustomUICommandType.Remove));
+        assertEquals(List.of(list(ui).getChildParentSelector(after.get(2)), before.get(0).getOuterSelector()),
+                insertSelectorsOf(commands));
+    }
+
+    @Test
+    void updateBuild_matchesElementsWithoutKeysInOrder() {
+        TemplateProcessor processor = new TemplateProcessor().setVariable("rows", List.of("A", "B"));
+        HyUInterface ui = createInterface("<div id=\"list\"><p>Header</p>"
+                + "{{#each rows}}<p data-hyui-key=\"{{$item}}\">{{$item}}</p>{{/each}}</div>", processor);
+        ui.buildFromCommandBuilder(new UICommandBuilder());
+        UIElementBuilder<?> header = list(ui).children.get(0);
+        Map<String, String> rows = outerSelectorsByKey(ui);
+
+        processor.setVariable("rows", List.of("B", "A"));
+        List<CustomUICommand> commands = update(ui);
+
+        assertSame(header, list(ui).children.get(0));
+        assertEquals(List.of(rows.get("B")), selectorsOf(commands, CustomUICommandType.Remove));
+        assertEquals(List.of(rows.get("A")), insertSelectorsOf(commands));
+    }
+
+    @Test
+    void longestIncreasingRun_skipsNewElements() {
+        assertArrayEquals(new boolean[] {false, true, true}, HyUInterface.longestIncreasingRun(new int[] {2, 0, 1}));
+        assertArrayEquals(new boolean[] {true, false, true}, HyUInterface.longestIncreasingRun(new int[] {0, -1, 1}));
+        assertArrayEquals(new boolean[] {false, false}, HyUInterface.longestIncreasingRun(new int[] {-1, -1}));
+        assertArrayEquals(new boolean[0], HyUInterface.longestIncreasingRun(new int[0]));
+    }
+
+    private static HyUInterface createInterface(String html, TemplateProcessor processor) {
+        List<UIElementBuilder<?>> elements = new HtmlParser().parse(processor.process(html));
+        return new HyUInterface(null, elements, null, html, processor, true) {};
+    }
+
+    private static List<CustomUICommand> update(HyUInterface ui) {
+        UICommandBuilder commands = new UICommandBuilder();
+        ui.buildFromCommandBuilder(commands, true);
+        return CommandDiff.commandsOf(commands);
+    }
+
+    private static UIElementBuilder<?> list(HyUInterface ui) {
+        return ui.getById("list").orElseThrow();
+    }
+
+    private static Map<String, String> outerSelectorsByKey(HyUInterface ui) {
+        Map<String, String> selectors = new HashMap<>();
+        for (UIElementBuilder<?> row : list(ui).children) {
+            if (row.getKey() != null) {
+                selectors.put(row.getKey(), row.getOuterSelector());
+            }
+        }
+        return selectors;
+    }
+
+    private static List<String> keysOf(HyUInterface ui) {
+        return list(ui).children.stream().map(UIElementBuilder::getKey).toList();
+    }
+
+    private static List<String> selectorsOf(List<CustomUICommand> commands, CustomUICommandType type) {
+        return commands.stream().filter(command -> command.type == type).map(command -> command.selector).toList();
+    }
+
+    /**
+     * @return The selectors of the appends and inserts, which are where new elements go.
+     */
+    private static List<String> insertSelectorsOf(List<CustomUICommand> commands) {
+        return commands.stream()
+                .filter(command -> command.type != CustomUICommandType.Set && command.type != CustomUICommandType.Remove)
+                .map(command -> command.selector)
+                .toList();
+    }
+
+    private static final class CountingProcessor extends TemplateProcessor {
+        int renders;
+        int refreshes;
+
+        @Override
+        public RenderedTemplate renderTracked(String template, UIContext context) {
+            renders++;
+            return super.renderTracked(template, context);
+        }
+
+        @Override
+        public boolean refresh(RenderedTemplate rendered, UIContext context, Set<String> changedNames) {
+            refreshes++;
+            return super.refresh(rendered, context, changedNames);
+        }
+    }
+
+    private static final class CountingLabel extends LabelBuilder {
+        int builds;
+        int updates;
+
+        @Override
+        protected void build(UICommandBuilder commands, UIEventBuilder events, boolean updateOnly) {
+            if (updateOnly) {
+                updates++;
+            } else {
+                builds++;
+            }
+            super.build(commands, events, updateOnly);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package au.ellie.hyui.builders;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class UIElementBuilderTest {
+
+    @Test
+    void copy_doesNotShareBackgroundsOrAnchors() {
+        LabelBuilder original = LabelBuilder.label()
+                .withText("Title")
+                .withBackground(new HyUIPatchStyle().setColor("#112233"))
+                .withAnchor(new HyUIAnchor().setHeight(20));
+
+        LabelBuilder copy = original.copy();
+        copy.getBackground().setColor("#ff0000");
+        copy.getAnchor().setHeight(99);
+
+        assertEquals("#112233", original.getBackground().getColor());
+        assertEquals(20, original.getAnchor().getHeight());
+        assertEquals("#ff0000", copy.getBackground().getColor());
+    }
+
+    @Test
+    void copy_copiesChildren() {
+        GroupBuilder original = GroupBuilder.group()
+                .withBackground(new HyUIPatchStyle().setColor("#112233"))
+                .addChild(LabelBuilder.label().withText("A"));
+
+        GroupBuilder copy = original.copy();
+        copy.addChild(LabelBuilder.label().withText("B"));
+        copy.getBackground().setColor("#ff0000");
+
+        assertEquals(1, original.children.size());
+        assertEquals(2, copy.children.size());
+        assertNotSame(original.children.get(0), copy.children.get(0));
+        assertEquals("#112233", original.getBackground().getColor());
+    }
+
+    @Test
+    void copy_keepsSetIdsAndGeneratesNewOnes() {
+        LabelBuilder named = LabelBuilder.label().withId("title");
+        LabelBuilder unnamed = LabelBuilder.label();
+
+        assertEquals("title", named.copy().getId());
+        assertEquals(named.getEffectiveId(), named.copy().getEffectiveId());
+        assertNotEquals(unnamed.getEffectiveId(), unnamed.copy().getEffectiveId());
+    }
+}
@@ -0,0 +1,83 @@
+package au.ellie.hyui.html;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElementTemplateTest {
+
+    @Test
+    void attributeAndTextHolesBuildTheRenderedPage() {
+        TemplateProcessor processor = new TemplateProcessor()
+                .setVariable("height", 40)
+                .setVariable("kind", "gold")
+                .setVariable("name", "Steve")
+                .setVariable("score", 42)
+                .setVariable("max", 100);
+
+        assertSameElements(processor, """
+                <style>.gold { color: #ffcc00 }</style>
+                <div id="panel" style="anchor-height: {{$height}}; layout-mode: Top">
+                    <p class="{{$kind}}">Score: {{$score}} of {{$max}}</p>
+                    <p>{{$name|upper}}</p>
+                    <progress id="bar" value="{{$score}}" max="{{$max}}"></progress>
+                </div>
+                """);
+    }
+
+    @Test
+    void emptyValuesRemoveTheirTextNodes() {
+        TemplateProcessor processor = new TemplateProcessor()
+                .setVariable("label", "")
+                .setVariable("loose", "");
+
+        assertSameElements(processor, "<div><p>{{$label}}</p>{{$loose}}<p>After</p></div>");
+    }
+
+    @Test
+    void valuesChangeBetweenRenders() {
+        TemplateProcessor processor = new TemplateProcessor().setVariable("score", 1);
+        String template = "<p id=\"score\">Score: {{$score}}</p>";
+        ElementTemplate elements = ElementTemplate.compile(template);
+        String[] first = elements.renderValues(processor, null);
+
+        processor.setVariable("score", 2);
+        String[] second = elements.renderValues(processor, null);
+
+        assertEquals(List.of("1"), List.of(first));
+        assertEquals(List.of("2"), List.of(second));
+        assertSameElements(processor, template);
+    }
+
+    @Test
+    void templatesWithBlocksAreNotSupported() {
+        assertFalse(ElementTemplate.compile("{{#if shown}}<p>A</p>{{/if}}").isSupported());
+        assertFalse(ElementTemplate.compile("{{#each rows}}<p>{{$item}}</p>{{/each}}").isSupported());
+    }
+
+    @Test
+    void holesOutsideAttributeValuesAndTextAreNotSupported() {
+        assertFalse(ElementTemplate.compile("<{{$tag}}>A</{{$tag}}>").isSupported());
+        assertFalse(ElementTemplate.compile("<p {{$name}}=\"x\">A</p>").isSupported());
+        assertFalse(ElementTemplate.compile("<style>p { color: {{$color}} }</style><p>A</p>").isSupported());
+        assertTrue(ElementTemplate.compile("<p data-x=\"{{$value}}\">{{$value}}</p>").isSupported());
+    }
+
+    /**
+     * Asserts that filling the template's holes builds the same elements as rendering it to
+     * HTML and parsing that, the way {@link HtmlParser#parse} does without its cache.
+     */
+    private static void assertSameElements(TemplateProcessor processor, String template) {
+        ElementTemplate elements = ElementTemplate.compile(template);
+        assertTrue(elements.isSupported());
+
+        assertEquals(
+                StreamingHtmlParserTest.describe(new HtmlParser().parseDocument(processor.process(template))),
+                StreamingHtmlParserTest.describe(elements.instantiate(elements.renderValues(processor, null)))
+        );
+    }
+}
@@ -0,0 +1,148 @@
+package au.ellie.hyui.html;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static au.ellie.hyui.html.TemplateProcessorBenchmark.measure;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rough timings for the HyUIML parser. Excluded from {@code test}; run with {@code gradlew benchmark}.
+ */
+@Tag("benchmark")
+class HtmlParserBenchmark {
+
+    @Test
+    void tagDispatch_2000Cards_linearScanVersusTable() {
+        List<Element> elements = Jsoup.parseBodyFragment(createCards(2_000)).body().getAllElements();
+        TagHandlerRegistry registry = TagHandlerRegistry.DEFAULT;
+        for (Element element : elements) {
+            assertSame(findLinear(registry, element), registry.find(element));
+        }
+
+        long linear = measure(() -> elements.forEach(element -> findLinear(registry, element)), 20, 200);
+        long table = measure(() -> elements.forEach(registry::find), 20, 200);
+
+        System.out.printf("Tag dispatch (%,d elements): linear scan %,d ns/op, dispatch table %,d ns/op%n",
+                elements.size(), linear, table);
+    }
+
+    @Test
+    void parse_150Cards_freshVersusCached() {
+        String html = createCards(150);
+        // Larger pages are never cached, so both arms would parse.
+        assertTrue(html.length() <= HtmlParser.MAX_CACHED_HTML_LENGTH, html.length() + " chars");
+        HtmlParser.clearCache();
+        int parsed = new HtmlParser().parse(html).size();
+        assertEquals(parsed, new HtmlParser().parse(html).size());
+
+        long fresh = measure(() -> {
+            HtmlParser.clearCache();
+            new HtmlParser().parse(html);
+        }, 5, 30);
+        long cached = measure(() -> new HtmlParser().parse(html), 5, 30);
+
+        System.out.printf("Parse (150 cards, %,d chars): fresh %,d ns/op, cached %,d ns/op%n",
+                html.length(), fresh, cached);
+    }
+
+    @Test
+    void stylesheet_200Rules_2000Cards() {
+        StringBuilder css = new StringBuilder("<style>");
+        for (int i = 0; i < 100; i++) {
+            css.append(".tier-").append(i).append(" { color: #ffcc00; font-size: ").append(i).append(" } ");
+            css.append("#card-").append(i).append(" { anchor-height: 40 } ");
+        }
+        css.append("p { font-weight: bold } div > p { color: #ffffff }</style>");
+        StringBuilder html = new StringBuilder(css);
+        for (int i = 0; i < 2_000; i++) {
+            html.append("<div id=\"card-").append(i).append("\" class=\"tier-").append(i % 100).append("\">")
+                    .append("<p>Card ").append(i).append("</p></div>");
+        }
+        Document page = Jsoup.parseBodyFragment(html.toString());
+
+        long copyOnly = measure(page::clone, 5, 50);
+        long styled = measure(() -> new CssPreprocessor().process(page.clone()), 5, 50);
+
+        System.out.printf("Stylesheet (200 rules, 2,000 cards): %,d ns/op (document copy %,d ns/op)%n",
+                styled, copyOnly);
+    }
+
+    @Test
+    void update_500Cards_renderAndParseVersusElementTemplate() {
+        StringBuilder template = new StringBuilder("<div class=\"container\">");
+        for (int i = 0; i < 500; i++) {
+            template.append("<div id=\"card-").append(i).append("\" style=\"anchor-height: 40\">")
+                    .append("<p>Card ").append(i).append(": {{$score}} points</p>")
+                    .append("<progress value=\"{{$score}}\" max=\"100000\"></progress>")
+                    .append("</div>");
+        }
+        String html = template.append("</div>").toString();
+        TemplateProcessor processor = new TemplateProcessor().setVariable("score", 0);
+        ElementTemplate elements = ElementTemplate.compile(html);
+        assertTrue(elements.isSupported());
+        assertEquals(new HtmlParser().parse(processor.process(html)).size(),
+                elements.instantiate(elements.renderValues(processor, null)).size());
+
+        // A new score every time, so the parser's cache never hits.
+        AtomicInteger score = new AtomicInteger();
+        long rendered = measure(() -> {
+            processor.setVariable("score", score.incrementAndGet());
+            new HtmlParser().parse(processor.process(html));
+        }, 5, 30);
+        long direct = measure(() -> {
+            processor.setVariable("score", score.incrementAndGet());
+            elements.instantiate(elements.renderValues(processor, null));
+        }, 5, 30);
+
+        System.out.printf("Update (500 cards): render and parse %,d ns/op, element template %,d ns/op%n",
+                rendered, direct);
+    }
+
+    @Test
+    void parse_5000Cards_documentVersusStreaming() {
+        String html = "<style>.container p { font-weight: bold } div > span { anchor-width: 32 }</style>"
+                + createCards(5_000);
+        assertEquals(new HtmlParser().parse(html).size(), new StreamingHtmlParser().parse(html).size());
+
+        long document = measure(() -> {
+            HtmlParser.clearCache();
+            new HtmlParser().parse(html);
+        }, 3, 20);
+        long streaming = measure(() -> new StreamingHtmlParser().parse(html), 3, 20);
+
+        System.out.printf("Parse (5,000 cards, %,d chars): whole document %,d ns/op, streaming %,d ns/op%n",
+                html.length(), document, streaming);
+    }
+
+    private static TagHandler findLinear(TagHandlerRegistry registry, Element element) {
+        for (TagHandler handler : registry.getHandlers()) {
+            if (handler.canHandle(element)) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    private static String createCards(int count) {
+        StringBuilder html = new StringBuilder("<div class=\"page-overlay\"><div class=\"container\">");
+        for (int i = 0; i < count; i++) {
+            html.append("<div id=\"card-").append(i).append("\" style=\"anchor-height: 40; layout-mode: Left\">")
+                    .append("<p style=\"color: #ffcc00; font-size: 14\">Card ").append(i).append("</p>")
+                    .append("<span class=\"item-icon\" data-hyui-item-id=\"Tool_Pickaxe_Iron\"></span>")
+                    .append("<progress value=\"").append(i % 100).append("\" max=\"100\"></progress>")
+                    .append("<input type=\"number\" value=\"").append(i).append("\">")
+                    .append("<button class=\"secondary-button\">Claim</button>")
+                    .append("</div>");
+        }
+        return html.append("</div></div>").toString();
+    }
+}
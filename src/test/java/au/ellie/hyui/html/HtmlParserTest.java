@@ -0,0 +1,55 @@
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.builders.GroupBuilder;
+import au.ellie.hyui.builders.UIElementBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class HtmlParserTest {
+
+    private static final String PAGE = "<div id=\"cached-panel\" style=\"background-color: #112233\"></div>"
+            + "<p id=\"cached-title\" style=\"anchor-height: 20\">Title</p>";
+
+    @Test
+    void cachedParsesDoNotShareElements() {
+        List<UIElementBuilder<?>> first = new HtmlParser().parse(PAGE);
+        List<UIElementBuilder<?>> second = new HtmlParser().parse(PAGE);
+
+        assertEquals(2, second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertNotSame(first.get(i), second.get(i));
+        }
+        assertNotSame(((GroupBuilder) first.get(0)).getBackground(), ((GroupBuilder) second.get(0)).getBackground());
+    }
+
+    @Test
+    void changesToAParsedPageDoNotReachLaterParses() {
+        List<UIElementBuilder<?>> first = new HtmlParser().parse(PAGE);
+        GroupBuilder panel = (GroupBuilder) first.get(0);
+        String color = panel.getBackground().getColor();
+        panel.getBackground().setColor("#ff0000");
+        first.get(1).getAnchor().setHeight(99);
+        first.get(1).withId("renamed");
+
+        List<UIElementBuilder<?>> second = new HtmlParser().parse(PAGE);
+
+        assertEquals(color, ((GroupBuilder) second.get(0)).getBackground().getColor());
+        assertEquals(20, second.get(1).getAnchor().getHeight());
+        assertEquals("cached-title", second.get(1).getId());
+    }
+
+    @Test
+    void pagesOverTheCacheLimitAreParsedEachTime() {
+        String page = PAGE + "<p>" + "x".repeat(HtmlParser.MAX_CACHED_HTML_LENGTH) + "</p>";
+
+        List<UIElementBuilder<?>> first = new HtmlParser().parse(page);
+        String color = ((GroupBuilder) first.get(0)).getBackground().getColor();
+        ((GroupBuilder) first.get(0)).getBackground().setColor("#ff0000");
+
+        assertEquals(color, ((GroupBuilder) new HtmlParser().parse(page).get(0)).getBackground().getColor());
+    }
+}
@@ -0,0 +1,181 @@
+package au.ellie.hyui.html;
+
+import au.ellie.hyui.builders.UIElementBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class StreamingHtmlParserTest {
+
+    // Generated element ids end in a counter that depends on the order elements were built in.
+    private static final Pattern GENERATED_ID = Pattern.compile("HYUUID\\w*");
+
+    @Test
+    void nestedContainersMatchTheDocumentParser() {
+        assertSameBuilders("""
+                <style>
+                .panel p { font-weight: bold }
+                .panel > .row { layout-mode: Left }
+                #title { color: #ffcc00 }
+                button { anchor-height: 30 }
+                </style>
+                <div class="page-overlay">
+                    <div class="container" data-hyui-title="Rewards">
+                        <div class="container-contents">
+                            <p id="title">Rewards</p>
+                            <div class="panel">
+                                <div class="row" id="row-1">
+                                    <p>First</p>
+                                    <progress value="40" max="100"></progress>
+                                    <div><p>Nested</p><input type="number" value="3"></div>
+                                </div>
+                                <div class="row" id="row-2">
+                                    <p style="color: #ffffff">Second</p>
+                                    <button class="secondary-button">Claim</button>
+                                </div>
+                            </div>
+                        </div>
+                    </div>
+                </div>
+                <p>After the page</p>
+                """);
+    }
+
+    @Test
+    void tabNavigationAndContentsMatchTheDocumentParser() {
+        assertSameBuilders("""
+                <style>
+                .tab-content p { font-size: 12 }
+                </style>
+                <div class="panel">
+                    <nav id="main-tabs" class="tabs" data-tabs="stats:Stats:stats-content,gear:Gear:gear-content"
+                         data-selected="gear"></nav>
+                    <div id="stats-content" class="tab-content" data-hyui-tab-id="stats">
+                        <p>Kills</p>
+                        <div><p>Deaths</p></div>
+                    </div>
+                    <div id="gear-content" class="tab-content" data-hyui-tab-id="gear">
+                        <p>Sword</p>
+                    </div>
+                </div>
+                <nav class="tabs" data-selected="a">
+                    <button data-tab="a" data-tab-content="a-content">A</button>
+                    <button data-tab="b" data-tab-content="b-content">B</button>
+                </nav>
+                <div id="a-content" class="tab-content" data-hyui-tab-id="a"><p>First</p></div>
+                <div id="b-content" class="tab-content" data-hyui-tab-id="b"><p>Second</p></div>
+                """);
+    }
+
+    @Test
+    void stylesheetsNeedingTheWholeDocumentFallBackToIt() {
+        assertFalse(Stylesheet.parse("p:hover { color: #ffcc00 } h1 + p { a: 1 } p ~ p { b: 2 }").isIncremental());
+
+        assertSameBuilders("""
+                <style>
+                .row:hover { color: #ffcc00 }
+                p + p { font-weight: bold }
+                p ~ button { anchor-height: 30 }
+                </style>
+                <div class="row"><p>First</p><p>Second</p><button>Go</button></div>
+                """);
+    }
+
+    @Test
+    void pagesWithoutStylesMatchTheDocumentParser() {
+        assertSameBuilders("""
+                <div><p>One</p><div><p>Two</p></div></div>
+                Loose text
+                <p>Three</p>
+                """);
+    }
+
+    private static void assertSameBuilders(String html) {
+        List<UIElementBuilder<?>> document = new HtmlParser().parseDocument(html);
+        List<UIElementBuilder<?>> streamed = new StreamingHtmlParser().parse(html);
+
+        assertEquals(describe(document), describe(streamed));
+    }
+
+    /**
+     * Describes every field of the builders, recursively, so two trees built from the same HTML
+     * describe the same.
+     */
+    static String describe(List<UIElementBuilder<?>> builders) {
+        StringBuilder out = new StringBuilder();
+        try {
+            describe(builders, out, new IdentityHashMap<>());
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+        return GENERATED_ID.matcher(out).replaceAll("HYUUID");
+    }
+
+    private static void describe(Object value, StringBuilder out, Map<Object, Boolean> path) throws IllegalAccessException {
+        if (value == null || value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?>) {
+            out.append(value);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type.isSynthetic() || type.isHidden()) {
+            // Lambdas, such as event listeners, only compare by where they come from.
+            out.append("lambda");
+            return;
+        }
+        if (path.put(value, Boolean.TRUE) != null) {
+            out.append('^').append(type.getName());
+            return;
+        }
+        if (value instanceof Map<?, ?> map) {
+            out.append('{');
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                describe(entry.getKey(), out, path);
+                out.append('=');
+                describe(entry.getValue(), out, path);
+                out.append(',');
+            }
+            out.append('}');
+        } else if (value instanceof Iterable<?> iterable) {
+            out.append('[');
+            for (Object item : iterable) {
+                describe(item, out, path);
+                out.append(',');
+            }
+            out.append(']');
+        } else if (type.isArray()) {
+            out.append('[');
+            for (int i = 0; i < Array.getLength(value); i++) {
+                describe(Array.get(value, i), out, path);
+                out.append(',');
+            }
+            out.append(']');
+        } else if (type.getName().startsWith("java.")) {
+            out.append(value);
+        } else {
+            out.append(type.getName()).append('{');
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    out.append(field.getName()).append('=');
+                    describe(field.get(value), out, path);
+                    out.append(',');
+                }
+            }
+            out.append('}');
+        }
+        path.remove(value);
+    }
+}
@@ -0,0 +1,211 @@
+package au.ellie.hyui.html;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StylesheetTest {
+
+    @AfterEach
+    void tearDown() {
+        CssPreprocessor.clearGlobalStylesheets();
+    }
+
+    /* --------------------------------------------------
+     * Indexed rules
+     * -------------------------------------------------- */
+
+    @Nested
+    class IndexedRules {
+
+        @Test
+        void matchesIdClassTagAndUnindexedRulesInStyleOrder() {
+            Document page = style("""
+                    <style>
+                    [data-kind] { d: 4 }
+                    p { c: 3 }
+                    .card { b: 2 }
+                    #title { a: 1 }
+                    </style>
+                    <p id="title" class="card" data-kind="x">Title</p>
+                    """);
+
+            assertEquals("d: 4;c: 3;b: 2;a: 1;", page.getElementById("title").attr("style"));
+        }
+
+        @Test
+        void onlyMatchesRulesWhoseWholeSelectorMatches() {
+            Document page = style("""
+                    <style>
+                    p.card { a: 1 }
+                    #other { b: 2 }
+                    .CARD { c: 3 }
+                    span { d: 4 }
+                    </style>
+                    <p id="x" class="card">A</p>
+                    <div id="y" class="card">B</div>
+                    """);
+
+            assertEquals("a: 1;c: 3;", page.getElementById("x").attr("style"));
+            assertEquals("c: 3;", page.getElementById("y").attr("style"));
+        }
+
+        @Test
+        void laterRulesWinOverEarlierOnes() {
+            Document page = style("""
+                    <style>
+                    .card { color: #ff0000 }
+                    p { color: #0000ff }
+                    .card { font-size: 12 }
+                    </style>
+                    <p id="x" class="card">A</p>
+                    """);
+
+            // Rules for the same selector are merged at the position of the first one.
+            assertEquals("color: #ff0000;font-size: 12;color: #0000ff;", page.getElementById("x").attr("style"));
+        }
+
+        @Test
+        void repeatedClassNamesMatchOnce() {
+            Document page = style("<style>.card { a: 1 }</style><p id=\"x\" class=\"card card\">A</p>");
+
+            assertEquals("a: 1;", page.getElementById("x").attr("style"));
+        }
+    }
+
+    /* --------------------------------------------------
+     * Structural rules
+     * -------------------------------------------------- */
+
+    @Nested
+    class StructuralRules {
+
+        @Test
+        void matchesDescendantAndChildCombinators() {
+            Document page = style("""
+                    <style>
+                    .list p { a: 1 }
+                    .list > p { b: 2 }
+                    </style>
+                    <div class="list"><p id="child">A</p><div><p id="nested">B</p></div></div>
+                    <p id="outside">C</p>
+                    """);
+
+            assertEquals("a: 1;b: 2;", page.getElementById("child").attr("style"));
+            assertEquals("a: 1;", page.getElementById("nested").attr("style"));
+            assertFalse(page.getElementById("outside").hasAttr("style"));
+        }
+
+        @Test
+        void matchesSiblingAndPseudoClassSelectors() {
+            Document page = style("""
+                    <style>
+                    h1 + p { a: 1 }
+                    h1 ~ p { b: 2 }
+                    p:not(.skip) { c: 3 }
+                    </style>
+                    <h1>Title</h1><p id="first">A</p><p id="second" class="skip">B</p>
+                    """);
+
+            assertEquals("a: 1;b: 2;c: 3;", page.getElementById("first").attr("style"));
+            assertEquals("b: 2;", page.getElementById("second").attr("style"));
+        }
+
+        @Test
+        void structuralAndIndexedRulesKeepStyleOrder() {
+            Document page = style("""
+                    <style>
+                    div p { color: #ff0000 }
+                    p { color: #0000ff }
+                    </style>
+                    <div><p id="x">A</p></div>
+                    """);
+
+            assertEquals("color: #ff0000;color: #0000ff;", page.getElementById("x").attr("style"));
+        }
+
+        @Test
+        void onlyDescendantAndChildSelectorsAreIncremental() {
+            assertTrue(Stylesheet.parse(".a p { x: 1 } .a > .b { y: 2 } #c { z: 3 }").isIncremental());
+            assertFalse(Stylesheet.parse("h1 + p { x: 1 }").isIncremental());
+            assertFalse(Stylesheet.parse("h1 ~ p { x: 1 }").isIncremental());
+            assertFalse(Stylesheet.parse("p:not(.a) { x: 1 }").isIncremental());
+        }
+    }
+
+    /* --------------------------------------------------
+     * Hover styles, global stylesheets and inline styles
+     * -------------------------------------------------- */
+
+    @Nested
+    class Precedence {
+
+        @Test
+        void hoverRulesGoToTheHoverStyle() {
+            Document page = style("""
+                    <style>
+                    .button { color: #ffffff }
+                    .button:hover { color: #ffcc00 }
+                    </style>
+                    <p id="x" class="button">A</p>
+                    """);
+            Element element = page.getElementById("x");
+
+            assertEquals("color: #ffffff;", element.attr("style"));
+            assertEquals("color: #ffcc00;", element.attr("data-hyui-hover-style"));
+        }
+
+        @Test
+        void globalStylesheetsApplyBeforeThePage() {
+            CssPreprocessor.addGlobalStylesheet("p { color: #ff0000; font-size: 10 }");
+
+            Document page = style("<style>p { color: #0000ff }</style><p id=\"x\">A</p>");
+
+            assertEquals("color: #ff0000; font-size: 10;color: #0000ff;", page.getElementById("x").attr("style"));
+        }
+
+        @Test
+        void globalStylesheetsApplyToPagesWithoutStyles() {
+            Stylesheet global = CssPreprocessor.addGlobalStylesheet("p { color: #ff0000 }");
+
+            assertEquals("color: #ff0000;", style("<p id=\"x\">A</p>").getElementById("x").attr("style"));
+            assertTrue(CssPreprocessor.removeGlobalStylesheet(global));
+            assertFalse(style("<p id=\"x\">A</p>").getElementById("x").hasAttr("style"));
+        }
+
+        @Test
+        void inlineStylesComeAfterRules() {
+            Document page = style("""
+                    <style>
+                    p { color: #0000ff }
+                    p:hover { color: #ff0000 }
+                    </style>
+                    <p id="x" style="color: #00ff00" data-hyui-hover-style="color: #ffffff">A</p>
+                    """);
+            Element element = page.getElementById("x");
+
+            assertEquals("color: #0000ff;color: #00ff00", element.attr("style"));
+            assertEquals("color: #ff0000;color: #ffffff", element.attr("data-hyui-hover-style"));
+        }
+
+        @Test
+        void definitionsAreStoredOnTheBody() {
+            Document page = style("<style>@primary { color: #ffcc00 }</style><p>A</p>");
+
+            assertEquals("color: #ffcc00", page.body().attr("data-hyui-style-def-primary"));
+        }
+    }
+
+    private static Document style(String html) {
+        Document page = Jsoup.parseBodyFragment(html);
+        new CssPreprocessor().process(page);
+        return page;
+    }
+}
@@ -0,0 +1,193 @@
+package au.ellie.hyui.html;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Rough timings for the template processor. Excluded from {@code test}; run with {@code gradlew benchmark}.
+ */
+@Tag("benchmark")
+class TemplateProcessorBenchmark {
+
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 2_000;
+    private static final String BOUNTY_CARD = """
+            <div class="bounty-card" style="layout-mode: Left; padding: 4;">
+                <p style="flex-weight: 2;">{{$title}}</p>
+                <p style="flex-weight: 1;">Lvl {{$level}}</p>
+                {{#if level >= 6 || rarity == Rare}}
+                <p style="color: #4CAF50; flex-weight: 1;">Priority</p>
+                {{else}}
+                <p style="color: #888888; flex-weight: 1;">Standard</p>
+                {{/if}}
+                <button class="small-tertiary-button">Track</button>
+            </div>
+            """;
+
+    private TemplateProcessor processor;
+    private String bountyBoard;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bountyBoard = loadPage("BountyBoard.html");
+        processor = createBountyTemplate(createBounties(50));
+    }
+
+    @Test
+    void bountyBoard_multiPassVersusCompiled() {
+        MultiPassTemplateProcessor multiPass = createMultiPassBountyTemplate(createBounties(50));
+        // All paths must agree before comparing their timings.
+        assertEquals(multiPass.process(bountyBoard), processor.process(bountyBoard));
+        assertEquals(
+                processor.process(CompiledTemplate.compile(bountyBoard)),
+                processor.process(bountyBoard)
+        );
+
+        long baseline = measure(() -> multiPass.process(bountyBoard));
+        long perRender = measure(() -> processor.process(CompiledTemplate.compile(bountyBoard)));
+        long cached = measure(() -> processor.process(bountyBoard));
+
+        System.out.printf("BountyBoard.html (50 bounties): multi-pass %,d ns/op, compile per render %,d ns/op, "
+                + "cached program %,d ns/op (%.1fx)%n", baseline, perRender, cached, (double) baseline / cached);
+    }
+
+    @Test
+    void leaderboard_500Rows() {
+        List<Bounty> rows = createBounties(500);
+        processor.setVariable("rows", rows);
+        String template = """
+                {{#each rows}}
+                <div class="row"><p>{{$title}}</p><p>{{$level}}</p><p>{{$rarity|upper}}</p></div>
+                {{/each}}
+                """;
+
+        long elapsed = measure(() -> processor.process(template));
+
+        System.out.printf("Leaderboard (500 rows): %,d ns/op%n", elapsed);
+    }
+
+    @Test
+    void leaderboard_500Rows_fragmentCache() {
+        processor.setVariable("rows", createBounties(500));
+        String row = "<div class=\"row\"><p>{{$title}}</p><p>{{$level}}</p><p>{{$rarity|upper}}</p></div>";
+        String uncached = "{{#each rows}}" + row + "{{/each}}";
+        String cached = "{{#each rows cache}}" + row + "{{/each}}";
+        assertEquals(processor.process(uncached), processor.process(cached));
+
+        long plain = measure(() -> processor.process(uncached));
+        long memoised = measure(() -> processor.process(cached));
+
+        System.out.printf("Leaderboard (500 rows): uncached %,d ns/op, fragment cache %,d ns/op (%,d hits, %,d misses)%n",
+                plain, memoised, processor.getFragmentCacheHits(), processor.getFragmentCacheMisses());
+    }
+
+    @Test
+    void auditLog_10kRows_parallelScaling() {
+        processor.setVariable("rows", createBounties(10_000));
+        String template = """
+                {{#each rows parallel}}
+                <div class="row"><p>{{$title}}</p><p>{{$level|number}}</p>{{#if level >= 6 || rarity == Rare}}<p>Priority</p>{{/if}}</div>
+                {{/each}}
+                """;
+        String sequential = processor.setParallelEachThreshold(Integer.MAX_VALUE).process(template);
+        long baseline = measure(() -> processor.process(template), 20, 100);
+        System.out.printf("Audit log (10k rows): sequential %,d ns/op (%d cores available)%n",
+                baseline, Runtime.getRuntime().availableProcessors());
+
+        processor.setParallelEachThreshold(1_000);
+        for (int parallelism : new int[]{2, 4, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                processor.setParallelPool(pool);
+                assertEquals(sequential, processor.process(template));
+                long elapsed = measure(() -> processor.process(template), 20, 100);
+                System.out.printf("Audit log (10k rows): %d threads %,d ns/op (%.2fx)%n",
+                        parallelism, elapsed, (double) baseline / elapsed);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void leaderboard_50kEntries_onePage() {
+        List<Bounty> entries = new ArrayList<>(50_000);
+        for (int i = 0; i < 50_000; i++) {
+            entries.add(new Bounty("Player " + i, (i * 7919) % 50_000, "Common"));
+        }
+        processor.setVariable("entries", entries).setVariable("page", 100);
+        String row = "<div class=\"row\"><p>{{$title}}</p><p>{{$level}}</p></div>";
+
+        long sortedInJava = measure(() -> {
+            List<Bounty> sorted = new ArrayList<>(entries);
+            sorted.sort((a, b) -> Integer.compare(b.level(), a.level()));
+            processor.setVariable("pageRows", sorted.subList(100, 120));
+            processor.process("{{#each pageRows}}" + row + "{{/each}}");
+        }, 20, 200);
+        long windowed = measure(() -> processor.process(
+                "{{#each entries sort=level desc limit=20 offset=$page}}" + row + "{{/each}}"), 20, 200);
+
+        System.out.printf("Leaderboard (50k entries, 20 row page): sort in Java %,d ns/op, windowed each %,d ns/op%n",
+                sortedInJava, windowed);
+    }
+
+    static long measure(Runnable action) {
+        return measure(action, WARMUP_ROUNDS, MEASURED_ROUNDS);
+    }
+
+    static long measure(Runnable action, int warmupRounds, int measuredRounds) {
+        for (int i = 0; i < warmupRounds; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredRounds; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / measuredRounds;
+    }
+
+    static String loadPage(String name) throws IOException {
+        try (InputStream in = TemplateProcessorBenchmark.class.getResourceAsStream("/Common/UI/Custom/Pages/" + name)) {
+            assertNotNull(in, "Missing page " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    static List<Bounty> createBounties(int count) {
+        String[] rarities = {"Common", "Uncommon", "Rare"};
+        List<Bounty> bounties = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            bounties.add(new Bounty("Bounty " + i, i % 10, rarities[i % rarities.length]));
+        }
+        return bounties;
+    }
+
+    static TemplateProcessor createBountyTemplate(List<Bounty> bounties) {
+        return new TemplateProcessor()
+                .setVariable("title", "Bounty Board")
+                .setVariable("summary", "Showing " + bounties.size() + " bounties")
+                .setVariable("bounties", bounties)
+                .registerComponent("bountyCard", BOUNTY_CARD);
+    }
+
+    static MultiPassTemplateProcessor createMultiPassBountyTemplate(List<Bounty> bounties) {
+        return new MultiPassTemplateProcessor()
+                .setVariable("title", "Bounty Board")
+                .setVariable("summary", "Showing " + bounties.size() + " bounties")
+                .setVariable("bounties", bounties)
+                .registerComponent("bountyCard", BOUNTY_CARD);
+    }
+
+    record Bounty(String title, int level, String rarity) {}
+}
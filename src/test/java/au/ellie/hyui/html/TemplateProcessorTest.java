@@ -1,14 +1,36 @@
 package au.ellie.hyui.html;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TemplateProcessorTest {
 
@@ -176,6 +198,58 @@ class TemplateProcessorTest {
         }
     }
 
+    /* --------------------------------------------------
+     * Condition expressions
+     * -------------------------------------------------- */
+
+    @Nested
+    class Conditions {
+
+        private String test(String condition) {
+            return processor.process("{{#if " + condition + "}}T{{else}}F{{/if}}");
+        }
+
+        @Test
+        void comparesAndCombinesOperands() {
+            processor
+                    .setVariable("level", 7)
+                    .setVariable("rarity", "Rare")
+                    .setVariable("title", "Slime Cleanup")
+                    .setVariable("tags", List.of("pve", "daily"));
+
+            assertEquals("T", test("level >= 6 && rarity == Rare"));
+            assertEquals("F", test("level < 6 || rarity != Rare"));
+            assertEquals("T", test("title == Slime Cleanup"));
+            assertEquals("T", test("tags contains daily && title contains 'Slime'"));
+            assertEquals("F", test("!level == 7"));
+        }
+
+        @Test
+        void supportsArithmeticAndParentheses() {
+            processor
+                    .setVariable("kills", 12)
+                    .setVariable("assists", 9)
+                    .setVariable("ratio", 1.5);
+
+            assertEquals("T", test("(kills + assists) / 3 == 7"));
+            assertEquals("T", test("kills % 5 == 2 && ratio * 2 == 3"));
+            assertEquals("F", test("!(kills - assists > 2)"));
+            assertEquals("T", test("kills / 0 == null"));
+        }
+
+        @Test
+        void arithmeticNeedsSurroundingSpaces() {
+            processor.setVariable("name", "a-b");
+
+            assertEquals("T", test("name == a-b"));
+        }
+
+        @Test
+        void compiledConditionsAreCached() {
+            assertSame(ConditionExpression.of("level > 3"), ConditionExpression.of(" level > 3 "));
+        }
+    }
+
     /* --------------------------------------------------
      * Each blocks
      * -------------------------------------------------- */
@@ -223,6 +297,112 @@ class TemplateProcessorTest {
                     processor.process(template).replaceAll("\\s+", "")
             );
         }
+
+        @Test
+        void nestedLoopsShadowOuterItemAndSeeOuterVariables() {
+            processor
+                    .setVariable("prefix", "#")
+                    .setVariable("rows", List.of(
+                            Map.of("name", "A", "cells", List.of(1, 2)),
+                            Map.of("name", "B", "cells", List.of(3))
+                    ));
+
+            String template = "{{#each rows}}{{$name}}[{{#each cells}}{{$prefix}}{{$name}}{{$item}}{{/each}}]{{/each}}";
+
+            assertEquals("A[#A1#A2]B[#B3]", processor.process(template));
+        }
+
+        @Test
+        void itemsWithNonStringKeysFallBackToOuterVariables() {
+            TreeMap<Integer, String> first = new TreeMap<>(Map.of(1, "one"));
+            TreeMap<Integer, String> second = new TreeMap<>(Map.of(2, "two"));
+            processor
+                    .setVariable("name", "outer")
+                    .setVariable("rows", List.of(first, second));
+
+            assertEquals(
+                    "outer;outer;",
+                    processor.process("{{#each rows sort=rank}}{{$name}};{{/each}}")
+            );
+        }
+
+        @Test
+        void itemVariablesDoNotLeakOutOfTheLoop() {
+            processor
+                    .setVariable("name", "outer")
+                    .setVariable("users", List.of(Map.of("name", "inner")));
+
+            assertEquals(
+                    "inner/outer",
+                    processor.process("{{#each users}}{{$name}}{{/each}}/{{$name}}")
+            );
+        }
+    }
+
+    /* --------------------------------------------------
+     * Model binding
+     * -------------------------------------------------- */
+
+    record Player(String name, int score) {}
+
+    static class Team {
+        public final String tag = "HY";
+        private final String name;
+        private final boolean active;
+        private final Player captain;
+
+        Team(String name, boolean active, Player captain) {
+            this.name = name;
+            this.active = active;
+            this.captain = captain;
+        }
+
+        public String getName() {
+            return name.toUpperCase();
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public Player getCaptain() {
+            return captain;
+        }
+    }
+
+    @Nested
+    class ModelBinding {
+
+        @Test
+        void bindsRecordComponents() {
+            processor.setVariable("players", List.of(new Player("Ellie", 10), new Player("Bob", 7)));
+
+            assertEquals(
+                    "Ellie:10;Bob:7;",
+                    processor.process("{{#each players}}{{$name}}:{{$score}};{{/each}}")
+            );
+        }
+
+        @Test
+        void bindsPojoFieldsAndGetters() {
+            processor.setVariable("teams", List.of(new Team("red", true, new Player("Ellie", 10))));
+
+            assertEquals(
+                    "HY RED active Ellie",
+                    processor.process(
+                            "{{#each teams}}{{$tag}} {{$name}}{{#if active}} active{{/if}} {{$item.captain.name}}{{/each}}")
+            );
+        }
+
+        @Test
+        void resolvesDottedPathsThroughMapsAndObjects() {
+            processor.setVariable("data", Map.of("team", new Team("blue", false, new Player("Bob", 7))));
+
+            assertEquals(
+                    "BLUE/7/false",
+                    processor.process("{{$data.team.name}}/{{$data.team.captain.score}}/{{$data.team.active}}")
+            );
+        }
     }
 
     /* --------------------------------------------------
@@ -258,6 +438,531 @@ class TemplateProcessorTest {
         }
     }
 
+    /* --------------------------------------------------
+     * Compiled templates
+     * -------------------------------------------------- */
+
+    @Nested
+    class CompiledTemplates {
+
+        @Test
+        void compiledTemplatesAreCachedBySource() {
+            String template = "<p>{{$name}}</p>";
+
+            assertSame(
+                    CompiledTemplate.of(template),
+                    CompiledTemplate.of(new String(template))
+            );
+        }
+
+        @Test
+        void compiledTemplateRendersSameAsSource() {
+            processor
+                    .setVariable("items", List.of(1, 2, 3))
+                    .registerComponent("cell", "<td>{{$value}}</td>");
+
+            String template = """
+                    {{#each items}}
+                    {{#if item >= 2}}{{@cell:value={{$item}}}}{{else}}<td>-</td>{{/if}}
+                    {{/each}}
+                    """;
+
+            assertEquals(
+                    processor.process(template),
+                    processor.process(CompiledTemplate.compile(template))
+            );
+        }
+
+        @Test
+        void componentParametersOnlyReplacePlainPlaceholders() {
+            processor
+                    .setVariable("text", "scope")
+                    .registerComponent("label", "<p>{{$text}}/{{$text|upper}}</p>");
+
+            assertEquals(
+                    "<p>param/SCOPE</p>",
+                    processor.process("{{@label:text=param}}")
+            );
+        }
+
+        @Test
+        void unterminatedBlocksAreKeptAsText() {
+            processor.setVariable("items", List.of("A"));
+
+            assertEquals(
+                    "{{#each items}} x",
+                    processor.process("{{#each items}} {{$missing|x}}")
+            );
+        }
+
+        @Test
+        void blocksAfterAnUnterminatedBlockStillRender() {
+            processor.setVariable("items", List.of("A", "B"));
+
+            // Only the broken opener is kept as text; well-formed blocks after it are rendered.
+            assertEquals(
+                    "{{#each items}} <AB>",
+                    processor.process("{{#each items}} <{{#each items}}{{$item}}{{/each}}>")
+            );
+        }
+
+        @Test
+        void precompiledFormRoundTrips() throws IOException {
+            processor
+                    .setVariable("players", List.of(new Player("Ellie", 12), new Player("Sam", 3)))
+                    .registerComponent("cell", "<td>{{$value}}</td>");
+            String template = """
+                    {{#each players where="score > 1" sort=score desc limit=5 cache}}
+                    {{#if score >= 10}}{{@cell:value={{$name|upper}}}}{{else}}<td>{{$name}}</td>{{/if}}
+                    {{/each}}
+                    """;
+            CompiledTemplate compiled = CompiledTemplate.compile(template);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            compiled.writeTo(out);
+            CompiledTemplate read = CompiledTemplate.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+            assertEquals(template, read.getSource());
+            assertEquals(compiled.getNodes(), read.getNodes());
+            assertSame(read, CompiledTemplate.of(template));
+            assertEquals(processor.process(compiled), processor.process(read));
+        }
+
+        @Test
+        void findsMalformedBlocks() {
+            assertEquals(List.of(), CompiledTemplate.compile("{{#each a cache}}{{#if b}}x{{else}}y{{/if}}{{/each}}").findProblems());
+
+            List<String> problems = CompiledTemplate.compile("<p>{{#each items}}{{$name}}</p>{{#each rows sideways}}{{/each}}")
+                    .findProblems();
+            assertEquals(2, problems.size(), problems.toString());
+            assertTrue(problems.get(0).contains("{{#each"));
+            assertTrue(problems.get(1).contains("sideways"));
+        }
+    }
+
+    /* --------------------------------------------------
+     * Streaming render
+     * -------------------------------------------------- */
+
+    @Nested
+    class StreamingRender {
+
+        @Test
+        void rendersIntoAppendable() throws IOException {
+            processor
+                    .setVariable("items", List.of("A", "B"))
+                    .registerComponent("cell", "<td>{{$value|upper}}</td><td>{{$value}}</td>");
+
+            String template = "{{#each items}}{{@cell:value={{$item}}}}{{/each}}";
+            StringWriter out = new StringWriter();
+            processor.render(template, Map.of(), out);
+
+            assertEquals(processor.process(template), out.toString());
+        }
+
+        @Test
+        void scopeTakesPrecedenceOverVariables() throws IOException {
+            processor.setVariable("name", "Ellie");
+
+            StringBuilder out = new StringBuilder();
+            processor.render("Hello {{$name}} and {{$other}}", Map.of("other", "Bob"), out);
+            processor.render(" / {{$name}}", Map.of("name", "Alice"), out);
+
+            assertEquals("Hello Ellie and Bob / Alice", out.toString());
+        }
+
+        @Test
+        void unusedComponentParameterIsNotEvaluated() {
+            AtomicInteger evaluations = new AtomicInteger();
+
+            processor
+                    .setVariable("secret", () -> {
+                        evaluations.incrementAndGet();
+                        return "SHOULD NOT HAPPEN";
+                    })
+                    .registerComponent("plain", "<p>static</p>");
+
+            assertEquals("<p>static</p>", processor.process("{{@plain:text={{$secret}}}}"));
+            assertEquals(0, evaluations.get(), "Unused parameter must not be rendered");
+        }
+    }
+
+    /* --------------------------------------------------
+     * Tracked rendering
+     * -------------------------------------------------- */
+
+    @Nested
+    class TrackedRendering {
+
+        private final Map<String, Object> runtimeValues = new HashMap<>();
+        private final TemplateProcessor.ValueResolver resolver =
+                name -> Optional.ofNullable(runtimeValues.get(name));
+        private final AtomicInteger renders = new AtomicInteger();
+
+        @BeforeEach
+        void registerCountingFilter() {
+            processor.registerFilter("counted", value -> {
+                renders.incrementAndGet();
+                return value;
+            });
+        }
+
+        @Test
+        void rerendersOnlyBlocksWhoseValuesChanged() {
+            runtimeValues.put("region", "Forest");
+            runtimeValues.put("minLevel", "1");
+
+            RenderedTemplate rendered = processor.renderTracked(
+                    "<p>{{$region|counted}}</p><p>{{$minLevel|counted}}</p>{{#if minLevel >= 6}}<p>Elite</p>{{/if}}",
+                    resolver
+            );
+            assertEquals("<p>Forest</p><p>1</p>", rendered.getOutput());
+            assertEquals(2, renders.get());
+
+            assertFalse(processor.refresh(rendered, resolver, Set.of()));
+            assertEquals(2, renders.get());
+
+            runtimeValues.put("minLevel", "7");
+            assertTrue(processor.refresh(rendered, resolver, Set.of()));
+            assertEquals("<p>Forest</p><p>7</p><p>Elite</p>", rendered.getOutput());
+            assertEquals(3, renders.get(), "Only the minLevel blocks should re-render");
+        }
+
+        @Test
+        void changedNamesForceDependentBlocks() {
+            RenderedTemplate rendered = processor.renderTracked("{{$a|counted}}{{$b|counted}}", resolver);
+            assertEquals(2, renders.get());
+
+            processor.refresh(rendered, resolver, Set.of("b"));
+            assertEquals(3, renders.get());
+            assertTrue(rendered.getDependencies().containsAll(Set.of("a", "b")));
+        }
+
+        @Test
+        void processorChangesAndSuppliersRerender() {
+            AtomicInteger counter = new AtomicInteger();
+            processor
+                    .setVariable("name", "Ellie")
+                    .setVariable("tick", () -> counter.incrementAndGet());
+
+            RenderedTemplate rendered = processor.renderTracked("{{$name|counted}} {{$tick}}", resolver);
+            assertEquals("Ellie 1", rendered.getOutput());
+
+            assertTrue(processor.refresh(rendered, resolver, null));
+            assertEquals("Ellie 2", rendered.getOutput());
+            assertEquals(1, renders.get(), "Supplier block re-renders on its own");
+
+            processor.setVariable("name", "Bob");
+            assertTrue(processor.refresh(rendered, resolver, null));
+            assertEquals("Bob 3", rendered.getOutput());
+        }
+    }
+
+    /* --------------------------------------------------
+     * Windowed each
+     * -------------------------------------------------- */
+
+    @Nested
+    class WindowedEach {
+
+        private List<Player> leaderboard(int size) {
+            List<Player> players = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                players.add(new Player("P" + i, (i * 7919) % 1000));
+            }
+            return players;
+        }
+
+        private String expected(List<Player> players) {
+            StringBuilder out = new StringBuilder();
+            for (Player player : players) {
+                out.append(player.name()).append(':').append(player.score()).append(';');
+            }
+            return out.toString();
+        }
+
+        @Test
+        void sortsPagesAndLimitsLikeAFullSort() {
+            List<Player> players = leaderboard(5_000);
+            processor.setVariable("players", players).setVariable("page", 40);
+
+            List<Player> sorted = new ArrayList<>(players);
+            sorted.sort((a, b) -> Integer.compare(b.score(), a.score()));
+
+            assertEquals(expected(sorted.subList(40, 60)),
+                    processor.process("{{#each players sort=score desc limit=20 offset=$page}}{{$name}}:{{$score}};{{/each}}"));
+
+            sorted.sort((a, b) -> Integer.compare(a.score(), b.score()));
+            assertEquals(expected(sorted.subList(0, 3)),
+                    processor.process("{{#each players sort=score limit=3}}{{$name}}:{{$score}};{{/each}}"));
+            assertEquals(expected(sorted),
+                    processor.process("{{#each players sort=score asc}}{{$name}}:{{$score}};{{/each}}"));
+        }
+
+        @Test
+        void filtersWithQuotedCondition() {
+            processor.setVariable("players", List.of(new Player("Ellie", 12), new Player("Sam", 3), new Player("Kai", 40)));
+            assertEquals("Kai,Ellie,",
+                    processor.process("{{#each players where=\"score >= 10\" sort=score desc}}{{$name}},{{/each}}"));
+        }
+
+        @Test
+        void unsortedWindowStopsReadingEarly() {
+            AtomicInteger read = new AtomicInteger();
+            Iterable<Integer> numbers = () -> new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public Integer next() {
+                    read.incrementAndGet();
+                    return next++;
+                }
+            };
+            processor.setVariable("numbers", numbers);
+
+            assertEquals("10 11 12 ", processor.process("{{#each numbers offset=10 limit=3}}{{$item}} {{/each}}"));
+            assertEquals(13, read.get());
+        }
+
+        @Test
+        void sortsPrimitiveArraysAndPutsMissingValuesLast() {
+            processor.setVariable("values", new int[]{5, 1, 4});
+            assertEquals("541", processor.process("{{#each values sort=item desc}}{{$item}}{{/each}}"));
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            rows.add(Map.of("name", "a"));
+            rows.add(Map.of("name", "b", "rank", 2));
+            rows.add(Map.of("name", "c", "rank", 1));
+            processor.setVariable("rows", rows);
+            assertEquals("cba", processor.process("{{#each rows sort=rank}}{{$name}}{{/each}}"));
+            assertEquals("bca", processor.process("{{#each rows sort=rank desc}}{{$name}}{{/each}}"));
+        }
+
+        @Test
+        void invalidOptionsKeepTheOldBehaviour() {
+            processor.setVariable("rows", List.of("a"));
+            assertEquals("", processor.process("{{#each rows limit=many}}{{$item}}{{/each}}"));
+            assertEquals("a", processor.process("{{#each rows limit=$missing}}{{$item}}{{/each}}"));
+        }
+    }
+
+    /* --------------------------------------------------
+     * Fragment caching
+     * -------------------------------------------------- */
+
+    @Nested
+    class FragmentCaching {
+
+        private final AtomicInteger renders = new AtomicInteger();
+
+        @BeforeEach
+        void registerCountingFilter() {
+            processor.registerFilter("counted", value -> {
+                renders.incrementAndGet();
+                return value;
+            });
+        }
+
+        @Test
+        void cachedEachMatchesUncachedAndReusesRows() {
+            processor.setVariable("rows", List.of(new Player("Ellie", 12), new Player("Sam", 3)));
+            String body = "<p>{{$name|counted}} {{#if score >= 10}}veteran{{else}}rookie{{/if}}</p>";
+
+            String uncached = processor.process("{{#each rows}}" + body + "{{/each}}");
+            renders.set(0);
+
+            String template = "{{#each rows cache}}" + body + "{{/each}}";
+            assertEquals(uncached, processor.process(template));
+            assertEquals(2, renders.get());
+            assertEquals(2, processor.getFragmentCacheMisses());
+
+            assertEquals(uncached, processor.process(template));
+            assertEquals(2, renders.get(), "Rows should come from the cache");
+            assertEquals(2, processor.getFragmentCacheHits());
+        }
+
+        @Test
+        void changedValueRerendersOnlyThatRow() {
+            String template = "{{#each rows cache}}<p>{{$name|counted}}: {{$score}}</p>{{/each}}";
+            processor.setVariable("rows", List.of(new Player("Ellie", 12), new Player("Sam", 3)));
+            processor.process(template);
+
+            processor.setVariable("rows", List.of(new Player("Ellie", 12), new Player("Sam", 4)));
+            assertEquals("<p>Ellie: 12</p><p>Sam: 4</p>", processor.process(template));
+            assertEquals(3, renders.get());
+        }
+
+        @Test
+        void branchReadsAreTrackedAcrossRenders() {
+            String template = "{{#each rows cache}}{{#if vip}}{{$name}}{{else}}{{$guest}}{{/if}};{{/each}}";
+            processor.setVariable("guest", "Guest");
+            processor.setVariable("rows", List.of(Map.of("vip", false, "name", "Ellie")));
+            assertEquals("Guest;", processor.process(template));
+
+            processor.setVariable("guest", "Visitor");
+            assertEquals("Visitor;", processor.process(template));
+
+            processor.setVariable("rows", List.of(Map.of("vip", true, "name", "Ellie")));
+            assertEquals("Ellie;", processor.process(template));
+        }
+
+        @Test
+        void cachedComponentKeysOnItsParameters() {
+            processor.registerComponent("badge", "<span>{{$label|counted}} {{$text}}</span>", true);
+            processor.setVariable("label", "Rank");
+
+            assertEquals("<span>Rank Gold</span>", processor.process("{{@badge:text=Gold}}"));
+            assertEquals("<span>Rank Gold</span>", processor.process("{{@badge:text=Gold}}"));
+            assertEquals(1, renders.get());
+
+            assertEquals("<span>Rank Silver</span>", processor.process("{{@badge:text=Silver}}"));
+            processor.setVariable("label", "Tier");
+            assertEquals("<span>Tier Gold</span>", processor.process("{{@badge:text=Gold}}"));
+            assertEquals(3, renders.get());
+        }
+
+        @Test
+        void registeringFiltersClearsTheCache() {
+            processor.setVariable("rows", List.of("a"));
+            String template = "{{#each rows cache}}{{$item|shout}}{{/each}}";
+            processor.registerFilter("shout", value -> value + "!");
+            assertEquals("a!", processor.process(template));
+
+            processor.registerFilter("shout", value -> value + "?");
+            assertEquals("a?", processor.process(template));
+        }
+    }
+
+    /* --------------------------------------------------
+     * Parallel each
+     * -------------------------------------------------- */
+
+    @Nested
+    class ParallelEach {
+
+        private final ForkJoinPool pool = new ForkJoinPool(4);
+
+        @AfterEach
+        void shutdownPool() {
+            pool.shutdown();
+        }
+
+        @Test
+        void parallelBlockKeepsItemOrder() {
+            List<Player> players = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                players.add(new Player("P" + i, i));
+            }
+            processor.setVariable("players", players);
+            String body = "<p>{{$name}}{{#if score >= 500}}!{{/if}}</p>";
+            String sequential = processor.process("{{#each players}}" + body + "{{/each}}");
+
+            processor.setParallelPool(pool).setParallelEachThreshold(10);
+            assertEquals(sequential, processor.process("{{#each players parallel}}" + body + "{{/each}}"));
+            assertEquals(sequential, processor.process("{{#each players parallel cache}}" + body + "{{/each}}"));
+
+            processor.setParallelEach(true);
+            assertEquals(sequential, processor.process("{{#each players}}" + body + "{{/each}}"));
+        }
+
+        @Test
+        void parallelBlockReportsDependencies() {
+            processor.setVariable("rows", Collections.nCopies(200, "row"))
+                    .setVariable("suffix", "!")
+                    .setParallelPool(pool)
+                    .setParallelEachThreshold(10);
+
+            RenderedTemplate rendered = processor.renderTracked("{{#each rows parallel}}{{$item}}{{$suffix}}{{/each}}",
+                    name -> Optional.empty());
+            assertEquals("row!".repeat(200), rendered.getOutput());
+            assertTrue(rendered.getDependencies().contains("suffix"));
+        }
+
+        @Test
+        void unknownFlagsKeepTheWholeHeaderAsListName() {
+            processor.setVariable("rows", List.of("a"));
+            assertEquals("", processor.process("{{#each rows sideways}}{{$item}}{{/each}}"));
+        }
+    }
+
+    /* --------------------------------------------------
+     * Concurrent rendering
+     * -------------------------------------------------- */
+
+    @Nested
+    class ConcurrentRendering {
+
+        private static final int THREADS = 8;
+        private static final int RENDERS_PER_THREAD = 500;
+
+        private void runConcurrently(IntConsumer task) throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    int threadIndex = thread;
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        task.accept(threadIndex);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void sharedProcessorKeepsResolversPerRender() throws Exception {
+            processor
+                    .setVariable("player", "")
+                    .setVariable("rows", List.of(1, 2, 3))
+                    .registerComponent("cell", "<td>{{$player}}:{{$value}}</td>");
+
+            String template = "{{#each rows}}{{#if player}}{{@cell:value={{$item}}}}{{/if}}{{/each}}";
+
+            runConcurrently(thread -> {
+                String player = "p" + thread;
+                TemplateProcessor.ValueResolver resolver = name -> "player".equals(name)
+                        ? Optional.of(player)
+                        : Optional.empty();
+                String expected = "<td>" + player + ":1</td><td>" + player + ":2</td><td>" + player + ":3</td>";
+
+                for (int i = 0; i < RENDERS_PER_THREAD; i++) {
+                    assertEquals(expected, processor.process(template, resolver));
+                    assertEquals("", processor.process(template), "Resolver leaked into a plain render");
+                }
+            });
+        }
+
+        @Test
+        void registrationWhileRenderingIsSafe() throws Exception {
+            processor
+                    .setVariable("name", "Ellie")
+                    .registerComponent("greeting", "Hello {{$name}}");
+
+            runConcurrently(thread -> {
+                for (int i = 0; i < RENDERS_PER_THREAD; i++) {
+                    if (thread == 0) {
+                        processor.setVariable("extra" + i, i).registerFilter("f" + i, String::trim);
+                    } else {
+                        assertEquals("Hello Ellie", processor.process("{{@greeting}}"));
+                    }
+                }
+            });
+        }
+    }
+
     /* --------------------------------------------------
      * Supplier laziness
      * -------------------------------------------------- */